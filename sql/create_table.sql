@@ -88,12 +88,14 @@ create table if not exists user_answer
     resultDesc      text                               null comment '结果描述',
     resultPicture   varchar(1024)                      null comment '结果图标',
     resultScore     int                                null comment '得分',
+    scoringStatus   tinyint  default 0                 not null comment '评分状态（0-评分完成，1-评分中，2-评分失败）',
     userId          bigint                             not null comment '用户 id',
     createTime      datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime      datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
     isDelete        tinyint  default 0                 not null comment '是否删除',
     index idx_appId (appId),
-    index idx_userId (userId)
+    index idx_userId (userId),
+    index idx_scoringStatus_updateTime (scoringStatus, updateTime)
 ) comment '用户答题记录' collate = utf8mb4_unicode_ci;
 
 
@@ -108,13 +110,15 @@ create table if not exists user_answer_0
     resultDesc      text                               null comment '结果描述',
     resultPicture   varchar(1024)                      null comment '结果图标',
     resultScore     int                                null comment '得分',
+    scoringStatus   tinyint  default 0                 not null comment '评分状态（0-评分完成，1-评分中，2-评分失败）',
     scoringStrategy tinyint  default 0                 not null comment '评分策略（0-自定义，1-AI）',
     userId          bigint                             not null comment '用户 id',
     createTime      datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime      datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
     isDelete        tinyint  default 0                 not null comment '是否删除',
     index idx_appId (appId),
-    index idx_userId (userId)
+    index idx_userId (userId),
+    index idx_scoringStatus_updateTime (scoringStatus, updateTime)
 ) comment '用户答题记录 分表 1' collate = utf8mb4_unicode_ci;
 
 
@@ -129,11 +133,64 @@ create table if not exists user_answer_1
     resultDesc      text                               null comment '结果描述',
     resultPicture   varchar(1024)                      null comment '结果图标',
     resultScore     int                                null comment '得分',
+    scoringStatus   tinyint  default 0                 not null comment '评分状态（0-评分完成，1-评分中，2-评分失败）',
     scoringStrategy tinyint  default 0                 not null comment '评分策略（0-自定义，1-AI）',
     userId          bigint                             not null comment '用户 id',
     createTime      datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime      datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
     isDelete        tinyint  default 0                 not null comment '是否删除',
     index idx_appId (appId),
-    index idx_userId (userId)
-) comment '用户答题记录 分表 2' collate = utf8mb4_unicode_ci;
\ No newline at end of file
+    index idx_userId (userId),
+    index idx_scoringStatus_updateTime (scoringStatus, updateTime)
+) comment '用户答题记录 分表 2' collate = utf8mb4_unicode_ci;
+
+-- 评分状态字段（已有库升级）
+-- alter table user_answer_0 add column scoringStatus tinyint default 0 not null comment '评分状态（0-评分完成，1-评分中，2-评分失败）' after resultScore;
+-- alter table user_answer_1 add column scoringStatus tinyint default 0 not null comment '评分状态（0-评分完成，1-评分中，2-评分失败）' after resultScore;
+
+-- 评分中记录扫描索引（已有库升级）
+-- alter table user_answer_0 add index idx_scoringStatus_updateTime (scoringStatus, updateTime);
+-- alter table user_answer_1 add index idx_scoringStatus_updateTime (scoringStatus, updateTime);
+
+-- 用户答题记录索引表（不分表，按用户查询答题记录时先查此表，再按 appId 定位分表）
+create table if not exists user_answer_index
+(
+    id         bigint                             not null primary key comment '用户答题记录 id',
+    userId     bigint                             not null comment '用户 id',
+    appId      bigint                             not null comment '应用 id（分片键）',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    index idx_userId_id (userId, id)
+) comment '用户答题记录索引' collate = utf8mb4_unicode_ci;
+
+-- 索引表回填（已有库升级）
+-- insert ignore into user_answer_index (id, userId, appId, createTime) select id, userId, appId, createTime from user_answer_0 where isDelete = 0;
+-- insert ignore into user_answer_index (id, userId, appId, createTime) select id, userId, appId, createTime from user_answer_1 where isDelete = 0;
+
+-- 用户答题记录重新分表（custom.user-answer-reshard）
+-- 新分表由 /actuator/reshard（管理端口，只监听本机）的 start 操作按原分表结构创建，默认为 user_answer_v2_0 ~ user_answer_v2_3：
+-- create table if not exists user_answer_v2_0 like user_answer_0;
+-- 切换时 ShardingSphere 规则的 actual-data-nodes 改为 user_answer_v2_$->{0..3}，分片算法仍为下方的 user-answer-hot-app
+-- （UserAnswerShardingAlgorithm，按分表数 4 路由：普通应用在 appId % 4，热点应用 sinceId 之后的记录按 CRC32(userId) 分散）；
+-- 不能改为 appId % 4，否则热点应用分散在其他分表的记录将查不到；完成后可删除原分表
+
+-- 用户答题记录热点应用（不分表，热点应用 id 不小于 sinceId 的答题记录按用户分散到多张分表）
+create table if not exists user_answer_hot_app
+(
+    appId      bigint                             not null primary key comment '应用 id',
+    subShards  int                                not null comment '分散的分表数',
+    sinceId    bigint                             not null comment '从此 id 起的答题记录分散写入',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间'
+) comment '用户答题记录热点应用' collate = utf8mb4_unicode_ci;
+
+-- 热点应用分表规则（ShardingSphere），分片键为 appId、userId、id：
+-- user_answer:
+--   actual-data-nodes: ds0.user_answer_$->{0..1}
+--   table-strategy:
+--     complex:
+--       sharding-columns: appId,userId,id
+--       sharding-algorithm-name: user-answer-hot-app
+-- user-answer-hot-app:
+--   type: CLASS_BASED
+--   props:
+--     strategy: COMPLEX
+--     algorithmClassName: com.wolfhouse.answerme.sharding.UserAnswerShardingAlgorithm
@@ -0,0 +1,185 @@
+package com.wolfhouse.answerme.ai;
+
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateIntervalUnit;
+import org.redisson.api.RateType;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AI 调用隔离舱
+ * <p>
+ * 每个调用场景拥有独立的并发许可与排队上限，本节点内互不占用；
+ * 取得许可后再从集群共享的令牌桶（Redisson RRateLimiter）获取令牌，避免整体超过服务商限流。
+ * 排队已满、等待超时或限流时拒绝调用。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class AiBulkhead {
+    private static final String RATE_LIMITER_PREFIX = "ai_rate_limiter:";
+
+    private static final String REASON_QUEUE_FULL = "queue_full";
+    private static final String REASON_TIMEOUT = "timeout";
+    private static final String REASON_RATE_LIMITED = "rate_limited";
+
+    @Resource
+    private AiLimitConfig aiLimitConfig;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Map<AiUseCase, Compartment> compartments = new EnumMap<>(AiUseCase.class);
+
+    @PostConstruct
+    public void init() {
+        for (AiUseCase useCase : AiUseCase.values()) {
+            if (useCase.getQuotaUseCase() == useCase) {
+                compartments.put(useCase, new Compartment(useCase));
+            }
+        }
+    }
+
+    /**
+     * 获取调用许可，调用结束后必须关闭许可
+     *
+     * @param useCase 调用场景
+     * @return 许可
+     */
+    public Permit acquire(AiUseCase useCase) {
+        Compartment compartment = compartments.get(useCase.getQuotaUseCase());
+        long timeout = aiLimitConfig.getAcquireTimeout();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        // 1. 本节点并发许可，无空闲许可时排队等待，排队已满时直接拒绝
+        if (!compartment.semaphore.tryAcquire()) {
+            if (compartment.waiting.incrementAndGet() > compartment.quota.getMaxQueue()) {
+                compartment.waiting.decrementAndGet();
+                throw compartment.reject(REASON_QUEUE_FULL);
+            }
+            try {
+                if (!compartment.semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    throw compartment.reject(REASON_TIMEOUT);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                throw compartment.reject(REASON_TIMEOUT);
+            } finally {
+                compartment.waiting.decrementAndGet();
+            }
+        }
+
+        // 2. 集群令牌桶
+        if (aiLimitConfig.isRateLimitEnabled()) {
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            if (!compartment.rateLimiter.tryAcquire(1, remaining, TimeUnit.NANOSECONDS)) {
+                compartment.semaphore.release();
+                throw compartment.reject(REASON_RATE_LIMITED);
+            }
+        }
+        return new Permit(compartment.semaphore);
+    }
+
+    /**
+     * 调用许可，重复关闭只释放一次
+     */
+    public static final class Permit implements AutoCloseable {
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * 单个场景的隔离舱
+     */
+    private final class Compartment {
+        private final AiUseCase useCase;
+        private final AiLimitConfig.Quota quota;
+        private final Semaphore semaphore;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final RRateLimiter rateLimiter;
+        private final Counter queueFullCounter;
+        private final Counter timeoutCounter;
+        private final Counter rateLimitedCounter;
+
+        private Compartment(AiUseCase useCase) {
+            this.useCase = useCase;
+            this.quota = aiLimitConfig.getQuota(useCase);
+            this.semaphore = new Semaphore(quota.getMaxConcurrent(), true);
+            this.rateLimiter = redissonClient.getRateLimiter(RATE_LIMITER_PREFIX + useCase.getValue());
+            if (aiLimitConfig.isRateLimitEnabled()) {
+                // 以当前配置覆盖集群内的限流速率
+                rateLimiter.setRate(RateType.OVERALL,
+                                    quota.getRate(),
+                                    quota.getRateInterval(),
+                                    RateIntervalUnit.SECONDS);
+            }
+            this.queueFullCounter = rejectedCounter(REASON_QUEUE_FULL);
+            this.timeoutCounter = rejectedCounter(REASON_TIMEOUT);
+            this.rateLimitedCounter = rejectedCounter(REASON_RATE_LIMITED);
+            Gauge.builder("answerme.ai.bulkhead.queued", waiting, AtomicInteger::get)
+                 .description("等待 AI 调用许可的请求数")
+                 .tag("useCase", useCase.getValue())
+                 .register(meterRegistry);
+            Gauge.builder("answerme.ai.bulkhead.active",
+                          semaphore,
+                          s -> quota.getMaxConcurrent() - s.availablePermits())
+                 .description("进行中的 AI 调用数")
+                 .tag("useCase", useCase.getValue())
+                 .register(meterRegistry);
+        }
+
+        private BusinessException reject(String reason) {
+            switch (reason) {
+                case REASON_QUEUE_FULL:
+                    queueFullCounter.increment();
+                    break;
+                case REASON_TIMEOUT:
+                    timeoutCounter.increment();
+                    break;
+                default:
+                    rateLimitedCounter.increment();
+            }
+            log.warn("AI 调用被拒绝，场景: {}, 原因: {}", useCase.getValue(), reason);
+            return new BusinessException(ErrorCode.OPERATION_ERROR, "AI 服务繁忙，请稍后重试");
+        }
+
+        private Counter rejectedCounter(String reason) {
+            return Counter.builder("answerme.ai.bulkhead.rejected")
+                          .description("AI 调用被拒绝次数")
+                          .tag("useCase", useCase.getValue())
+                          .tag("reason", reason)
+                          .register(meterRegistry);
+        }
+    }
+}
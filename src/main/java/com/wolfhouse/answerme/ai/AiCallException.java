@@ -0,0 +1,45 @@
+package com.wolfhouse.answerme.ai;
+
+/**
+ * AI 接口返回失败
+ *
+ * @author Rylin Wolf
+ */
+public class AiCallException extends RuntimeException {
+    /**
+     * 调用超时的返回码
+     */
+    public static final int TIMEOUT_CODE = 408;
+
+    /**
+     * 接口返回码
+     */
+    private final int code;
+
+    public AiCallException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    /**
+     * 调用超时
+     *
+     * @return 异常
+     */
+    public static AiCallException timeout() {
+        return new AiCallException(TIMEOUT_CODE, "AI 调用超时");
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * 限流与服务端错误可以重试，超时不重试
+     *
+     * @return 是否可重试
+     */
+    public boolean isRetryable() {
+        return code == 429 || code >= 500 || code <= 0;
+    }
+}
@@ -0,0 +1,205 @@
+package com.wolfhouse.answerme.ai;
+
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reactivex.Flowable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AI 调用保护：超时、重试与熔断
+ * <p>
+ * 同步调用在独立线程中执行。模型客户端按同一截止时间设置 HTTP 超时，调用在截止时间由客户端结束，
+ * 本类多等待 {@link #TIMEOUT_GRACE_MILLIS} 后取消调用线程兜底（阻塞在网络读写上的线程无法被中断）。
+ * 超时不重试：重试会再发起一次同样耗时的调用；IO 异常、限流与服务端错误按指数退避加随机抖动重试。
+ * 失败率超过阈值时熔断，熔断期间直接失败，不再占用线程等待模型接口。
+ * 调用本身以 {@link Callable} 传入，可以用本地桩替换模型接口注入延迟与错误。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class AiCallGuard {
+    /** 等待客户端自行超时结束的额外时间（毫秒） */
+    private static final long TIMEOUT_GRACE_MILLIS = 1_000L;
+
+    @Resource
+    private AiResilienceConfig aiResilienceConfig;
+
+    @Resource
+    private ThreadPoolTaskExecutor aiCallTaskExecutor;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private AiCircuitBreaker circuitBreaker;
+
+    private Counter retryCounter;
+    private Counter circuitRejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new AiCircuitBreaker(aiResilienceConfig);
+        retryCounter = Counter.builder("answerme.ai.retries")
+                              .description("AI 调用重试次数")
+                              .register(meterRegistry);
+        circuitRejectedCounter = Counter.builder("answerme.ai.circuit.rejected")
+                                        .description("熔断期间被直接拒绝的 AI 调用数")
+                                        .register(meterRegistry);
+        Gauge.builder("answerme.ai.circuit.state", circuitBreaker, b -> b.getState()
+                                                                         .ordinal())
+             .description("AI 熔断器状态：0 关闭，1 打开，2 半开")
+             .register(meterRegistry);
+    }
+
+    /**
+     * 执行同步调用
+     *
+     * @param timeout 单次调用截止时间（毫秒），调用本身须以相同的超时时间结束
+     * @param call    调用
+     * @param <T>     返回类型
+     * @return 调用结果
+     */
+    public <T> T call(long timeout, Callable<T> call) {
+        for (int attempt = 0; ; attempt++) {
+            acquireCircuit();
+            try {
+                T result = invoke(call, timeout + TIMEOUT_GRACE_MILLIS);
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (BusinessException e) {
+                // 本地拒绝，调用未发出
+                circuitBreaker.release();
+                throw e;
+            } catch (Exception e) {
+                circuitBreaker.onFailure();
+                if (!isRetryable(e) || attempt >= aiResilienceConfig.getMaxRetries()) {
+                    log.error("AI 调用失败", e);
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage(e));
+                }
+                log.warn("AI 调用失败，第 {} 次重试: {}", attempt + 1, errorMessage(e));
+                retryCounter.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * 执行流式调用
+     * <p>
+     * 流式输出不重试；相邻两个分片间隔超过 idleTimeout 时以超时结束
+     *
+     * @param idleTimeout 相邻两个分片的最长间隔（毫秒），也是建立调用的截止时间
+     * @param open        建立流式调用
+     * @param <T>         分片类型
+     * @return 受保护的流
+     */
+    public <T> Flowable<T> stream(long idleTimeout, Callable<Flowable<T>> open) {
+        acquireCircuit();
+        Flowable<T> flowable;
+        try {
+            flowable = invoke(open, idleTimeout + TIMEOUT_GRACE_MILLIS);
+        } catch (BusinessException e) {
+            circuitBreaker.release();
+            throw e;
+        } catch (Exception e) {
+            circuitBreaker.onFailure();
+            log.error("AI 生成失败", e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage(e));
+        }
+        return flowable.timeout(idleTimeout, TimeUnit.MILLISECONDS)
+                       .doOnComplete(circuitBreaker::onSuccess)
+                       .doOnError(e -> circuitBreaker.onFailure())
+                       .doOnCancel(circuitBreaker::release);
+    }
+
+    private void acquireCircuit() {
+        if (!circuitBreaker.tryAcquire()) {
+            circuitRejectedCounter.increment();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 服务暂不可用，请稍后重试");
+        }
+    }
+
+    private <T> T invoke(Callable<T> call, long timeout) throws Exception {
+        Future<T> future;
+        try {
+            future = aiCallTaskExecutor.submit(call);
+        } catch (TaskRejectedException e) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "AI 服务繁忙，请稍后重试");
+        }
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            // 客户端未按时结束，中断调用线程
+            future.cancel(true);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread()
+                      .interrupt();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isRetryable(Exception e) {
+        if (e instanceof TimeoutException) {
+            return false;
+        }
+        if (e instanceof AiCallException) {
+            return ((AiCallException) e).isRetryable();
+        }
+        // 连接失败等网络错误可以重试，读超时（InterruptedIOException）不重试
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedIOException) {
+                return false;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) {
+        long delay = Math.min(aiResilienceConfig.getRetryMaxDelay(),
+                              aiResilienceConfig.getRetryBaseDelay() << Math.min(attempt, 20));
+        // 随机抖动，避免多个请求同时重试
+        long jittered = delay / 2 + ThreadLocalRandom.current()
+                                                      .nextLong(delay / 2 + 1);
+        try {
+            Thread.sleep(jittered);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 调用被中断");
+        }
+    }
+
+    private String errorMessage(Exception e) {
+        if (e instanceof TimeoutException || e instanceof InterruptedIOException) {
+            return "AI 调用超时";
+        }
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,126 @@
+package com.wolfhouse.answerme.ai;
+
+/**
+ * AI 调用熔断器
+ * <p>
+ * 按最近 N 次调用的结果统计失败率：
+ * 关闭状态下失败率超过阈值时打开；打开状态下直接拒绝调用，到期后进入半开状态；
+ * 半开状态只放行一次试探调用，成功则关闭，失败则重新打开。
+ *
+ * @author Rylin Wolf
+ */
+public class AiCircuitBreaker {
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final AiResilienceConfig config;
+
+    /** 最近调用结果的环形窗口，true 为失败 */
+    private final boolean[] window;
+
+    private int windowIndex;
+    private int windowCount;
+    private int failureCount;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    public AiCircuitBreaker(AiResilienceConfig config) {
+        this.config = config;
+        this.window = new boolean[Math.max(1, config.getCircuitWindowSize())];
+    }
+
+    /**
+     * 是否允许调用
+     *
+     * @return 允许时返回 true，半开状态下会占用唯一的试探名额
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED &&
+            windowCount >= config.getCircuitMinimumCalls() &&
+            (double) failureCount / windowCount >= config.getCircuitFailureRateThreshold()) {
+            open();
+        }
+    }
+
+    /**
+     * 调用未真正发出（如本地拒绝、被取消）时释放试探名额，不计入统计
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            // 窗口已满，移除最早的结果
+            if (window[windowIndex]) {
+                failureCount--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + config.getCircuitOpenDuration();
+        trialInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        windowIndex = 0;
+        windowCount = 0;
+        failureCount = 0;
+    }
+}
@@ -1,12 +1,12 @@
 package com.wolfhouse.answerme.ai;
 
-import com.zhipu.oapi.ClientV4;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
+ * 智谱 AI 配置，SDK 客户端由 {@link com.wolfhouse.answerme.ai.llm.GlmLlmClient} 按超时时间创建
+ *
  * @author Rylin Wolf
  */
 @Configuration
@@ -14,9 +14,4 @@ import org.springframework.context.annotation.Configuration;
 @Data
 public class AiConfig {
     private String apiKey;
-
-    @Bean
-    public ClientV4 client() {
-        return new ClientV4.Builder(apiKey).build();
-    }
 }
@@ -0,0 +1,48 @@
+package com.wolfhouse.answerme.ai;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI 生成题目配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.ai-generation")
+@Data
+public class AiGenerationConfig {
+    /**
+     * 每批生成的题目数，题目数超过该值时拆分为多批并行生成
+     */
+    private int chunkSize = 10;
+
+    /**
+     * 单个请求同时进行的批次数上限
+     */
+    private int maxParallelChunks = 3;
+
+    /**
+     * 单批输出不完整或格式错误时的最大重试次数（不含首次调用）
+     */
+    private int maxChunkRetries = 2;
+
+    /**
+     * 单个请求最多生成的题目数
+     * <p>
+     * 题目数只决定批次数（题目数 / chunkSize），同时进行的批次数由 maxParallelChunks 限制，
+     * 上限只用于拒绝批次数过多、长时间占用生成线程的请求
+     */
+    private int maxQuestionNumber = 200;
+
+    /**
+     * 单批调用因服务繁忙（并发许可排队已满或等待超时）被拒绝时的最大重试次数
+     */
+    private int maxBusyRetries = 3;
+
+    /**
+     * 服务繁忙重试的等待时间（毫秒），按重试次数线性增加
+     */
+    private long busyRetryDelay = 1_000L;
+}
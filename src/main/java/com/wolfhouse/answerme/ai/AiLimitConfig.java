@@ -0,0 +1,69 @@
+package com.wolfhouse.answerme.ai;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI 调用并发与限流配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.ai-limit")
+@Data
+public class AiLimitConfig {
+    /**
+     * 等待并发许可与限流令牌的最长时间（毫秒）
+     */
+    private long acquireTimeout = 3_000L;
+
+    /**
+     * 是否启用集群共享的令牌桶限流
+     */
+    private boolean rateLimitEnabled = true;
+
+    /**
+     * AI 评分配额
+     */
+    private Quota scoring = new Quota(12, 64, 20L, 1L);
+
+    /**
+     * AI 生成题目配额，与评分配额相互独立，生成题目再多也不会占用评分的并发
+     */
+    private Quota generation = new Quota(4, 8, 5L, 1L);
+
+    public Quota getQuota(AiUseCase useCase) {
+        return useCase.getQuotaUseCase() == AiUseCase.SCORING ? scoring : generation;
+    }
+
+    /**
+     * 单个场景的配额
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Quota {
+        /**
+         * 本节点最大并发调用数
+         */
+        private int maxConcurrent;
+
+        /**
+         * 本节点最大排队数，超出时直接拒绝
+         */
+        private int maxQueue;
+
+        /**
+         * 集群内每个周期允许的调用数
+         */
+        private long rate;
+
+        /**
+         * 限流周期（秒）
+         */
+        private long rateInterval;
+    }
+}
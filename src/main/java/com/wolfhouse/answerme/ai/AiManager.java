@@ -1,10 +1,9 @@
 package com.wolfhouse.answerme.ai;
 
-import com.wolfhouse.answerme.common.ErrorCode;
-import com.wolfhouse.answerme.exception.BusinessException;
-import com.zhipu.oapi.ClientV4;
-import com.zhipu.oapi.Constants;
-import com.zhipu.oapi.service.v4.model.*;
+import com.wolfhouse.answerme.ai.llm.LlmClient;
+import com.wolfhouse.answerme.ai.llm.LlmResponse;
+import com.zhipu.oapi.service.v4.model.ChatMessage;
+import com.zhipu.oapi.service.v4.model.ChatMessageRole;
 import io.reactivex.Flowable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +11,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Rylin Wolf
@@ -22,7 +22,11 @@ import java.util.List;
 public class AiManager {
     private static final float STABLE_TEMPERATURE = 0.05f;
     private static final float UNSTABLE_TEMPERATURE = 0.99f;
-    private final ClientV4 client;
+    private final LlmClient client;
+    private final AiBulkhead aiBulkhead;
+    private final AiCallGuard aiCallGuard;
+    private final AiMetrics aiMetrics;
+    private final AiResilienceConfig aiResilienceConfig;
 
     /**
      * 执行对话请求的方法。(同步 答案较不稳定)
@@ -46,6 +50,23 @@ public class AiManager {
         return doRequest(systemMessage, userMessage, Boolean.FALSE, STABLE_TEMPERATURE);
     }
 
+    /**
+     * 执行对话请求的方法。(同步 答案较稳定 指定调用场景)
+     *
+     * @param systemMessage 系统消息内容，用于设定对话的上下文或指令。
+     * @param userMessage   用户消息内容，表示用户的输入或问题。
+     * @param useCase       调用场景，决定使用的并发配额与限流。
+     * @param appId         应用 id，用于按应用统计用量，可为 null。
+     * @return 模型返回的聊天内容字符串。
+     */
+    public String doSyncStableRequest(String systemMessage, String userMessage, AiUseCase useCase, Long appId) {
+        return doRequest(buildMessageList(systemMessage, userMessage),
+                         Boolean.FALSE,
+                         STABLE_TEMPERATURE,
+                         useCase,
+                         appId);
+    }
+
     /**
      * 执行对话请求的方法。(同步)
      *
@@ -58,6 +79,24 @@ public class AiManager {
         return doRequest(systemMessage, userMessage, Boolean.FALSE, temperature);
     }
 
+    /**
+     * 执行对话请求的方法。(同步 指定调用场景)
+     *
+     * @param systemMessage 系统消息内容，用于设定对话的上下文或指令。
+     * @param userMessage   用户消息内容，表示用户的输入或问题。
+     * @param temperature   控制生成内容的随机性，值越高越随机，越低越倾向于确定性。
+     * @param useCase       调用场景，决定使用的并发配额与限流。
+     * @param appId         应用 id，用于按应用统计用量，可为 null。
+     * @return 模型返回的聊天内容字符串。
+     */
+    public String doSyncRequest(String systemMessage,
+                                String userMessage,
+                                Float temperature,
+                                AiUseCase useCase,
+                                Long appId) {
+        return doRequest(buildMessageList(systemMessage, userMessage), Boolean.FALSE, temperature, useCase, appId);
+    }
+
     /**
      * 执行对话请求的方法。
      *
@@ -79,10 +118,28 @@ public class AiManager {
      * @param temperature   控制生成内容的随机性，值越高越随机，越低越倾向于确定性。
      * @return 模型返回的聊天内容字符串。
      */
-    public Flowable<ModelData> doStreamRequest(String systemMessage, String userMessage, Float temperature) {
+    public Flowable<String> doStreamRequest(String systemMessage, String userMessage, Float temperature) {
         List<ChatMessage> messages = buildMessageList(systemMessage, userMessage);
         return doStreamRequest(messages, temperature);
     }
+
+    /**
+     * 流式 执行对话请求的方法。(简化消息传递 指定调用场景)
+     *
+     * @param systemMessage 系统消息内容，用于设定对话的上下文或指令。
+     * @param userMessage   用户消息内容，表示用户的输入或问题。
+     * @param temperature   控制生成内容的随机性，值越高越随机，越低越倾向于确定性。
+     * @param useCase       调用场景，决定使用的并发配额与限流。
+     * @param appId         应用 id，用于按应用统计用量，可为 null。
+     * @return 模型返回的聊天内容字符串。
+     */
+    public Flowable<String> doStreamRequest(String systemMessage,
+                                            String userMessage,
+                                            Float temperature,
+                                            AiUseCase useCase,
+                                            Long appId) {
+        return doStreamRequest(buildMessageList(systemMessage, userMessage), temperature, useCase, appId);
+    }
     
     /**
      * 执行对话请求的方法。(流式)
@@ -91,22 +148,50 @@ public class AiManager {
      * @param temperature 控制生成内容的随机性，值越高越随机，越低越倾向于确定性。
      * @return 模型返回的聊天内容字符串。
      */
-    public Flowable<ModelData> doStreamRequest(List<ChatMessage> messages, Float temperature) {
-        ChatCompletionRequest chatCompletionRequest = ChatCompletionRequest.builder()
-                                                                           .model(Constants.ModelChatGLM4)
-                                                                           .temperature(temperature)
-                                                                           .stream(Boolean.TRUE)
-                                                                           .invokeMethod(Constants.invokeMethod)
-                                                                           .messages(messages)
-                                                                           .build();
-        // 调用
+    public Flowable<String> doStreamRequest(List<ChatMessage> messages, Float temperature) {
+        return doStreamRequest(messages, temperature, AiUseCase.GENERATION_SSE, null);
+    }
+
+    /**
+     * 执行对话请求的方法。(流式 指定调用场景)
+     * <p>
+     * 调用许可在流结束、出错或取消订阅时释放。
+     *
+     * @param messages    包含聊天消息的列表，每条消息作为模型的输入。
+     * @param temperature 控制生成内容的随机性，值越高越随机，越低越倾向于确定性。
+     * @param useCase     调用场景，决定使用的并发配额与限流。
+     * @param appId       应用 id，用于按应用统计用量，可为 null。
+     * @return 模型返回的聊天内容字符串。
+     */
+    public Flowable<String> doStreamRequest(List<ChatMessage> messages,
+                                            Float temperature,
+                                            AiUseCase useCase,
+                                            Long appId) {
+        long start = System.nanoTime();
+        // 获取调用许可，排队已满或超时时拒绝
+        AiBulkhead.Permit permit = aiBulkhead.acquire(useCase);
+        // 调用（超时与熔断保护）
+        Flowable<LlmResponse> flowable;
         try {
-            ModelApiResponse invokeModelApiResp = client.invokeModelApi(chatCompletionRequest);
-            return invokeModelApiResp.getFlowable();
-        } catch (Exception e) {
-            log.error("AI 生成失败", e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, e.getMessage());
+            long idleTimeout = aiResilienceConfig.callTimeoutOf(useCase);
+            flowable = aiCallGuard.stream(idleTimeout, () -> client.streamChat(messages, temperature, idleTimeout));
+        } catch (RuntimeException e) {
+            permit.close();
+            aiMetrics.recordError(useCase, appId, start, e);
+            throw e;
         }
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        return flowable.doOnNext(chunk -> {
+                           if (firstToken.compareAndSet(true, false)) {
+                               aiMetrics.recordFirstToken(useCase, appId, start);
+                           }
+                           aiMetrics.recordUsage(useCase, appId, chunk);
+                       })
+                       .doOnComplete(() -> aiMetrics.recordSuccess(useCase, appId, start, null))
+                       .doOnError(e -> aiMetrics.recordError(useCase, appId, start, e))
+                       .doOnCancel(() -> aiMetrics.recordCancel(useCase, appId, start))
+                       .map(LlmResponse::getContent)
+                       .doFinally(permit::close);
     }
 
     /**
@@ -118,25 +203,35 @@ public class AiManager {
      * @return 模型返回的聊天内容字符串。
      */
     public String doRequest(List<ChatMessage> messages, Boolean stream, Float temperature) {
-        ChatCompletionRequest chatCompletionRequest = ChatCompletionRequest.builder()
-                                                                           .model(Constants.ModelChatGLM4)
-                                                                           .temperature(temperature)
-                                                                           .stream(stream)
-                                                                           .invokeMethod(Constants.invokeMethod)
-                                                                           .messages(messages)
-                                                                           .build();
-        // 调用
-        try {
-            ModelApiResponse invokeModelApiResp = client.invokeModelApi(chatCompletionRequest);
-            return invokeModelApiResp.getData()
-                                     .getChoices()
-                                     .get(0)
-                                     .getMessage()
-                                     .getContent()
-                                     .toString();
-        } catch (Exception e) {
-            log.error("AI 生成失败", e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, e.getMessage());
+        return doRequest(messages, stream, temperature, AiUseCase.GENERATION, null);
+    }
+
+    /**
+     * 执行对话请求的方法。(通用 指定调用场景)
+     *
+     * @param messages    包含聊天消息的列表，每条消息作为模型的输入。
+     * @param stream      保留参数，同步调用总是等待完整输出；流式输出请使用 doStreamRequest。
+     * @param temperature 控制生成内容的随机性，值越高越随机，越低越倾向于确定性。
+     * @param useCase     调用场景，决定使用的并发配额与限流。
+     * @param appId       应用 id，用于按应用统计用量，可为 null。
+     * @return 模型返回的聊天内容字符串。
+     */
+    public String doRequest(List<ChatMessage> messages,
+                            Boolean stream,
+                            Float temperature,
+                            AiUseCase useCase,
+                            Long appId) {
+        long start = System.nanoTime();
+        long timeout = aiResilienceConfig.callTimeoutOf(useCase);
+        // 获取调用许可，排队已满或超时时拒绝
+        try (AiBulkhead.Permit ignored = aiBulkhead.acquire(useCase)) {
+            // 调用（超时、重试与熔断保护）
+            LlmResponse response = aiCallGuard.call(timeout, () -> client.chat(messages, temperature, timeout));
+            aiMetrics.recordSuccess(useCase, appId, start, response);
+            return response.getContent();
+        } catch (RuntimeException e) {
+            aiMetrics.recordError(useCase, appId, start, e);
+            throw e;
         }
     }
 
@@ -0,0 +1,212 @@
+package com.wolfhouse.answerme.ai;
+
+import com.wolfhouse.answerme.ai.llm.LlmResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 调用指标
+ * <p>
+ * 按调用场景（useCase）与应用（app）记录请求耗时、首个分片耗时、输入输出 token 数与错误数，
+ * 可通过 /actuator/metrics 与 /actuator/aiusage 查看。
+ * 指标按（调用场景, 应用）缓存，流式分片等高频记录不再重复构建与注册指标。
+ *
+ * @author Rylin Wolf
+ */
+@Component
+public class AiMetrics {
+    static final String REQUEST = "answerme.ai.request";
+    static final String TIME_TO_FIRST_TOKEN = "answerme.ai.ttft";
+    static final String TOKENS = "answerme.ai.tokens";
+    static final String ERRORS = "answerme.ai.errors";
+
+    static final String TAG_USE_CASE = "useCase";
+    static final String TAG_APP = "app";
+    static final String TAG_OUTCOME = "outcome";
+    static final String TAG_TYPE = "type";
+
+    static final String TYPE_PROMPT = "prompt";
+    static final String TYPE_COMPLETION = "completion";
+
+    private static final String NO_APP = "none";
+
+    /** 未指定应用时的缓存键 */
+    private static final long NO_APP_ID = -1L;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /** 调用场景 -> 应用 id -> 指标，初始化后只读 */
+    private final Map<AiUseCase, Map<Long, Meters>> meters = new EnumMap<>(AiUseCase.class);
+
+    public AiMetrics() {
+        for (AiUseCase useCase : AiUseCase.values()) {
+            meters.put(useCase, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 记录成功的调用
+     *
+     * @param useCase   调用场景
+     * @param appId     应用 id，可为 null
+     * @param startNano 调用开始时间（System.nanoTime）
+     * @param response  模型输出，包含用量时记录 token 数
+     */
+    public void recordSuccess(AiUseCase useCase, Long appId, long startNano, LlmResponse response) {
+        Meters appMeters = meters(useCase, appId);
+        appMeters.requestTimer("success")
+                 .record(System.nanoTime() - startNano, TimeUnit.NANOSECONDS);
+        recordUsage(appMeters, response);
+    }
+
+    /**
+     * 记录失败的调用
+     *
+     * @param useCase   调用场景
+     * @param appId     应用 id，可为 null
+     * @param startNano 调用开始时间（System.nanoTime）
+     * @param error     异常
+     */
+    public void recordError(AiUseCase useCase, Long appId, long startNano, Throwable error) {
+        Meters appMeters = meters(useCase, appId);
+        appMeters.requestTimer("error")
+                 .record(System.nanoTime() - startNano, TimeUnit.NANOSECONDS);
+        appMeters.errorCounter(error.getClass()
+                                    .getSimpleName())
+                 .increment();
+    }
+
+    /**
+     * 记录被取消的流式调用（客户端断开）
+     *
+     * @param useCase   调用场景
+     * @param appId     应用 id，可为 null
+     * @param startNano 调用开始时间（System.nanoTime）
+     */
+    public void recordCancel(AiUseCase useCase, Long appId, long startNano) {
+        meters(useCase, appId).requestTimer("cancelled")
+                              .record(System.nanoTime() - startNano, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录流式调用首个分片耗时
+     *
+     * @param useCase   调用场景
+     * @param appId     应用 id，可为 null
+     * @param startNano 调用开始时间（System.nanoTime）
+     */
+    public void recordFirstToken(AiUseCase useCase, Long appId, long startNano) {
+        meters(useCase, appId).firstTokenTimer()
+                              .record(System.nanoTime() - startNano, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录流式分片中的用量（通常只在最后一个分片中）
+     *
+     * @param useCase 调用场景
+     * @param appId   应用 id，可为 null
+     * @param chunk   分片
+     */
+    public void recordUsage(AiUseCase useCase, Long appId, LlmResponse chunk) {
+        // 大多数分片不含用量，不必查找指标
+        if (chunk == null || chunk.getPromptTokens() == null && chunk.getCompletionTokens() == null) {
+            return;
+        }
+        recordUsage(meters(useCase, appId), chunk);
+    }
+
+    private void recordUsage(Meters appMeters, LlmResponse response) {
+        if (response == null) {
+            return;
+        }
+        if (response.getPromptTokens() != null) {
+            appMeters.tokenCounter(TYPE_PROMPT)
+                     .increment(response.getPromptTokens());
+        }
+        if (response.getCompletionTokens() != null) {
+            appMeters.tokenCounter(TYPE_COMPLETION)
+                     .increment(response.getCompletionTokens());
+        }
+    }
+
+    private Meters meters(AiUseCase useCase, Long appId) {
+        Map<Long, Meters> appMeters = meters.get(useCase);
+        Long key = appId == null ? NO_APP_ID : appId;
+        Meters result = appMeters.get(key);
+        if (result == null) {
+            result = appMeters.computeIfAbsent(key, k -> new Meters(tags(useCase, appId)));
+        }
+        return result;
+    }
+
+    private Tags tags(AiUseCase useCase, Long appId) {
+        return Tags.of(TAG_USE_CASE, useCase.getValue(),
+                       TAG_APP, appId == null ? NO_APP : String.valueOf(appId));
+    }
+
+    /**
+     * 一个（调用场景, 应用）下的指标，首次使用时注册
+     */
+    private final class Meters {
+        private final Tags tags;
+
+        private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>(4);
+
+        private final Map<String, Counter> tokenCounters = new ConcurrentHashMap<>(4);
+
+        private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>(4);
+
+        private volatile Timer firstTokenTimer;
+
+        private Meters(Tags tags) {
+            this.tags = tags;
+        }
+
+        private Timer requestTimer(String outcome) {
+            return requestTimers.computeIfAbsent(outcome, o -> Timer.builder(REQUEST)
+                                                                   .description("AI 调用耗时（含重试）")
+                                                                   .tags(tags)
+                                                                   .tag(TAG_OUTCOME, o)
+                                                                   .register(meterRegistry));
+        }
+
+        private Counter tokenCounter(String type) {
+            return tokenCounters.computeIfAbsent(type, t -> Counter.builder(TOKENS)
+                                                                   .description("AI 调用 token 数")
+                                                                   .tags(tags)
+                                                                   .tag(TAG_TYPE, t)
+                                                                   .register(meterRegistry));
+        }
+
+        private Counter errorCounter(String error) {
+            return errorCounters.computeIfAbsent(error, e -> Counter.builder(ERRORS)
+                                                                    .description("AI 调用失败次数")
+                                                                    .tags(tags)
+                                                                    .tag("error", e)
+                                                                    .register(meterRegistry));
+        }
+
+        private Timer firstTokenTimer() {
+            // 并发首次注册时得到同一个指标
+            Timer timer = firstTokenTimer;
+            if (timer == null) {
+                timer = Timer.builder(TIME_TO_FIRST_TOKEN)
+                             .description("AI 流式调用首个分片耗时")
+                             .tags(tags)
+                             .register(meterRegistry);
+                firstTokenTimer = timer;
+            }
+            return timer;
+        }
+    }
+}
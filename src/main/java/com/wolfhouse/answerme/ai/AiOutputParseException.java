@@ -0,0 +1,58 @@
+package com.wolfhouse.answerme.ai;
+
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+
+/**
+ * AI 输出解析失败
+ * <p>
+ * 调用方可据此重新调用模型；未处理时按系统错误返回
+ *
+ * @author Rylin Wolf
+ */
+public class AiOutputParseException extends BusinessException {
+    /**
+     * 失败原因
+     */
+    private final Reason reason;
+
+    /**
+     * 出错位置（在模型输出中的字符偏移），未知时为 -1
+     */
+    private final long offset;
+
+    /**
+     * 出错位置附近的内容
+     */
+    private final String snippet;
+
+    public AiOutputParseException(Reason reason, long offset, String snippet, String detail) {
+        super(ErrorCode.SYSTEM_ERROR, "AI 输出格式错误: " + detail);
+        this.reason = reason;
+        this.offset = offset;
+        this.snippet = snippet;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public enum Reason {
+        /** 输出中没有 JSON */
+        NOT_FOUND,
+        /** 输出在 JSON 结束前中断 */
+        TRUNCATED,
+        /** JSON 语法错误 */
+        MALFORMED,
+        /** JSON 与目标类型不匹配 */
+        MISMATCH
+    }
+}
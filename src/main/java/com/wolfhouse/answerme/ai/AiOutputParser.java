@@ -0,0 +1,130 @@
+package com.wolfhouse.answerme.ai;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * AI 输出解析
+ * <p>
+ * 从模型输出中第一个 '{'（或 '['）开始，由 Jackson 直接读取一个完整的 JSON 值并绑定到目标类型，
+ * 不截取子串；值结束后的说明文字（即使含括号）被忽略。若该位置不是 JSON（说明文字中的括号），
+ * 依次尝试后续位置。解析失败时抛出 {@link AiOutputParseException}，包含原因与出错位置。
+ *
+ * @author Rylin Wolf
+ */
+@Component
+public class AiOutputParser {
+    /** 最多尝试的起始位置数 */
+    private static final int MAX_CANDIDATES = 3;
+
+    /** 错误信息中附带的上下文长度 */
+    private static final int SNIPPET_RADIUS = 30;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    /**
+     * 解析 JSON 对象
+     *
+     * @param output 模型输出
+     * @param clazz  目标类型
+     * @param <T>    目标类型
+     * @return 解析结果
+     */
+    public <T> T parseObject(String output, Class<T> clazz) {
+        return parse(output, '{', objectMapper.constructType(clazz));
+    }
+
+    /**
+     * 解析 JSON 数组
+     *
+     * @param output 模型输出
+     * @param clazz  元素类型
+     * @param <T>    元素类型
+     * @return 解析结果
+     */
+    public <T> List<T> parseList(String output, Class<T> clazz) {
+        return parse(output, '[', objectMapper.getTypeFactory()
+                                              .constructCollectionType(List.class, clazz));
+    }
+
+    private <T> T parse(String output, char open, JavaType type) {
+        int start = output == null ? -1 : output.indexOf(open);
+        if (start < 0) {
+            throw new AiOutputParseException(AiOutputParseException.Reason.NOT_FOUND,
+                                             -1,
+                                             null,
+                                             "未找到 " + open);
+        }
+        ObjectReader reader = objectMapper.readerFor(type);
+        AiOutputParseException failure = null;
+        for (int attempt = 0; start >= 0 && attempt < MAX_CANDIDATES; attempt++) {
+            try (Reader in = new StringReader(output)) {
+                in.skip(start);
+                return reader.readValue(in);
+            } catch (JsonProcessingException e) {
+                AiOutputParseException current = toParseException(output, start, e);
+                if (failure == null) {
+                    failure = current;
+                }
+                // 只有语法错误可能是说明文字中的括号，中断或类型不匹配时不再尝试
+                if (current.getReason() != AiOutputParseException.Reason.MALFORMED) {
+                    break;
+                }
+            } catch (IOException e) {
+                // StringReader 不会出现 IO 异常
+                throw new IllegalStateException(e);
+            }
+            start = output.indexOf(open, start + 1);
+        }
+        throw failure;
+    }
+
+    private AiOutputParseException toParseException(String output, int start, JsonProcessingException e) {
+        // 绑定嵌套字段时的语法错误会被包装为 JsonMappingException，按其中的语法错误分类
+        JsonProcessingException syntaxError = syntaxError(e);
+        if (syntaxError != null) {
+            e = syntaxError;
+        }
+        JsonLocation location = e.getLocation();
+        long relativeOffset = location == null ? -1 : location.getCharOffset();
+        AiOutputParseException.Reason reason;
+        if (syntaxError == null) {
+            reason = AiOutputParseException.Reason.MISMATCH;
+        } else if (syntaxError instanceof JsonEOFException || relativeOffset >= output.length() - start) {
+            // 部分输入结束错误（如对象字段之间）不是 JsonEOFException，按出错位置判断
+            reason = AiOutputParseException.Reason.TRUNCATED;
+        } else {
+            reason = AiOutputParseException.Reason.MALFORMED;
+        }
+        long offset = relativeOffset < 0 ? -1 : start + relativeOffset;
+        String snippet = null;
+        if (offset >= 0) {
+            int from = (int) Math.max(0, offset - SNIPPET_RADIUS);
+            int to = (int) Math.min(output.length(), offset + SNIPPET_RADIUS);
+            snippet = output.substring(from, to);
+        }
+        return new AiOutputParseException(reason, offset, snippet, e.getOriginalMessage());
+    }
+
+    private JsonProcessingException syntaxError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonParseException) {
+                return (JsonProcessingException) cause;
+            }
+        }
+        return null;
+    }
+}
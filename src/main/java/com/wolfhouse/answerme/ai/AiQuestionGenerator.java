@@ -0,0 +1,290 @@
+package com.wolfhouse.answerme.ai;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
+import com.wolfhouse.answerme.model.entity.App;
+import com.wolfhouse.answerme.model.enums.AppTypeEnum;
+import com.wolfhouse.answerme.utils.JsonObjectSplitter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * AI 生成题目
+ * <p>
+ * 题目数超过 chunkSize 时拆分为多批并行生成（单个请求同时进行的批次数有上限），
+ * 每批附带批次说明与已生成的题目标题作为去重提示。每批独立校验，输出不完整或格式错误时只重试该批，
+ * 最后按批次顺序合并。耗时取决于单批题目数，而不是总题目数。
+ * 某批调用因服务繁忙被拒绝时等待后只重试该批，已完成的批次不受影响。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class AiQuestionGenerator {
+    /** 去重提示中最多附带的已生成题目数 */
+    private static final int MAX_AVOID_TITLES = 50;
+
+    @Resource
+    private AiManager aiManager;
+
+    @Resource
+    private Prompts prompts;
+
+    @Resource
+    private AiOutputParser aiOutputParser;
+
+    @Resource
+    private AiGenerationConfig aiGenerationConfig;
+
+    @Resource
+    private ThreadPoolTaskExecutor aiGenerationTaskExecutor;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Scheduler scheduler;
+
+    private Counter chunkRetryCounter;
+
+    private Counter chunkBusyRetryCounter;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Schedulers.from(aiGenerationTaskExecutor);
+        chunkRetryCounter = Counter.builder("answerme.ai.generation.chunk.retries")
+                                   .description("AI 生成题目单批输出无效而重试的次数")
+                                   .register(meterRegistry);
+        chunkBusyRetryCounter = Counter.builder("answerme.ai.generation.chunk.busy.retries")
+                                       .description("AI 生成题目单批调用因服务繁忙被拒绝而重试的次数")
+                                       .register(meterRegistry);
+    }
+
+    /**
+     * 生成题目
+     *
+     * @param app            应用
+     * @param questionNumber 题目数
+     * @param optionNumber   选项数
+     * @return 题目列表
+     */
+    public List<QuestionContentDto> generate(App app, int questionNumber, int optionNumber) {
+        validQuestionNumber(questionNumber);
+        List<Chunk> chunks = generateChunks(app, questionNumber, optionNumber).toList()
+                                                                             .blockingGet();
+        chunks.sort(Comparator.comparingInt(chunk -> chunk.index));
+        List<QuestionContentDto> questions = new ArrayList<>(questionNumber);
+        for (Chunk chunk : chunks) {
+            questions.addAll(chunk.questions);
+        }
+        return questions;
+    }
+
+    /**
+     * 流式生成题目，每个元素为一道题目的 JSON
+     * <p>
+     * 只有一批时按模型输出分片逐题返回；多批时每批完成后立即返回该批题目
+     *
+     * @param app            应用
+     * @param questionNumber 题目数
+     * @param optionNumber   选项数
+     * @return 题目 JSON 流
+     */
+    public Flowable<String> stream(App app, int questionNumber, int optionNumber) {
+        validQuestionNumber(questionNumber);
+        if (questionNumber > aiGenerationConfig.getChunkSize()) {
+            return generateChunks(app, questionNumber, optionNumber)
+                .concatMapIterable(chunk -> chunk.questions)
+                .map(JSONUtil::toJsonStr);
+        }
+        JsonObjectSplitter splitter = new JsonObjectSplitter();
+        return aiManager.doStreamRequest(prompts.systemQuestionPrompt(),
+                                         userInput(app, questionNumber, optionNumber, 0, 1, null),
+                                         null,
+                                         AiUseCase.GENERATION_SSE,
+                                         app.getId())
+                        .concatMapIterable(splitter::feed);
+    }
+
+    /**
+     * 校验题目数，超过上限的请求会拆出过多批次长时间占用生成线程（控制器已校验，此处兜底）
+     */
+    private void validQuestionNumber(int questionNumber) {
+        ThrowUtils.throwIf(questionNumber <= 0 || questionNumber > aiGenerationConfig.getMaxQuestionNumber(),
+                           ErrorCode.PARAMS_ERROR,
+                           "题目数须在 1 到 " + aiGenerationConfig.getMaxQuestionNumber() + " 之间");
+    }
+
+    /**
+     * 拆分并行生成，按完成顺序输出各批
+     */
+    private Flowable<Chunk> generateChunks(App app, int questionNumber, int optionNumber) {
+        int chunkSize = Math.max(1, aiGenerationConfig.getChunkSize());
+        int chunkCount = Math.max(1, (questionNumber + chunkSize - 1) / chunkSize);
+        // 已生成的题目标题，后开始或重试的批次据此去重
+        Queue<String> titles = new ConcurrentLinkedQueue<>();
+        return Flowable.range(0, chunkCount)
+                       .flatMap(index -> {
+                           int count = Math.min(chunkSize, questionNumber - index * chunkSize);
+                           return Flowable.fromCallable(() -> generateChunk(app,
+                                                                            index,
+                                                                            chunkCount,
+                                                                            count,
+                                                                            optionNumber,
+                                                                            titles))
+                                          .subscribeOn(scheduler);
+                       }, Math.max(1, aiGenerationConfig.getMaxParallelChunks()));
+    }
+
+    private Chunk generateChunk(App app,
+                                int index,
+                                int chunkCount,
+                                int count,
+                                int optionNumber,
+                                Queue<String> titles) {
+        for (int attempt = 0; ; attempt++) {
+            String userMessage = userInput(app, count, optionNumber, index, chunkCount, avoidTitles(titles));
+            // 调用失败（限流、超时等）已在调用层处理，此处重试服务繁忙与无效输出
+            String result = requestChunk(app, userMessage, index, chunkCount);
+            List<QuestionContentDto> questions = validate(result, count);
+            if (questions != null) {
+                for (QuestionContentDto question : questions) {
+                    titles.add(question.getTitle());
+                }
+                return new Chunk(index, questions);
+            }
+            if (attempt >= aiGenerationConfig.getMaxChunkRetries()) {
+                log.error("AI 生成题目输出无效，appId: {}, 批次: {}/{}", app.getId(), index + 1, chunkCount);
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成题目失败，请稍后重试");
+            }
+            log.warn("AI 生成题目输出无效，重试第 {} 次，appId: {}, 批次: {}/{}",
+                     attempt + 1,
+                     app.getId(),
+                     index + 1,
+                     chunkCount);
+            chunkRetryCounter.increment();
+        }
+    }
+
+    /**
+     * 调用模型生成一批，并发许可排队已满或等待超时时等待后重试
+     */
+    private String requestChunk(App app, String userMessage, int index, int chunkCount) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return aiManager.doSyncRequest(prompts.systemQuestionPrompt(),
+                                               userMessage,
+                                               null,
+                                               AiUseCase.GENERATION,
+                                               app.getId());
+            } catch (BusinessException e) {
+                if (e.getCode() != ErrorCode.OPERATION_ERROR.getCode() ||
+                    attempt >= aiGenerationConfig.getMaxBusyRetries()) {
+                    throw e;
+                }
+                log.warn("AI 生成题目服务繁忙，重试第 {} 次，appId: {}, 批次: {}/{}",
+                         attempt + 1,
+                         app.getId(),
+                         index + 1,
+                         chunkCount);
+                chunkBusyRetryCounter.increment();
+                sleep(aiGenerationConfig.getBusyRetryDelay() * (attempt + 1));
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 生成题目被中断");
+        }
+    }
+
+    /**
+     * 校验一批输出，题目数不足或题目不完整时返回 null；多出的题目被丢弃
+     */
+    private List<QuestionContentDto> validate(String result, int count) {
+        List<QuestionContentDto> questions;
+        try {
+            questions = aiOutputParser.parseList(result, QuestionContentDto.class);
+        } catch (AiOutputParseException e) {
+            log.warn("AI 生成题目输出解析失败，原因: {}, 位置: {}, 附近内容: {}",
+                     e.getReason(),
+                     e.getOffset(),
+                     e.getSnippet());
+            return null;
+        }
+        if (questions == null || questions.size() < count) {
+            return null;
+        }
+        questions = questions.subList(0, count);
+        for (QuestionContentDto question : questions) {
+            if (question == null || StrUtil.isBlank(question.getTitle()) ||
+                question.getOptions() == null || question.getOptions()
+                                                         .isEmpty()) {
+                return null;
+            }
+        }
+        return new ArrayList<>(questions);
+    }
+
+    private List<String> avoidTitles(Queue<String> titles) {
+        List<String> avoid = new ArrayList<>();
+        for (String title : titles) {
+            if (avoid.size() >= MAX_AVOID_TITLES) {
+                break;
+            }
+            avoid.add(title);
+        }
+        return avoid;
+    }
+
+    private String userInput(App app,
+                             int questionNumber,
+                             int optionNumber,
+                             int chunkIndex,
+                             int chunkCount,
+                             List<String> avoidTitles) {
+        return prompts.userQuestionChunkInput(app.getAppName(),
+                                              app.getAppDesc(),
+                                              AppTypeEnum.getEnumByValue(app.getAppType()),
+                                              questionNumber,
+                                              optionNumber,
+                                              chunkIndex,
+                                              chunkCount,
+                                              avoidTitles);
+    }
+
+    /**
+     * 一批已校验的题目
+     */
+    private static final class Chunk {
+        private final int index;
+        private final List<QuestionContentDto> questions;
+
+        private Chunk(int index, List<QuestionContentDto> questions) {
+            this.index = index;
+            this.questions = questions;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.wolfhouse.answerme.ai;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI 调用超时、重试与熔断配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.ai-resilience")
+@Data
+public class AiResilienceConfig {
+    /**
+     * 单次调用超时时间（毫秒），流式调用为相邻两个分片之间的最长间隔
+     */
+    private long callTimeout = 30_000L;
+
+    /**
+     * 同步生成题目的单次调用超时时间（毫秒），需等待完整输出，远长于评分
+     */
+    private long generationCallTimeout = 180_000L;
+
+    /**
+     * 可重试错误的最大重试次数（不含首次调用）
+     */
+    private int maxRetries = 2;
+
+    /**
+     * 重试基础退避时间（毫秒），每次重试翻倍并加入随机抖动
+     */
+    private long retryBaseDelay = 200L;
+
+    /**
+     * 重试最大退避时间（毫秒）
+     */
+    private long retryMaxDelay = 2_000L;
+
+    /**
+     * 熔断统计窗口内的调用数
+     */
+    private int circuitWindowSize = 20;
+
+    /**
+     * 窗口内至少有多少次调用才计算失败率
+     */
+    private int circuitMinimumCalls = 10;
+
+    /**
+     * 触发熔断的失败率（0 ~ 1）
+     */
+    private double circuitFailureRateThreshold = 0.5;
+
+    /**
+     * 熔断打开后持续时间（毫秒），到期后放行一次试探调用
+     */
+    private long circuitOpenDuration = 30_000L;
+
+    /**
+     * AI 评分失败时是否降级为按应用评分结果计算的规则结果
+     */
+    private boolean scoringFallbackEnabled = false;
+
+    /**
+     * 获取调用场景的单次调用超时时间
+     *
+     * @param useCase 调用场景
+     * @return 超时时间（毫秒）
+     */
+    public long callTimeoutOf(AiUseCase useCase) {
+        return useCase == AiUseCase.GENERATION ? generationCallTimeout : callTimeout;
+    }
+}
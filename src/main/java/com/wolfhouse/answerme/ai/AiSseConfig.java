@@ -0,0 +1,25 @@
+package com.wolfhouse.answerme.ai;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * AI 流式生成（SSE）会话配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.ai-sse")
+@Data
+public class AiSseConfig {
+    /**
+     * SSE 会话超时时间（毫秒），超时后结束会话并取消模型调用
+     */
+    private long timeout = 180_000L;
+
+    /**
+     * 每个用户同时进行的流式生成数上限
+     */
+    private int maxStreamsPerUser = 2;
+}
@@ -0,0 +1,178 @@
+package com.wolfhouse.answerme.ai;
+
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * AI 流式生成（SSE）会话管理
+ * <p>
+ * 会话有超时时间；客户端断开、超时或出错时取消上游模型调用，释放调用许可与线程。
+ * 分片在固定大小的线程池中推送，每个用户同时进行的流式生成数有上限。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class AiSseSessionRegistry {
+    private static final String REASON_COMPLETED = "completed";
+    private static final String REASON_TIMEOUT = "timeout";
+    private static final String REASON_ERROR = "error";
+
+    @Resource
+    private AiSseConfig aiSseConfig;
+
+    @Resource
+    private ThreadPoolTaskExecutor aiSseTaskExecutor;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /** 用户 id -> 进行中的会话数 */
+    private final Map<Long, AtomicInteger> userSessions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    private Scheduler scheduler;
+
+    private Counter rejectedCounter;
+
+    /** 结束原因 -> 结束的会话数 */
+    private Map<String, Counter> closedCounters;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Schedulers.from(aiSseTaskExecutor);
+        Gauge.builder("answerme.ai.sse.open", openSessions, AtomicInteger::get)
+             .description("进行中的 AI 流式生成会话数")
+             .register(meterRegistry);
+        rejectedCounter = Counter.builder("answerme.ai.sse.rejected")
+                                 .description("超过用户并发上限而被拒绝的 AI 流式生成数")
+                                 .register(meterRegistry);
+        closedCounters = Map.of(REASON_COMPLETED, closedCounter(REASON_COMPLETED),
+                                REASON_TIMEOUT, closedCounter(REASON_TIMEOUT),
+                                REASON_ERROR, closedCounter(REASON_ERROR));
+    }
+
+    private Counter closedCounter(String reason) {
+        return Counter.builder("answerme.ai.sse.closed")
+                      .description("结束的 AI 流式生成会话数")
+                      .tag("reason", reason)
+                      .register(meterRegistry);
+    }
+
+    /**
+     * 建立会话
+     * <p>
+     * 先占用用户名额再建立模型调用，名额不足时不会发起调用
+     *
+     * @param userId 用户 id
+     * @param source 建立要推送的事件流（每个元素作为一个 SSE 事件）
+     * @return SSE 对象
+     */
+    public SseEmitter open(Long userId, Supplier<Flowable<String>> source) {
+        reserve(userId);
+        Session session = new Session(userId);
+        Flowable<String> flowable;
+        try {
+            flowable = source.get();
+        } catch (RuntimeException e) {
+            session.close(REASON_ERROR);
+            throw e;
+        }
+        SseEmitter emitter = new SseEmitter(aiSseConfig.getTimeout());
+        emitter.onCompletion(() -> session.close(REASON_COMPLETED));
+        emitter.onTimeout(() -> {
+            session.close(REASON_TIMEOUT);
+            emitter.complete();
+        });
+        emitter.onError(e -> session.close(REASON_ERROR));
+
+        // 发送失败（客户端已断开）时取消上游并以错误结束
+        session.setDisposable(flowable.observeOn(scheduler)
+                                      .subscribe(emitter::send,
+                                                 e -> {
+                                                     log.error("AI 流式生成失败: {}", e.getMessage());
+                                                     emitter.completeWithError(e);
+                                                 },
+                                                 emitter::complete));
+        return emitter;
+    }
+
+    private void reserve(Long userId) {
+        boolean[] rejected = {false};
+        userSessions.compute(userId, (id, count) -> {
+            if (count == null) {
+                count = new AtomicInteger();
+            }
+            if (count.get() >= aiSseConfig.getMaxStreamsPerUser()) {
+                rejected[0] = true;
+            } else {
+                count.incrementAndGet();
+            }
+            return count;
+        });
+        if (rejected[0]) {
+            rejectedCounter.increment();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "同时进行的生成任务过多，请等待当前任务完成");
+        }
+        openSessions.incrementAndGet();
+    }
+
+    private void release(Long userId) {
+        openSessions.decrementAndGet();
+        userSessions.computeIfPresent(userId, (id, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    /**
+     * 一个进行中的会话，关闭操作只生效一次
+     */
+    private final class Session {
+        private final Long userId;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Disposable disposable;
+
+        private Session(Long userId) {
+            this.userId = userId;
+        }
+
+        private void setDisposable(Disposable disposable) {
+            this.disposable = disposable;
+            // 订阅前已关闭
+            if (closed.get()) {
+                disposable.dispose();
+            }
+        }
+
+        private void close(String reason) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            Disposable current = disposable;
+            if (current != null) {
+                current.dispose();
+            }
+            release(userId);
+            closedCounters.get(reason)
+                          .increment();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.wolfhouse.answerme.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 用量汇总端点（管理端口 /actuator/aiusage，只监听本机）
+ * <p>
+ * 按调用场景汇总所有应用的调用次数、耗时、token 数与错误数，以及评分结果缓存命中情况。
+ * 按应用的明细可通过 /actuator/metrics/{name}?tag=app:{appId} 查看。
+ *
+ * @author Rylin Wolf
+ */
+@Component
+@Endpoint(id = "aiusage")
+public class AiUsageEndpoint {
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Object> usage() {
+        Map<String, Object> usage = new LinkedHashMap<>();
+        for (AiUseCase useCase : AiUseCase.values()) {
+            usage.put(useCase.getValue(), useCaseUsage(useCase.getValue()));
+        }
+        Map<String, Double> cache = new LinkedHashMap<>();
+        for (Counter counter : meterRegistry.find("answerme.ai.cache.requests")
+                                            .counters()) {
+            String key = counter.getId()
+                                .getTag("level") + "." + counter.getId()
+                                                                .getTag("result");
+            cache.merge(key, counter.count(), Double::sum);
+        }
+        usage.put("cache", cache);
+        return usage;
+    }
+
+    private Map<String, Object> useCaseUsage(String useCase) {
+        long requests = 0;
+        long errors = 0;
+        double totalTime = 0;
+        for (Timer timer : meterRegistry.find(AiMetrics.REQUEST)
+                                        .tag(AiMetrics.TAG_USE_CASE, useCase)
+                                        .timers()) {
+            requests += timer.count();
+            totalTime += timer.totalTime(TimeUnit.MILLISECONDS);
+            if ("error".equals(timer.getId()
+                                    .getTag(AiMetrics.TAG_OUTCOME))) {
+                errors += timer.count();
+            }
+        }
+        double firstTokenCount = 0;
+        double firstTokenTime = 0;
+        for (Timer timer : meterRegistry.find(AiMetrics.TIME_TO_FIRST_TOKEN)
+                                        .tag(AiMetrics.TAG_USE_CASE, useCase)
+                                        .timers()) {
+            firstTokenCount += timer.count();
+            firstTokenTime += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        double promptTokens = 0;
+        double completionTokens = 0;
+        for (Counter counter : meterRegistry.find(AiMetrics.TOKENS)
+                                            .tag(AiMetrics.TAG_USE_CASE, useCase)
+                                            .counters()) {
+            if (AiMetrics.TYPE_PROMPT.equals(counter.getId()
+                                                    .getTag(AiMetrics.TAG_TYPE))) {
+                promptTokens += counter.count();
+            } else {
+                completionTokens += counter.count();
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", requests);
+        result.put("errors", errors);
+        result.put("meanLatencyMs", requests == 0 ? 0 : totalTime / requests);
+        result.put("meanTimeToFirstTokenMs", firstTokenCount == 0 ? 0 : firstTokenTime / firstTokenCount);
+        result.put("promptTokens", (long) promptTokens);
+        result.put("completionTokens", (long) completionTokens);
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.wolfhouse.answerme.ai;
+
+/**
+ * AI 调用场景，不同场景使用独立的并发配额与限流
+ *
+ * @author Rylin Wolf
+ */
+public enum AiUseCase {
+    /**
+     * 调用场景
+     */
+    SCORING("scoring", "AI 评分"),
+    GENERATION("generation", "AI 生成题目"),
+    GENERATION_SSE("generation_sse", "AI 流式生成题目");
+
+    private final String value;
+
+    private final String text;
+
+    AiUseCase(String value, String text) {
+        this.value = value;
+        this.text = text;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 共用并发配额与限流的场景，流式生成与生成题目共用配额
+     *
+     * @return 配额所属场景
+     */
+    public AiUseCase getQuotaUseCase() {
+        return this == GENERATION_SSE ? GENERATION : this;
+    }
+}
@@ -0,0 +1,25 @@
+package com.wolfhouse.answerme.ai;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Prompt 模板配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.prompt")
+@Data
+public class PromptConfig {
+    /**
+     * 是否热加载模板（开发环境使用）
+     */
+    private boolean hotReload = false;
+
+    /**
+     * 热加载检查间隔（毫秒）
+     */
+    private long reloadInterval = 2_000L;
+}
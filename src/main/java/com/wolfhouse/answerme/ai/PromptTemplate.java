@@ -0,0 +1,109 @@
+package com.wolfhouse.answerme.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的 Prompt 模板
+ * <p>
+ * 加载时将模板按 %s / %d 占位符切分为固定片段，渲染时只做字符串拼接，不再解析格式串。
+ * %% 视为字面量 %；模板中出现其他格式说明符时退回 {@link String#format}。
+ *
+ * @author Rylin Wolf
+ */
+public class PromptTemplate {
+    /** 原始模板 */
+    private final String template;
+
+    /** 占位符之间的固定片段，长度为占位符数 + 1 */
+    private final String[] segments;
+
+    /** 固定片段总长度 */
+    private final int fixedLength;
+
+    /** 是否退回 String.format */
+    private final boolean formatFallback;
+
+    private PromptTemplate(String template, String[] segments, boolean formatFallback) {
+        this.template = template;
+        this.segments = segments;
+        this.formatFallback = formatFallback;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.fixedLength = length;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param template 模板内容
+     * @return 模板
+     */
+    public static PromptTemplate compile(String template) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = template.length();
+        for (int i = 0; i < length; i++) {
+            char c = template.charAt(i);
+            if (c != '%') {
+                current.append(c);
+                continue;
+            }
+            char next = i + 1 < length ? template.charAt(i + 1) : 0;
+            if (next == '%') {
+                current.append('%');
+            } else if (next == 's' || next == 'd') {
+                segments.add(current.toString());
+                current.setLength(0);
+            } else {
+                // 其他格式说明符（宽度、精度等）不做预编译
+                return new PromptTemplate(template, new String[]{template}, true);
+            }
+            i++;
+        }
+        segments.add(current.toString());
+        return new PromptTemplate(template, segments.toArray(new String[0]), false);
+    }
+
+    /**
+     * 渲染模板，参数按顺序替换占位符
+     *
+     * @param args 参数
+     * @return 渲染结果
+     */
+    public String render(Object... args) {
+        if (formatFallback) {
+            return String.format(template, args);
+        }
+        int placeholders = segments.length - 1;
+        if (args.length < placeholders) {
+            throw new IllegalArgumentException(String.format("Prompt 参数不足，需要 %d 个，实际 %d 个",
+                                                             placeholders,
+                                                             args.length));
+        }
+        String[] values = new String[placeholders];
+        int length = fixedLength;
+        for (int i = 0; i < placeholders; i++) {
+            values[i] = String.valueOf(args[i]);
+            length += values[i].length();
+        }
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < placeholders; i++) {
+            builder.append(segments[i])
+                   .append(values[i]);
+        }
+        return builder.append(segments[placeholders])
+                      .toString();
+    }
+
+    /**
+     * 获取原始模板内容（系统 Prompt 等不需要渲染的模板直接使用）
+     *
+     * @return 模板内容
+     */
+    public String getTemplate() {
+        return template;
+    }
+}
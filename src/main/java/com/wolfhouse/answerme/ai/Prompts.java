@@ -1,63 +1,224 @@
 package com.wolfhouse.answerme.ai;
 
-import cn.hutool.core.io.file.FileReader;
 import cn.hutool.json.JSONUtil;
 import com.wolfhouse.answerme.model.dto.question.QuestionAnswerDto;
 import com.wolfhouse.answerme.model.enums.AppTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
 
-import java.net.URL;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
+ * Prompt 模板注册表
+ * <p>
+ * 启动时从 classpath 的 prompt/ 目录一次性加载并预编译全部模板（通过输入流读取，可在 jar 包内运行）。
+ * 开启 custom.prompt.hot-reload 后定时检查模板文件修改时间，变更时整体重新加载。
+ *
  * @author Rylin Wolf
  */
+@Slf4j
+@Component
 public class Prompts {
-    public static String userQuestionInput(String appName,
-                                           String appDesc,
-                                           AppTypeEnum appType,
-                                           Integer questionCount,
-                                           Integer optionCount) {
+    private static final String PROMPT_LOCATION = "classpath*:prompt/*.txt";
+
+    private static final String USER_QUESTION_INPUT = "user-question-input.txt";
+    private static final String USER_SCORING_INPUT = "user-scoring-input.txt";
+    private static final String SYSTEM_SCORING_PROMPT = "system-scoring-prompt.txt";
+    private static final String SYSTEM_QUESTION_PROMPT = "system-question-prompt.txt";
+    private static final String USER_SCORING_BATCH_INPUT = "user-scoring-batch-input.txt";
+    private static final String SYSTEM_SCORING_BATCH_SUFFIX = "system-scoring-batch-suffix.txt";
+    private static final String USER_QUESTION_CHUNK_HINT = "user-question-chunk-hint.txt";
+    private static final String USER_QUESTION_AVOID_HINT = "user-question-avoid-hint.txt";
+
+    /** 批量评分用户输入的默认模板（prompt/ 下没有对应文件时使用） */
+    private static final PromptTemplate DEFAULT_USER_SCORING_BATCH_INPUT = PromptTemplate.compile(
+        "%s\n【【【%s】】】\n以下为 %s 位用户的题目和回答列表，数组中每个元素为一位用户的答案：\n%s");
+
+    /** 批量评分系统 Prompt 的默认附加说明 */
+    private static final String DEFAULT_SYSTEM_SCORING_BATCH_SUFFIX =
+        "本次输入包含多位用户的答案，请对每位用户分别评价，按输入顺序返回一个 JSON 数组，" +
+        "数组中每个元素为一位用户的评价结果，格式与单个评价结果相同，数组长度必须与用户数一致，不要输出其他内容。";
+
+    /** 分批生成题目时附加的批次说明 */
+    private static final PromptTemplate DEFAULT_USER_QUESTION_CHUNK_HINT = PromptTemplate.compile(
+        "本次为第 %d 批题目（共 %d 批，各批同时独立生成），请侧重与其他批次不同的考察角度，避免与其他批次的题目重复。");
+
+    /** 重新生成题目时附加的去重说明 */
+    private static final PromptTemplate DEFAULT_USER_QUESTION_AVOID_HINT = PromptTemplate.compile(
+        "不要生成与以下题目重复或相近的题目：\n%s");
+
+    private static final PromptTemplate EMPTY = PromptTemplate.compile("");
+
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    @Resource
+    private PromptConfig promptConfig;
+
+    /** 文件名 -> 模板，重新加载时整体替换 */
+    private volatile Map<String, PromptTemplate> templates = Map.of();
+
+    /** 文件名 -> 最后修改时间，用于热加载 */
+    private volatile Map<String, Long> lastModified = Map.of();
+
+    @PostConstruct
+    public void init() {
+        load();
+    }
+
+    public String userQuestionInput(String appName,
+                                    String appDesc,
+                                    AppTypeEnum appType,
+                                    Integer questionCount,
+                                    Integer optionCount) {
         appType = appType == null ? AppTypeEnum.SCORE : appType;
-        return String.format(readPrompt("prompt/user-question-input.txt"),
-                             appName,
-                             appDesc,
-                             appType.getText(),
-                             questionCount,
-                             optionCount);
+        return getTemplate(USER_QUESTION_INPUT).render(appName,
+                                                       appDesc,
+                                                       appType.getText(),
+                                                       questionCount,
+                                                       optionCount);
+
+    }
+
+    public String userQuestionChunkInput(String appName,
+                                         String appDesc,
+                                         AppTypeEnum appType,
+                                         Integer questionCount,
+                                         Integer optionCount,
+                                         int chunkIndex,
+                                         int chunkCount,
+                                         List<String> avoidTitles) {
+        StringBuilder input = new StringBuilder(userQuestionInput(appName,
+                                                                  appDesc,
+                                                                  appType,
+                                                                  questionCount,
+                                                                  optionCount));
+        if (chunkCount > 1) {
+            input.append('\n')
+                 .append(templates.getOrDefault(USER_QUESTION_CHUNK_HINT, DEFAULT_USER_QUESTION_CHUNK_HINT)
+                                  .render(chunkIndex + 1, chunkCount));
+        }
+        if (avoidTitles != null && !avoidTitles.isEmpty()) {
+            input.append('\n')
+                 .append(templates.getOrDefault(USER_QUESTION_AVOID_HINT, DEFAULT_USER_QUESTION_AVOID_HINT)
+                                  .render(String.join("\n", avoidTitles)));
+        }
+        return input.toString();
+    }
 
+    public String userScoringInput(String appName,
+                                   String appDesc,
+                                   List<QuestionAnswerDto> answers) {
+        return getTemplate(USER_SCORING_INPUT).render(appName,
+                                                      appDesc,
+                                                      JSONUtil.toJsonStr(answers));
     }
 
-    public static String userScoringInput(String appName,
-                                          String appDesc,
-                                          List<QuestionAnswerDto> answers) {
-        return String.format(readPrompt("prompt/user-scoring-input.txt"),
-                             appName,
-                             appDesc,
-                             JSONUtil.toJsonStr(answers));
+    public String userScoringBatchInput(String appName,
+                                        String appDesc,
+                                        List<List<QuestionAnswerDto>> answersList) {
+        PromptTemplate template = templates.getOrDefault(USER_SCORING_BATCH_INPUT, DEFAULT_USER_SCORING_BATCH_INPUT);
+        return template.render(appName,
+                               appDesc,
+                               answersList.size(),
+                               JSONUtil.toJsonStr(answersList));
     }
 
-    public static String readPrompt(String promptPath) {
-        return readFile(promptPath);
+    public String systemScoringBatchPrompt() {
+        PromptTemplate suffix = templates.get(SYSTEM_SCORING_BATCH_SUFFIX);
+        return systemScoringPrompt() + "\n\n" +
+               (suffix == null ? DEFAULT_SYSTEM_SCORING_BATCH_SUFFIX : suffix.getTemplate());
     }
 
-    public static String systemScoringPrompt() {
-        return readFile("prompt/system-scoring-prompt.txt");
+    public String readPrompt(String promptName) {
+        return getTemplate(promptName).getTemplate();
     }
 
-    public static String systemQuestionPrompt() {
-        return readFile("prompt/system-question-prompt.txt");
+    public String systemScoringPrompt() {
+        return readPrompt(SYSTEM_SCORING_PROMPT);
+    }
+
+    public String systemQuestionPrompt() {
+        return readPrompt(SYSTEM_QUESTION_PROMPT);
+    }
+
+    /**
+     * 开发环境热加载：模板文件有增删或修改时重新加载
+     */
+    @Scheduled(fixedDelayString = "${custom.prompt.reload-interval:2000}")
+    public void reloadIfModified() {
+        if (!promptConfig.isHotReload()) {
+            return;
+        }
+        try {
+            if (!scanLastModified().equals(lastModified)) {
+                load();
+            }
+        } catch (IOException e) {
+            log.warn("Prompt 模板检查失败: {}", e.getMessage());
+        }
+    }
+
+    private PromptTemplate getTemplate(String name) {
+        PromptTemplate template = templates.get(name);
+        if (template == null) {
+            log.warn("Prompt 模板不存在: {}", name);
+            return EMPTY;
+        }
+        return template;
+    }
+
+    private synchronized void load() {
+        Map<String, PromptTemplate> loaded = new HashMap<>();
+        Map<String, Long> modified = new HashMap<>();
+        try {
+            for (org.springframework.core.io.Resource resource : resolver.getResources(PROMPT_LOCATION)) {
+                String name = resource.getFilename();
+                if (name == null) {
+                    continue;
+                }
+                try (InputStream in = resource.getInputStream()) {
+                    String content = StreamUtils.copyToString(in, StandardCharsets.UTF_8)
+                                                .strip();
+                    loaded.put(name, PromptTemplate.compile(content));
+                }
+                modified.put(name, lastModified(resource));
+            }
+        } catch (IOException e) {
+            // 首次加载失败时保留空表，热加载失败时保留旧模板
+            log.error("Prompt 模板加载失败", e);
+            return;
+        }
+        templates = Map.copyOf(loaded);
+        lastModified = Map.copyOf(modified);
+        log.info("Prompt 模板加载完成: {}", loaded.keySet());
+    }
+
+    private Map<String, Long> scanLastModified() throws IOException {
+        Map<String, Long> modified = new HashMap<>();
+        for (org.springframework.core.io.Resource resource : resolver.getResources(PROMPT_LOCATION)) {
+            if (resource.getFilename() != null) {
+                modified.put(resource.getFilename(), lastModified(resource));
+            }
+        }
+        return modified;
     }
 
-    private static String readFile(String filePath) {
-        URL url = Prompts.class.getClassLoader()
-                               .getResource(filePath);
-        if (url == null) {
-            return "";
+    private long lastModified(org.springframework.core.io.Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            // jar 包内等无法获取修改时间的资源不参与热加载
+            return 0L;
         }
-        FileReader reader = new FileReader(url.getFile());
-        return reader.readLines()
-                     .stream()
-                     .reduce("", (s1, s2) -> s1 + s2 + "\n")
-                     .strip();
     }
 }
@@ -0,0 +1,120 @@
+package com.wolfhouse.answerme.ai.llm;
+
+import com.wolfhouse.answerme.ai.AiCallException;
+import com.wolfhouse.answerme.ai.AiConfig;
+import com.zhipu.oapi.ClientV4;
+import com.zhipu.oapi.Constants;
+import com.zhipu.oapi.service.v4.model.ChatCompletionRequest;
+import com.zhipu.oapi.service.v4.model.ChatMessage;
+import com.zhipu.oapi.service.v4.model.ModelApiResponse;
+import com.zhipu.oapi.service.v4.model.ModelData;
+import com.zhipu.oapi.service.v4.model.Usage;
+import io.reactivex.Flowable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 智谱 GLM-4 客户端
+ * <p>
+ * HTTP 超时按调用的截止时间设置，超时后连接被关闭，调用线程随之结束。
+ * SDK 客户端按超时时间缓存，同步调用的整体超时与读超时均为截止时间，流式调用只限制读超时。
+ *
+ * @author Rylin Wolf
+ */
+@Component
+@ConditionalOnProperty(prefix = "custom.llm", name = "provider", havingValue = "glm", matchIfMissing = true)
+public class GlmLlmClient implements LlmClient {
+    /** 建立连接超时时间（毫秒） */
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+
+    @Resource
+    private AiConfig aiConfig;
+
+    /** "整体超时:读超时" -> SDK 客户端 */
+    private final Map<String, ClientV4> clients = new ConcurrentHashMap<>();
+
+    @Override
+    public LlmResponse chat(List<ChatMessage> messages, Float temperature, long timeout) {
+        long start = System.currentTimeMillis();
+        ModelApiResponse invokeModelApiResp = client(timeout, timeout).invokeModelApi(buildRequest(messages,
+                                                                                                    temperature,
+                                                                                                    Boolean.FALSE));
+        checkTimeout(invokeModelApiResp, start, timeout);
+        ModelData data = checkResponse(invokeModelApiResp).getData();
+        String content = data.getChoices()
+                             .get(0)
+                             .getMessage()
+                             .getContent()
+                             .toString();
+        return withUsage(content, data.getUsage());
+    }
+
+    @Override
+    public Flowable<LlmResponse> streamChat(List<ChatMessage> messages, Float temperature, long idleTimeout) {
+        long start = System.currentTimeMillis();
+        // 流式输出总时长不限，只限制相邻分片间隔
+        ModelApiResponse invokeModelApiResp = client(0, idleTimeout).invokeModelApi(buildRequest(messages,
+                                                                                                  temperature,
+                                                                                                  Boolean.TRUE));
+        checkTimeout(invokeModelApiResp, start, idleTimeout);
+        return checkResponse(invokeModelApiResp).getFlowable()
+                                                .map(modelData -> withUsage(modelData.getChoices()
+                                                                                     .get(0)
+                                                                                     .getDelta()
+                                                                                     .getContent(),
+                                                                            modelData.getUsage()));
+    }
+
+    private ClientV4 client(long requestTimeout, long readTimeout) {
+        return clients.computeIfAbsent(requestTimeout + ":" + readTimeout,
+                                       k -> new ClientV4.Builder(aiConfig.getApiKey())
+                                           .networkConfig((int) requestTimeout,
+                                                          CONNECT_TIMEOUT_MILLIS,
+                                                          (int) readTimeout,
+                                                          (int) readTimeout,
+                                                          TimeUnit.MILLISECONDS)
+                                           .build());
+    }
+
+    /**
+     * SDK 将网络异常转换为失败的返回，耗时达到超时时间的失败按超时处理，不重试
+     */
+    private void checkTimeout(ModelApiResponse response, long start, long timeout) {
+        if (!response.isSuccess() && System.currentTimeMillis() - start >= timeout) {
+            throw AiCallException.timeout();
+        }
+    }
+
+    private ChatCompletionRequest buildRequest(List<ChatMessage> messages, Float temperature, Boolean stream) {
+        return ChatCompletionRequest.builder()
+                                    .model(Constants.ModelChatGLM4)
+                                    .temperature(temperature)
+                                    .stream(stream)
+                                    .invokeMethod(Constants.invokeMethod)
+                                    .messages(messages)
+                                    .build();
+    }
+
+    /**
+     * 检查接口返回，失败时按返回码抛出异常，由调用保护决定是否重试
+     */
+    private ModelApiResponse checkResponse(ModelApiResponse response) {
+        if (!response.isSuccess()) {
+            throw new AiCallException(response.getCode(), response.getMsg());
+        }
+        return response;
+    }
+
+    private LlmResponse withUsage(String content, Usage usage) {
+        if (usage == null) {
+            return LlmResponse.of(content);
+        }
+        return new LlmResponse(content, usage.getPromptTokens(), usage.getCompletionTokens());
+    }
+}
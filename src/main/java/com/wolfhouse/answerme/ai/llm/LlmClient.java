@@ -0,0 +1,55 @@
+package com.wolfhouse.answerme.ai.llm;
+
+import com.zhipu.oapi.service.v4.model.ChatMessage;
+import io.reactivex.Flowable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 大模型客户端
+ * <p>
+ * 屏蔽具体的模型服务商，{@link com.wolfhouse.answerme.ai.AiManager} 只通过本接口调用模型。
+ * 实现类由 custom.llm.provider 选择。
+ *
+ * @author Rylin Wolf
+ */
+public interface LlmClient {
+    /**
+     * 同步对话
+     *
+     * @param messages    消息列表
+     * @param temperature 温度，null 时使用模型默认值
+     * @param timeout     超时时间（毫秒），超时后结束调用并抛出 {@link com.wolfhouse.answerme.ai.AiCallException#timeout()}
+     * @return 模型输出
+     */
+    LlmResponse chat(List<ChatMessage> messages, Float temperature, long timeout);
+
+    /**
+     * 流式对话
+     *
+     * @param messages    消息列表
+     * @param temperature 温度，null 时使用模型默认值
+     * @param idleTimeout 相邻两个分片的最长间隔（毫秒），超时后结束调用
+     * @return 输出分片，用量信息（如有）在最后一个分片中
+     */
+    Flowable<LlmResponse> streamChat(List<ChatMessage> messages, Float temperature, long idleTimeout);
+
+    /**
+     * 批量同步对话，默认逐个调用 {@link #chat}
+     * <p>
+     * 服务商提供批量接口时可覆盖本方法；任一组失败时整批失败。
+     *
+     * @param batch       多组消息列表，每组作为一次独立的对话
+     * @param temperature 温度，null 时使用模型默认值
+     * @param timeout     每组对话的超时时间（毫秒）
+     * @return 模型输出，与入参顺序一致
+     */
+    default List<LlmResponse> chatBatch(List<List<ChatMessage>> batch, Float temperature, long timeout) {
+        List<LlmResponse> responses = new ArrayList<>(batch.size());
+        for (List<ChatMessage> messages : batch) {
+            responses.add(chat(messages, temperature, timeout));
+        }
+        return responses;
+    }
+}
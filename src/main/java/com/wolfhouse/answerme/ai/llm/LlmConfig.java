@@ -0,0 +1,84 @@
+package com.wolfhouse.answerme.ai.llm;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 大模型客户端配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.llm")
+@Data
+public class LlmConfig {
+    /**
+     * 模型服务商：glm（智谱）、stub（本地桩，不访问网络）
+     */
+    private String provider = "glm";
+
+    /**
+     * 本地桩配置
+     */
+    private Stub stub = new Stub();
+
+    @Data
+    public static class Stub {
+        /**
+         * 首个分片前的延迟（毫秒）
+         */
+        private long latency = 200L;
+
+        /**
+         * 每秒输出的 token 数
+         */
+        private int tokensPerSecond = 50;
+
+        /**
+         * 每个 token 的字符数，用于估算用量与切分流式分片
+         */
+        private int charsPerToken = 2;
+
+        /**
+         * 按系统消息关键字匹配的输出，按配置顺序匹配第一个
+         */
+        private Map<String, String> responses = new LinkedHashMap<>();
+
+        /**
+         * 未匹配任何关键字时的输出
+         */
+        private String defaultResponse = "{\"resultName\":\"STUB\",\"resultDesc\":\"stub result\"}";
+
+        /**
+         * 调用失败的比例（0 ~ 1），用于验证重试、超时与熔断
+         */
+        private double failureRate = 0;
+
+        /**
+         * 失败方式
+         */
+        private FailureMode failureMode = FailureMode.RETRYABLE;
+    }
+
+    /**
+     * 本地桩注入的失败方式
+     */
+    public enum FailureMode {
+        /**
+         * 服务端错误（503），可重试
+         */
+        RETRYABLE,
+        /**
+         * 请求错误（400），不可重试
+         */
+        NON_RETRYABLE,
+        /**
+         * 直到超时都没有输出：同步调用在超时时间抛出超时，流式调用不再输出分片
+         */
+        TIMEOUT
+    }
+}
@@ -0,0 +1,34 @@
+package com.wolfhouse.answerme.ai.llm;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 大模型输出（同步调用的完整输出，或流式调用的一个分片）
+ *
+ * @author Rylin Wolf
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmResponse {
+    /**
+     * 输出内容
+     */
+    private String content;
+
+    /**
+     * 输入 token 数，未知时为 null
+     */
+    private Integer promptTokens;
+
+    /**
+     * 输出 token 数，未知时为 null
+     */
+    private Integer completionTokens;
+
+    public static LlmResponse of(String content) {
+        return new LlmResponse(content, null, null);
+    }
+}
@@ -0,0 +1,167 @@
+package com.wolfhouse.answerme.ai.llm;
+
+import com.wolfhouse.answerme.ai.AiCallException;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.zhipu.oapi.service.v4.model.ChatMessage;
+import com.zhipu.oapi.service.v4.model.ChatMessageRole;
+import io.reactivex.Flowable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地桩客户端，不访问网络
+ * <p>
+ * 按系统消息关键字返回固定输出，并按配置的首包延迟与 token 速率模拟耗时，
+ * 相同输入总是得到相同输出，用于压测与 CI 中单独衡量本服务自身的开销。
+ * 配置失败比例后按比例注入失败（可重试错误、不可重试错误或超时），用于验证重试、超时与熔断。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "custom.llm", name = "provider", havingValue = "stub")
+public class StubLlmClient implements LlmClient {
+    @Resource
+    private LlmConfig llmConfig;
+
+    private LlmConfig.Stub stub;
+
+    @PostConstruct
+    public void init() {
+        stub = llmConfig.getStub();
+        log.warn("使用本地桩大模型客户端，AI 输出为固定内容");
+    }
+
+    @Override
+    public LlmResponse chat(List<ChatMessage> messages, Float temperature, long timeout) {
+        String content = matchResponse(messages);
+        List<String> tokens = splitTokens(content);
+        long duration = stub.getLatency() + tokens.size() * tokenInterval();
+        LlmConfig.FailureMode failure = nextFailure();
+        if (failure == LlmConfig.FailureMode.TIMEOUT) {
+            // 直到超时都没有输出
+            duration = Long.MAX_VALUE;
+        } else if (failure != null) {
+            // 错误在首包延迟后返回
+            duration = Math.min(duration, stub.getLatency());
+        }
+        try {
+            // 与真实客户端一致，超过超时时间时结束调用
+            Thread.sleep(Math.min(duration, timeout));
+            if (duration > timeout) {
+                throw AiCallException.timeout();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 调用被中断");
+        }
+        if (failure != null) {
+            throw failureException(failure);
+        }
+        return new LlmResponse(content, promptTokens(messages), tokens.size());
+    }
+
+    @Override
+    public Flowable<LlmResponse> streamChat(List<ChatMessage> messages, Float temperature, long idleTimeout) {
+        List<String> tokens = splitTokens(matchResponse(messages));
+        int promptTokens = promptTokens(messages);
+        int last = tokens.size() - 1;
+        LlmConfig.FailureMode failure = nextFailure();
+        if (failure == LlmConfig.FailureMode.TIMEOUT) {
+            // 不再输出分片，由调用方的分片间隔超时结束
+            return Flowable.never();
+        }
+        if (failure != null) {
+            return Flowable.timer(stub.getLatency(), TimeUnit.MILLISECONDS)
+                           .flatMap(i -> Flowable.<LlmResponse>error(failureException(failure)));
+        }
+        return Flowable.intervalRange(0,
+                                      tokens.size(),
+                                      stub.getLatency(),
+                                      tokenInterval(),
+                                      TimeUnit.MILLISECONDS)
+                       .map(i -> {
+                           int index = i.intValue();
+                           // 用量信息随最后一个分片返回
+                           return index == last ?
+                                  new LlmResponse(tokens.get(index), promptTokens, tokens.size()) :
+                                  LlmResponse.of(tokens.get(index));
+                       });
+    }
+
+    /**
+     * 按失败比例决定本次调用是否失败
+     *
+     * @return 失败方式，不失败时返回 null
+     */
+    private LlmConfig.FailureMode nextFailure() {
+        double rate = stub.getFailureRate();
+        if (rate <= 0 || ThreadLocalRandom.current()
+                                          .nextDouble() >= rate) {
+            return null;
+        }
+        return stub.getFailureMode();
+    }
+
+    private AiCallException failureException(LlmConfig.FailureMode failure) {
+        if (failure == LlmConfig.FailureMode.NON_RETRYABLE) {
+            return new AiCallException(400, "stub: bad request");
+        }
+        if (failure == LlmConfig.FailureMode.TIMEOUT) {
+            return AiCallException.timeout();
+        }
+        return new AiCallException(503, "stub: service unavailable");
+    }
+
+    private String matchResponse(List<ChatMessage> messages) {
+        String systemMessage = messages.stream()
+                                       .filter(m -> ChatMessageRole.SYSTEM.value()
+                                                                          .equals(m.getRole()))
+                                       .map(m -> String.valueOf(m.getContent()))
+                                       .findFirst()
+                                       .orElse("");
+        for (Map.Entry<String, String> entry : stub.getResponses()
+                                                   .entrySet()) {
+            if (systemMessage.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return stub.getDefaultResponse();
+    }
+
+    private List<String> splitTokens(String content) {
+        int size = Math.max(1, stub.getCharsPerToken());
+        List<String> tokens = new ArrayList<>(content.length() / size + 1);
+        for (int i = 0; i < content.length(); i += size) {
+            tokens.add(content.substring(i, Math.min(content.length(), i + size)));
+        }
+        if (tokens.isEmpty()) {
+            tokens.add("");
+        }
+        return tokens;
+    }
+
+    private int promptTokens(List<ChatMessage> messages) {
+        int chars = 0;
+        for (ChatMessage message : messages) {
+            chars += String.valueOf(message.getContent())
+                           .length();
+        }
+        return chars / Math.max(1, stub.getCharsPerToken());
+    }
+
+    private long tokenInterval() {
+        return 1000L / Math.max(1, stub.getTokensPerSecond());
+    }
+}
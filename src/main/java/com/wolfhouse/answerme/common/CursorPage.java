@@ -0,0 +1,55 @@
+package com.wolfhouse.answerme.common;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ *
+ * @param <T>
+ * @author Rylin Wolf
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records = new ArrayList<>();
+
+    /**
+     * 下一页游标，没有下一页时为空
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    /**
+     * 总数（近似值），未请求时为空
+     */
+    private Long total;
+
+    /**
+     * 替换当前页数据（如转换为封装类），游标与总数不变
+     *
+     * @param records 当前页数据
+     * @param <R>     数据类型
+     * @return 新的分页结果
+     */
+    public <R> CursorPage<R> withRecords(List<R> records) {
+        CursorPage<R> page = new CursorPage<>();
+        page.setRecords(records);
+        page.setNextCursor(nextCursor);
+        page.setHasMore(hasMore);
+        page.setTotal(total);
+        return page;
+    }
+}
@@ -30,4 +30,14 @@ public class PageRequest {
      * 排序顺序（默认升序）
      */
     private String sortOrder = CommonConstant.SORT_ORDER_ASC;
+
+    /**
+     * 游标（上一页返回的 nextCursor），仅游标分页接口使用，为空时从第一页开始
+     */
+    private String cursor;
+
+    /**
+     * 游标分页时是否返回总数（短时间缓存的近似值）
+     */
+    private boolean withTotal = false;
 }
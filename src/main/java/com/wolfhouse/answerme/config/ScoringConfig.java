@@ -0,0 +1,91 @@
+package com.wolfhouse.answerme.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 评分配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.scoring")
+@Data
+public class ScoringConfig {
+    /**
+     * 是否异步评分：提交时先写入评分中的记录，由后台线程完成评分
+     */
+    private boolean async = false;
+
+    /**
+     * AI 评分类应用是否异步评分（在独立的 AI 评分线程池中执行，不占用请求线程）
+     */
+    private boolean aiAsync = false;
+
+    /**
+     * 评分结果 SSE 推送超时时间（毫秒）
+     */
+    private long resultSseTimeout = 60_000L;
+
+    /**
+     * 评分中的记录超过此时间（毫秒）未更新时视为评分任务已丢失（节点崩溃或重启），重新提交评分；
+     * 应大于异步评分队列的最长等待时间，否则仍在排队的记录会被重复评分
+     */
+    private long pendingRedispatchAfter = 300_000L;
+
+    /**
+     * 评分中的记录创建超过此时间（毫秒）仍未完成时不再重新提交，置为评分失败
+     */
+    private long pendingFailAfter = 1_800_000L;
+
+    /**
+     * 评分中记录的扫描间隔（毫秒）
+     */
+    private long pendingSweepInterval = 60_000L;
+
+    /**
+     * 每次扫描处理的评分中记录数
+     */
+    private int pendingSweepBatchSize = 200;
+
+    /**
+     * AI 评分结果本地缓存（一级）最大条目数
+     */
+    private long aiCacheLocalMaximumSize = 10_000L;
+
+    /**
+     * AI 评分结果本地缓存（一级）访问后过期时间（秒）
+     */
+    private long aiCacheLocalExpireSeconds = 300L;
+
+    /**
+     * 是否启用 AI 评分结果 Redis 缓存（二级），集群内共享
+     */
+    private boolean aiCacheRemoteEnabled = true;
+
+    /**
+     * AI 评分结果 Redis 缓存（二级）过期时间（秒）
+     */
+    private long aiCacheRemoteExpireSeconds = 86_400L;
+
+    /**
+     * 是否合并同一应用短时间内的 AI 评分请求，一次调用评价多份答案
+     */
+    private boolean aiBatchEnabled = false;
+
+    /**
+     * 每次合并的最大答案数
+     */
+    private int aiBatchMaxSize = 8;
+
+    /**
+     * 合并等待窗口（毫秒），首个请求到达后最多等待该时间
+     */
+    private long aiBatchWindow = 50L;
+
+    /**
+     * 合并窗口定时线程数，只负责把到期的批次交给发送线程池，不调用 AI
+     */
+    private int aiBatchThreads = 1;
+}
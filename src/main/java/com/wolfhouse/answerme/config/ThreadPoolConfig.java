@@ -0,0 +1,195 @@
+package com.wolfhouse.answerme.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 业务线程池配置
+ * <p>
+ * 线程池由容器调用 afterPropertiesSet 初始化，此处不再手动初始化，避免重复创建线程池
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.thread-pool")
+@Data
+public class ThreadPoolConfig {
+    /**
+     * 批量评分线程数，默认为 CPU 核数
+     */
+    private int scoringPoolSize = Runtime.getRuntime()
+                                         .availableProcessors();
+
+    /**
+     * 批量评分任务队列长度
+     */
+    private int scoringQueueCapacity = 256;
+
+    /**
+     * 异步评分线程数
+     */
+    private int asyncScoringPoolSize = Runtime.getRuntime()
+                                              .availableProcessors();
+
+    /**
+     * 异步评分任务队列长度
+     */
+    private int asyncScoringQueueCapacity = 1024;
+
+    /**
+     * 关闭时等待异步评分（含 AI 评分）队列执行完的最长时间（秒），超时仍未评分的记录由评分中记录扫描恢复
+     */
+    private int asyncScoringShutdownTimeout = 30;
+
+    /**
+     * AI 评分线程数（受限于模型接口并发，与 CPU 核数无关）
+     */
+    private int aiScoringPoolSize = 16;
+
+    /**
+     * AI 评分任务队列长度，队列满时拒绝新的提交
+     */
+    private int aiScoringQueueCapacity = 256;
+
+    /**
+     * AI 合并评分发送线程数，包括结果数量不一致时的逐个调用
+     */
+    private int aiScoringBatchPoolSize = 16;
+
+    /**
+     * AI 合并评分发送任务队列长度，队列满时拒绝并提示稍后重试
+     */
+    private int aiScoringBatchQueueCapacity = 64;
+
+    /**
+     * AI 接口调用线程数，调用在独立线程中执行以便超时中断（并发已由调用许可限制）
+     */
+    private int aiCallPoolSize = 32;
+
+    /**
+     * AI 流式生成（SSE）推送线程数
+     */
+    private int aiSsePoolSize = 8;
+
+    /**
+     * AI 分批生成题目线程数
+     */
+    private int aiGenerationPoolSize = 16;
+
+    /**
+     * 批量评分线程池
+     * <p>
+     * 队列满时由提交线程自行执行，对批量导入形成反压
+     */
+    @Bean
+    public ThreadPoolTaskExecutor scoringTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(scoringPoolSize);
+        executor.setMaxPoolSize(scoringPoolSize);
+        executor.setQueueCapacity(scoringQueueCapacity);
+        executor.setThreadNamePrefix("scoring-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * 异步评分线程池
+     * <p>
+     * 队列满时由提交线程同步完成评分；关闭时等待队列中的评分完成
+     */
+    @Bean
+    public ThreadPoolTaskExecutor asyncScoringTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncScoringPoolSize);
+        executor.setMaxPoolSize(asyncScoringPoolSize);
+        executor.setQueueCapacity(asyncScoringQueueCapacity);
+        executor.setThreadNamePrefix("async-scoring-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(asyncScoringShutdownTimeout);
+        return executor;
+    }
+
+    /**
+     * AI 评分线程池
+     * <p>
+     * AI 调用耗时较长，队列满时直接拒绝，由调用方提示稍后重试，避免请求线程被拖住；关闭时等待队列中的评分完成
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiScoringTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiScoringPoolSize);
+        executor.setMaxPoolSize(aiScoringPoolSize);
+        executor.setQueueCapacity(aiScoringQueueCapacity);
+        executor.setThreadNamePrefix("ai-scoring-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(asyncScoringShutdownTimeout);
+        return executor;
+    }
+
+    /**
+     * AI 合并评分发送线程池
+     * <p>
+     * 合并后的调用与逐个退回的调用都在此执行，定时线程不被 AI 调用阻塞；队列满时直接拒绝
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiScoringBatchTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiScoringBatchPoolSize);
+        executor.setMaxPoolSize(aiScoringBatchPoolSize);
+        executor.setQueueCapacity(aiScoringBatchQueueCapacity);
+        executor.setThreadNamePrefix("ai-scoring-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * AI 接口调用线程池
+     * <p>
+     * 不排队，调用线程在超时后取消任务；线程耗尽时直接拒绝
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiCallTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiCallPoolSize);
+        executor.setMaxPoolSize(aiCallPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("ai-call-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * AI 流式生成（SSE）推送线程池
+     * <p>
+     * 切分模型分片并写出到客户端，线程数固定；分片任务很短，排队不设上限以免丢弃分片
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiSseTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiSsePoolSize);
+        executor.setMaxPoolSize(aiSsePoolSize);
+        executor.setThreadNamePrefix("ai-sse-");
+        return executor;
+    }
+
+    /**
+     * AI 分批生成题目线程池
+     * <p>
+     * 每批在独立线程中调用模型，单个请求的并行批次数另有上限，模型调用并发由调用许可限制
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiGenerationTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiGenerationPoolSize);
+        executor.setMaxPoolSize(aiGenerationPoolSize);
+        executor.setThreadNamePrefix("ai-generation-");
+        return executor;
+    }
+}
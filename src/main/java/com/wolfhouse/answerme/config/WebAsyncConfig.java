@@ -0,0 +1,94 @@
+package com.wolfhouse.answerme.config;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步接口配置
+ * <p>
+ * 开启后调用 AI 的接口在独立线程中执行并返回 CompletableFuture，等待模型期间不占用 Tomcat 线程。
+ * 运行在支持虚拟线程的 JDK（21+）上时可改用虚拟线程执行。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Configuration
+@ConfigurationProperties(prefix = "custom.web-async")
+@Data
+public class WebAsyncConfig implements WebMvcConfigurer {
+    /**
+     * 是否以异步方式执行调用 AI 的接口，关闭时在请求线程中同步执行
+     */
+    private boolean enabled = false;
+
+    /**
+     * 是否使用虚拟线程（JDK 不支持时退回平台线程池）
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 平台线程池线程数
+     */
+    private int poolSize = 128;
+
+    /**
+     * 平台线程池任务队列长度，队列满时拒绝新的请求
+     */
+    private int queueCapacity = 512;
+
+    /**
+     * 异步请求超时时间（毫秒）
+     */
+    private long timeout = 180_000L;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(timeout);
+    }
+
+    /**
+     * 异步接口执行器
+     * <p>
+     * 平台线程池由容器调用 afterPropertiesSet 初始化，并在容器关闭时关闭
+     */
+    @Bean
+    public Executor webAsyncExecutor() {
+        if (virtualThreads) {
+            Executor executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                log.info("异步接口使用虚拟线程执行");
+                return executor;
+            }
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("web-async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，以便在 JDK 11 上编译
+     */
+    private Executor newVirtualThreadExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                                             .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("当前 JDK 不支持虚拟线程，异步接口使用平台线程池执行");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.wolfhouse.answerme.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户答题记录延迟写入配置
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.write-behind")
+@Data
+public class WriteBehindConfig {
+    /**
+     * 是否启用：提交答案时先放入缓冲区并立即返回预分配的 id，由后台线程批量写入
+     */
+    private boolean enabled = false;
+
+    /**
+     * 是否使用 Redis Stream 作为缓冲区，进程崩溃后未写入的记录由本节点重启后或其他节点继续写入；
+     * 否则使用内存队列，崩溃时缓冲区中的记录丢失
+     */
+    private boolean durable = false;
+
+    /**
+     * 缓冲区容量，已满时提交阻塞最多 offerTimeout 毫秒后拒绝
+     */
+    private int capacity = 10_000;
+
+    /**
+     * 缓冲区已满时提交的最长等待时间（毫秒）
+     */
+    private long offerTimeout = 50L;
+
+    /**
+     * 批量写入间隔（毫秒）
+     */
+    private long flushInterval = 5L;
+
+    /**
+     * 每次写入的最大行数
+     */
+    private int maxBatchRows = 500;
+
+    /**
+     * 分表数，与 ShardingSphere 规则一致，用于把同一分表的记录合并为一条多行插入
+     */
+    private int shardCount = 2;
+
+    /**
+     * Redis Stream 中未确认的记录空闲超过此时间（毫秒）后由其他节点接管（原节点可能已崩溃）
+     */
+    private long claimIdleTime = 30_000L;
+}
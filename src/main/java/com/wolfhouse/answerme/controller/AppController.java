@@ -6,6 +6,7 @@ import com.wolfhouse.answerme.common.*;
 import com.wolfhouse.answerme.constant.UserConstant;
 import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.manager.CursorPageManager;
 import com.wolfhouse.answerme.model.dto.app.AppAddRequest;
 import com.wolfhouse.answerme.model.dto.app.AppEditRequest;
 import com.wolfhouse.answerme.model.dto.app.AppQueryRequest;
@@ -38,6 +39,9 @@ public class AppController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private CursorPageManager cursorPageManager;
+
     // region 增删改查
 
     /**
@@ -201,6 +205,59 @@ public class AppController {
         return ResultUtils.success(appService.getAppVOPage(appPage, request));
     }
 
+    /**
+     * 游标分页获取应用列表（封装类）
+     * <p>
+     * 按 id 倒序，默认不统计总数，翻页耗时与页码无关
+     *
+     * @param appQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<AppVO>> listAppVOByCursor(@RequestBody AppQueryRequest appQueryRequest,
+                                                             HttpServletRequest request) {
+        ThrowUtils.throwIf(appQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 限制爬虫
+        ThrowUtils.throwIf(appQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 只能查询过审的应用
+        appQueryRequest.setReviewStatus(ReviewStatusEnum.PASS.getValue());
+        // 查询数据库
+        CursorPage<App> appPage = cursorPageManager.page(appService,
+                                                         appQueryRequest,
+                                                         appService::getQueryWrapper,
+                                                         App::getId);
+        // 获取封装类
+        Page<AppVO> appVOPage = appService.getAppVOPage(new Page<App>().setRecords(appPage.getRecords()), request);
+        return ResultUtils.success(appPage.withRecords(appVOPage.getRecords()));
+    }
+
+    /**
+     * 游标分页获取当前登录用户的应用列表
+     *
+     * @param appQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/my/list/cursor/vo")
+    public BaseResponse<CursorPage<AppVO>> listMyAppVOByCursor(@RequestBody AppQueryRequest appQueryRequest,
+                                                               HttpServletRequest request) {
+        ThrowUtils.throwIf(appQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 补充查询条件，只查询当前登录用户的数据
+        User loginUser = userService.getLoginUser(request);
+        appQueryRequest.setUserId(loginUser.getId());
+        // 限制爬虫
+        ThrowUtils.throwIf(appQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<App> appPage = cursorPageManager.page(appService,
+                                                         appQueryRequest,
+                                                         appService::getQueryWrapper,
+                                                         App::getId);
+        // 获取封装类
+        Page<AppVO> appVOPage = appService.getAppVOPage(new Page<App>().setRecords(appPage.getRecords()), request);
+        return ResultUtils.success(appPage.withRecords(appVOPage.getRecords()));
+    }
+
     /**
      * 编辑应用（给用户使用）
      *
@@ -4,12 +4,14 @@ import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.wolfhouse.answerme.annotation.AuthCheck;
 import com.wolfhouse.answerme.common.BaseResponse;
+import com.wolfhouse.answerme.common.CursorPage;
 import com.wolfhouse.answerme.common.DeleteRequest;
 import com.wolfhouse.answerme.common.ErrorCode;
 import com.wolfhouse.answerme.common.ResultUtils;
 import com.wolfhouse.answerme.constant.UserConstant;
 import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.manager.CursorPageManager;
 import com.wolfhouse.answerme.model.dto.post.PostAddRequest;
 import com.wolfhouse.answerme.model.dto.post.PostEditRequest;
 import com.wolfhouse.answerme.model.dto.post.PostQueryRequest;
@@ -43,6 +45,9 @@ public class PostController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private CursorPageManager cursorPageManager;
+
     // region 增删改查
 
     /**
@@ -205,6 +210,61 @@ public class PostController {
         return ResultUtils.success(postService.getPostVOPage(postPage, request));
     }
 
+    /**
+     * 游标分页获取帖子列表（封装类）
+     * <p>
+     * 按 id 倒序，默认不统计总数，翻页耗时与页码无关
+     *
+     * @param postQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<PostVO>> listPostVOByCursor(@RequestBody PostQueryRequest postQueryRequest,
+                                                               HttpServletRequest request) {
+        ThrowUtils.throwIf(postQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 限制爬虫
+        ThrowUtils.throwIf(postQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<Post> postPage = cursorPageManager.page(postService,
+                                                           postQueryRequest,
+                                                           postService::getQueryWrapper,
+                                                           Post::getId);
+        // 获取封装类
+        Page<PostVO> postVOPage = postService.getPostVOPage(
+            new Page<Post>().setRecords(postPage.getRecords()),
+            request);
+        return ResultUtils.success(postPage.withRecords(postVOPage.getRecords()));
+    }
+
+    /**
+     * 游标分页获取当前登录用户的帖子列表
+     *
+     * @param postQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/my/list/cursor/vo")
+    public BaseResponse<CursorPage<PostVO>> listMyPostVOByCursor(@RequestBody PostQueryRequest postQueryRequest,
+                                                                 HttpServletRequest request) {
+        ThrowUtils.throwIf(postQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 补充查询条件，只查询当前登录用户的数据
+        User loginUser = userService.getLoginUser(request);
+        postQueryRequest.setUserId(loginUser.getId());
+        // 限制爬虫
+        ThrowUtils.throwIf(postQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<Post> postPage = cursorPageManager.page(postService,
+                                                           postQueryRequest,
+                                                           postService::getQueryWrapper,
+                                                           Post::getId);
+        // 获取封装类
+        Page<PostVO> postVOPage = postService.getPostVOPage(
+            new Page<Post>().setRecords(postPage.getRecords()),
+            request);
+        return ResultUtils.success(postPage.withRecords(postVOPage.getRecords()));
+    }
+
     // endregion
     
     /**
@@ -1,43 +1,40 @@
 package com.wolfhouse.answerme.controller;
 
-import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.wolfhouse.answerme.ai.AiManager;
-import com.wolfhouse.answerme.ai.Prompts;
+import com.wolfhouse.answerme.ai.AiGenerationConfig;
+import com.wolfhouse.answerme.ai.AiQuestionGenerator;
+import com.wolfhouse.answerme.ai.AiSseSessionRegistry;
 import com.wolfhouse.answerme.ai.dto.AiGenerateQuestionRequest;
 import com.wolfhouse.answerme.annotation.AuthCheck;
 import com.wolfhouse.answerme.common.BaseResponse;
+import com.wolfhouse.answerme.common.CursorPage;
 import com.wolfhouse.answerme.common.DeleteRequest;
 import com.wolfhouse.answerme.common.ErrorCode;
 import com.wolfhouse.answerme.common.ResultUtils;
 import com.wolfhouse.answerme.constant.UserConstant;
 import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.manager.AsyncRequestManager;
+import com.wolfhouse.answerme.manager.CursorPageManager;
 import com.wolfhouse.answerme.model.dto.question.*;
 import com.wolfhouse.answerme.model.entity.App;
 import com.wolfhouse.answerme.model.entity.Question;
 import com.wolfhouse.answerme.model.entity.User;
-import com.wolfhouse.answerme.model.enums.AppTypeEnum;
 import com.wolfhouse.answerme.model.vo.QuestionVO;
+import com.wolfhouse.answerme.scoring.model.ScoringModelCache;
 import com.wolfhouse.answerme.service.AppService;
 import com.wolfhouse.answerme.service.QuestionService;
 import com.wolfhouse.answerme.service.UserService;
-import com.wolfhouse.answerme.utils.AiJsonUtils;
-import com.zhipu.oapi.service.v4.model.ModelData;
-import io.reactivex.Flowable;
-import io.reactivex.schedulers.Schedulers;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 题目接口
@@ -52,10 +49,22 @@ public class QuestionController {
 
     @Resource
     private UserService userService;
+
+    @Resource
+    private CursorPageManager cursorPageManager;
+
+    @Resource
+    private ScoringModelCache scoringModelCache;
     @Resource
     private AppService appService;
-    @Autowired
-    private AiManager aiManager;
+    @Resource
+    private AiSseSessionRegistry aiSseSessionRegistry;
+    @Resource
+    private AiQuestionGenerator aiQuestionGenerator;
+    @Resource
+    private AsyncRequestManager asyncRequestManager;
+    @Resource
+    private AiGenerationConfig aiGenerationConfig;
 
 // region 增删改查
 
@@ -83,6 +92,8 @@ public class QuestionController {
         // 写入数据库
         boolean result = questionService.save(question);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 题目或评分结果变更，评分模型失效
+        scoringModelCache.invalidate(question.getAppId());
         // 返回新写入的数据 id
         long newQuestionId = question.getId();
         return ResultUtils.success(newQuestionId);
@@ -114,6 +125,7 @@ public class QuestionController {
         // 操作数据库
         boolean result = questionService.removeById(id);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        scoringModelCache.invalidate(oldQuestion.getAppId());
         return ResultUtils.success(true);
     }
 
@@ -144,6 +156,7 @@ public class QuestionController {
         // 操作数据库
         boolean result = questionService.updateById(question);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        scoringModelCache.invalidate(oldQuestion.getAppId());
         return ResultUtils.success(true);
     }
 
@@ -227,6 +240,63 @@ public class QuestionController {
         return ResultUtils.success(questionService.getQuestionVOPage(questionPage, request));
     }
 
+    /**
+     * 游标分页获取题目列表（封装类）
+     * <p>
+     * 按 id 倒序，默认不统计总数，翻页耗时与页码无关
+     *
+     * @param questionQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<QuestionVO>> listQuestionVOByCursor(
+        @RequestBody QuestionQueryRequest questionQueryRequest,
+        HttpServletRequest request) {
+        ThrowUtils.throwIf(questionQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 限制爬虫
+        ThrowUtils.throwIf(questionQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<Question> questionPage = cursorPageManager.page(questionService,
+                                                                   questionQueryRequest,
+                                                                   questionService::getQueryWrapper,
+                                                                   Question::getId);
+        // 获取封装类
+        Page<QuestionVO> questionVOPage = questionService.getQuestionVOPage(
+            new Page<Question>().setRecords(questionPage.getRecords()),
+            request);
+        return ResultUtils.success(questionPage.withRecords(questionVOPage.getRecords()));
+    }
+
+    /**
+     * 游标分页获取当前登录用户的题目列表
+     *
+     * @param questionQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/my/list/cursor/vo")
+    public BaseResponse<CursorPage<QuestionVO>> listMyQuestionVOByCursor(
+        @RequestBody QuestionQueryRequest questionQueryRequest,
+        HttpServletRequest request) {
+        ThrowUtils.throwIf(questionQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 补充查询条件，只查询当前登录用户的数据
+        User loginUser = userService.getLoginUser(request);
+        questionQueryRequest.setUserId(loginUser.getId());
+        // 限制爬虫
+        ThrowUtils.throwIf(questionQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<Question> questionPage = cursorPageManager.page(questionService,
+                                                                   questionQueryRequest,
+                                                                   questionService::getQueryWrapper,
+                                                                   Question::getId);
+        // 获取封装类
+        Page<QuestionVO> questionVOPage = questionService.getQuestionVOPage(
+            new Page<Question>().setRecords(questionPage.getRecords()),
+            request);
+        return ResultUtils.success(questionPage.withRecords(questionVOPage.getRecords()));
+    }
+
     /**
      * 编辑题目（给用户使用）
      *
@@ -262,6 +332,7 @@ public class QuestionController {
         // 操作数据库
         boolean result = questionService.updateById(question);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        scoringModelCache.invalidate(oldQuestion.getAppId());
         return ResultUtils.success(true);
     }
 
@@ -270,96 +341,43 @@ public class QuestionController {
     // region AI 生成题目功能
 
     @PostMapping("/ai_generate")
-    public BaseResponse<List<QuestionContentDto>> aiGenerateQuestion(@RequestBody AiGenerateQuestionRequest request) {
+    public CompletableFuture<BaseResponse<List<QuestionContentDto>>> aiGenerateQuestion(@RequestBody AiGenerateQuestionRequest request) {
         ThrowUtils.throwIf(request == null, ErrorCode.PARAMS_ERROR);
         // 获取参数
         Long appId = request.getAppId();
         int questionNumber = request.getQuestionNumber();
         int optionNumber = request.getOptionNumber();
+        int maxQuestionNumber = aiGenerationConfig.getMaxQuestionNumber();
+        ThrowUtils.throwIf(questionNumber <= 0 || questionNumber > maxQuestionNumber,
+                           ErrorCode.PARAMS_ERROR,
+                           "题目数须在 1 到 " + maxQuestionNumber + " 之间");
         // 获取应用信息
         App app = appService.getById(appId);
         ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR);
-        // 封装 Prompt
-        String userMessage = Prompts.userQuestionInput(app.getAppName(),
-                                                       app.getAppDesc(),
-                                                       AppTypeEnum.getEnumByValue(app.getAppType()),
-                                                       questionNumber,
-                                                       optionNumber);
-        // Ai 生成
-        String result = aiManager.doSyncRequest(Prompts.systemQuestionPrompt(), userMessage, null);
-        List<QuestionContentDto> dtoList = AiJsonUtils.toList(result, QuestionContentDto.class);
-        return ResultUtils.success(dtoList);
+        // Ai 生成，题目较多时分批并行生成（开启异步时不占用请求线程）
+        return asyncRequestManager.supply(() -> ResultUtils.success(aiQuestionGenerator.generate(app,
+                                                                                                 questionNumber,
+                                                                                                 optionNumber)));
     }
 
     @GetMapping("/ai_generate/sse")
-    public SseEmitter aiGenerateQuestionSse(AiGenerateQuestionRequest request) {
+    public SseEmitter aiGenerateQuestionSse(AiGenerateQuestionRequest request, HttpServletRequest httpRequest) {
         ThrowUtils.throwIf(request == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(httpRequest);
         // 获取参数
         Long appId = request.getAppId();
         int questionNumber = request.getQuestionNumber();
         int optionNumber = request.getOptionNumber();
+        int maxQuestionNumber = aiGenerationConfig.getMaxQuestionNumber();
+        ThrowUtils.throwIf(questionNumber <= 0 || questionNumber > maxQuestionNumber,
+                           ErrorCode.PARAMS_ERROR,
+                           "题目数须在 1 到 " + maxQuestionNumber + " 之间");
         // 获取应用信息
         App app = appService.getById(appId);
         ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR);
-        // 封装 Prompt
-        String userMessage = Prompts.userQuestionInput(app.getAppName(),
-                                                       app.getAppDesc(),
-                                                       AppTypeEnum.getEnumByValue(app.getAppType()),
-                                                       questionNumber,
-                                                       optionNumber);
-        // 建立 SSE 对象, 0L 永不超时
-        SseEmitter emitter = new SseEmitter(0L);
-        // Ai 生成
-        Flowable<ModelData> modelDataFlowable = aiManager.doStreamRequest(Prompts.systemQuestionPrompt(),
-                                                                          userMessage,
-                                                                          null);
-
-        // 左括号计数器，回归为 0 时表示左括号等于右括号，可以截取
-        AtomicInteger counter = new AtomicInteger(0);
-        // 拼接完整题目
-        StringBuilder stringBuilder = new StringBuilder();
-
-        modelDataFlowable
-            .observeOn(Schedulers.io())
-            .map(modelData -> modelData.getChoices()
-                                       .get(0)
-                                       .getDelta()
-                                       .getContent())
-            .map(msg -> msg.replaceAll("\\s", ""))
-            .filter(StrUtil::isNotBlank)
-            .flatMap(msg -> {
-                List<Character> charList = msg.chars()
-                                              .mapToObj(c -> (char) c)
-                                              .collect(Collectors.toList());
-                return Flowable.fromIterable(charList);
-            })
-            .doOnNext(c -> {
-                // 有内容需要拼接
-                // 如果是 '{'，计数器 + 1
-                if (c.equals('{')) {
-                    counter.incrementAndGet();
-                    stringBuilder.append(c);
-                    return;
-                }
-                if (counter.get() > 0) {
-                    stringBuilder.append(c);
-                }
-                if (c.equals('}')) {
-                    counter.decrementAndGet();
-                    if (counter.get() == 0) {
-                        // 有一道完整的题目，通过 SSE 返回
-                        emitter.send(stringBuilder.toString());
-                        // 重置
-                        stringBuilder.setLength(0);
-                    }
-                }
-
-            })
-            .doOnError(throwable -> log.error(throwable.getMessage()))
-            .doOnComplete(emitter::complete)
-            .subscribe();
-
-        return emitter;
+        // Ai 生成，每道题目完成后立即通过 SSE 返回
+        return aiSseSessionRegistry.open(loginUser.getId(),
+                                         () -> aiQuestionGenerator.stream(app, questionNumber, optionNumber));
     }
     // endregion
 
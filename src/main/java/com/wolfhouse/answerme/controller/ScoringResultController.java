@@ -4,12 +4,14 @@ import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.wolfhouse.answerme.annotation.AuthCheck;
 import com.wolfhouse.answerme.common.BaseResponse;
+import com.wolfhouse.answerme.common.CursorPage;
 import com.wolfhouse.answerme.common.DeleteRequest;
 import com.wolfhouse.answerme.common.ErrorCode;
 import com.wolfhouse.answerme.common.ResultUtils;
 import com.wolfhouse.answerme.constant.UserConstant;
 import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.manager.CursorPageManager;
 import com.wolfhouse.answerme.model.dto.scoringresult.ScoringResultAddRequest;
 import com.wolfhouse.answerme.model.dto.scoringresult.ScoringResultEditRequest;
 import com.wolfhouse.answerme.model.dto.scoringresult.ScoringResultQueryRequest;
@@ -17,6 +19,7 @@ import com.wolfhouse.answerme.model.dto.scoringresult.ScoringResultUpdateRequest
 import com.wolfhouse.answerme.model.entity.ScoringResult;
 import com.wolfhouse.answerme.model.entity.User;
 import com.wolfhouse.answerme.model.vo.ScoringResultVO;
+import com.wolfhouse.answerme.scoring.model.ScoringModelCache;
 import com.wolfhouse.answerme.service.ScoringResultService;
 import com.wolfhouse.answerme.service.UserService;
 import lombok.extern.slf4j.Slf4j;
@@ -41,6 +44,12 @@ public class ScoringResultController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private CursorPageManager cursorPageManager;
+
+    @Resource
+    private ScoringModelCache scoringModelCache;
+
 // region 增删改查
 
     /**
@@ -69,6 +78,8 @@ public class ScoringResultController {
         // 写入数据库
         boolean result = scoringResultService.save(scoringResult);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 题目或评分结果变更，评分模型失效
+        scoringModelCache.invalidate(scoringResult.getAppId());
         // 返回新写入的数据 id
         long newScoringResultId = scoringResult.getId();
         return ResultUtils.success(newScoringResultId);
@@ -100,6 +111,7 @@ public class ScoringResultController {
         // 操作数据库
         boolean result = scoringResultService.removeById(id);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        scoringModelCache.invalidate(oldScoringResult.getAppId());
         return ResultUtils.success(true);
     }
 
@@ -130,6 +142,7 @@ public class ScoringResultController {
         // 操作数据库
         boolean result = scoringResultService.updateById(scoringResult);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        scoringModelCache.invalidate(oldScoringResult.getAppId());
         return ResultUtils.success(true);
     }
 
@@ -222,6 +235,63 @@ public class ScoringResultController {
         return ResultUtils.success(scoringResultService.getScoringResultVOPage(scoringResultPage, request));
     }
 
+    /**
+     * 游标分页获取评分结果列表（封装类）
+     * <p>
+     * 按 id 倒序，默认不统计总数，翻页耗时与页码无关
+     *
+     * @param scoringResultQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<ScoringResultVO>> listScoringResultVOByCursor(
+        @RequestBody ScoringResultQueryRequest scoringResultQueryRequest,
+        HttpServletRequest request) {
+        ThrowUtils.throwIf(scoringResultQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 限制爬虫
+        ThrowUtils.throwIf(scoringResultQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<ScoringResult> scoringResultPage = cursorPageManager.page(scoringResultService,
+                                                                             scoringResultQueryRequest,
+                                                                             scoringResultService::getQueryWrapper,
+                                                                             ScoringResult::getId);
+        // 获取封装类
+        Page<ScoringResultVO> scoringResultVOPage = scoringResultService.getScoringResultVOPage(
+            new Page<ScoringResult>().setRecords(scoringResultPage.getRecords()),
+            request);
+        return ResultUtils.success(scoringResultPage.withRecords(scoringResultVOPage.getRecords()));
+    }
+
+    /**
+     * 游标分页获取当前登录用户的评分结果列表
+     *
+     * @param scoringResultQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/my/list/cursor/vo")
+    public BaseResponse<CursorPage<ScoringResultVO>> listMyScoringResultVOByCursor(
+        @RequestBody ScoringResultQueryRequest scoringResultQueryRequest,
+        HttpServletRequest request) {
+        ThrowUtils.throwIf(scoringResultQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 补充查询条件，只查询当前登录用户的数据
+        User loginUser = userService.getLoginUser(request);
+        scoringResultQueryRequest.setUserId(loginUser.getId());
+        // 限制爬虫
+        ThrowUtils.throwIf(scoringResultQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<ScoringResult> scoringResultPage = cursorPageManager.page(scoringResultService,
+                                                                             scoringResultQueryRequest,
+                                                                             scoringResultService::getQueryWrapper,
+                                                                             ScoringResult::getId);
+        // 获取封装类
+        Page<ScoringResultVO> scoringResultVOPage = scoringResultService.getScoringResultVOPage(
+            new Page<ScoringResult>().setRecords(scoringResultPage.getRecords()),
+            request);
+        return ResultUtils.success(scoringResultPage.withRecords(scoringResultVOPage.getRecords()));
+    }
+
     /**
      * 编辑评分结果（给用户使用）
      *
@@ -257,6 +327,7 @@ public class ScoringResultController {
         // 操作数据库
         boolean result = scoringResultService.updateById(scoringResult);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        scoringModelCache.invalidate(oldScoringResult.getAppId());
         return ResultUtils.success(true);
     }
 
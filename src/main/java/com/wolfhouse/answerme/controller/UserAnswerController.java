@@ -4,13 +4,17 @@ import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.wolfhouse.answerme.annotation.AuthCheck;
 import com.wolfhouse.answerme.common.BaseResponse;
+import com.wolfhouse.answerme.common.CursorPage;
 import com.wolfhouse.answerme.common.DeleteRequest;
 import com.wolfhouse.answerme.common.ErrorCode;
 import com.wolfhouse.answerme.common.ResultUtils;
 import com.wolfhouse.answerme.constant.UserConstant;
 import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.manager.AsyncRequestManager;
+import com.wolfhouse.answerme.manager.CursorPageManager;
 import com.wolfhouse.answerme.model.dto.useranswer.UserAnswerAddRequest;
+import com.wolfhouse.answerme.model.dto.useranswer.UserAnswerBatchAddRequest;
 import com.wolfhouse.answerme.model.dto.useranswer.UserAnswerEditRequest;
 import com.wolfhouse.answerme.model.dto.useranswer.UserAnswerQueryRequest;
 import com.wolfhouse.answerme.model.dto.useranswer.UserAnswerUpdateRequest;
@@ -18,8 +22,9 @@ import com.wolfhouse.answerme.model.entity.App;
 import com.wolfhouse.answerme.model.entity.User;
 import com.wolfhouse.answerme.model.entity.UserAnswer;
 import com.wolfhouse.answerme.model.enums.ReviewStatusEnum;
+import com.wolfhouse.answerme.model.enums.ScoringStrategyEnum;
 import com.wolfhouse.answerme.model.vo.UserAnswerVO;
-import com.wolfhouse.answerme.scoring.ScoringStrategyExecutor;
+import com.wolfhouse.answerme.scoring.ScoringResultNotifier;
 import com.wolfhouse.answerme.service.AppService;
 import com.wolfhouse.answerme.service.UserAnswerService;
 import com.wolfhouse.answerme.service.UserService;
@@ -27,10 +32,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 用户答案接口
@@ -39,6 +46,8 @@ import java.util.List;
 @RequestMapping("/userAnswer")
 @Slf4j
 public class UserAnswerController {
+    /** 单次批量导入的最大答题卡数 */
+    private static final int MAX_BATCH_SIZE = 5000;
 
     @Resource
     private UserAnswerService userAnswerService;
@@ -47,10 +56,17 @@ public class UserAnswerController {
     private UserService userService;
 
     @Resource
-    private ScoringStrategyExecutor scoringStrategyExecutor;
+    private CursorPageManager cursorPageManager;
+
+    @Resource
+    private ScoringResultNotifier scoringResultNotifier;
+
     @Autowired
     private AppService appService;
 
+    @Resource
+    private AsyncRequestManager asyncRequestManager;
+
 // region 增删改查
 
     /**
@@ -61,8 +77,8 @@ public class UserAnswerController {
      * @return
      */
     @PostMapping("/add")
-    public BaseResponse<Long> adduserAnswer(@RequestBody UserAnswerAddRequest userAnswerAddRequest,
-                                            HttpServletRequest request) {
+    public CompletableFuture<BaseResponse<Long>> adduserAnswer(@RequestBody UserAnswerAddRequest userAnswerAddRequest,
+                                                               HttpServletRequest request) {
         ThrowUtils.throwIf(userAnswerAddRequest == null, ErrorCode.PARAMS_ERROR);
         App app = appService.getById(userAnswerAddRequest.getAppId());
         // 判断 app 是否存在
@@ -75,29 +91,52 @@ public class UserAnswerController {
         UserAnswer userAnswer = new UserAnswer();
         BeanUtils.copyProperties(userAnswerAddRequest, userAnswer);
         List<String> choices = userAnswerAddRequest.getChoices();
-        userAnswer.setChoices(JSONUtil.toJsonStr(choices));
         // 数据校验
         userAnswerService.validuserAnswer(userAnswer, true);
-        //  填充默认值
         User loginUser = userService.getLoginUser(request);
-        userAnswer.setUserId(loginUser.getId());
-        userAnswer.setAppType(app.getAppType());
-        // 写入数据库
-        boolean result = userAnswerService.save(userAnswer);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
-        // 返回新写入的数据 id
-        long newUserAnswerId = userAnswer.getId();
-        // 调用评分模块
-        try {
-            UserAnswer newAnswer = scoringStrategyExecutor.doScore(choices, app);
-            newAnswer.setId(newUserAnswerId);
-            // 不更新 AppID，防止分表分片值更新
-            newAnswer.setAppId(null);
-            userAnswerService.updateById(newAnswer);
-        } catch (Exception e) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "评分错误" + e.getMessage());
+        // 先评分再单次写入，返回新写入的数据 id（开启异步时评分不占用请求线程）
+        Long userId = loginUser.getId();
+        return asyncRequestManager.supply(() -> ResultUtils.success(userAnswerService.submitUserAnswer(app,
+                                                                                                       choices,
+                                                                                                       userId)));
+    }
+
+    /**
+     * 批量创建用户答案（答题卡批量导入，仅应用创建者或管理员可用，不支持 AI 评分应用）
+     *
+     * @param userAnswerBatchAddRequest
+     * @param request
+     * @return 新写入的数据 id 列表
+     */
+    @PostMapping("/add/batch")
+    public BaseResponse<List<Long>> addUserAnswerBatch(@RequestBody UserAnswerBatchAddRequest userAnswerBatchAddRequest,
+                                                       HttpServletRequest request) {
+        ThrowUtils.throwIf(userAnswerBatchAddRequest == null, ErrorCode.PARAMS_ERROR);
+        List<List<String>> choicesList = userAnswerBatchAddRequest.getChoicesList();
+        ThrowUtils.throwIf(choicesList == null || choicesList.isEmpty(), ErrorCode.PARAMS_ERROR, "答案不能为空");
+        ThrowUtils.throwIf(choicesList.size() > MAX_BATCH_SIZE,
+                           ErrorCode.PARAMS_ERROR,
+                           "单次最多导入 " + MAX_BATCH_SIZE + " 份答案");
+        App app = appService.getById(userAnswerBatchAddRequest.getAppId());
+        // 判断 app 是否存在
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR);
+        // 判断是否过审
+        ThrowUtils.throwIf(ReviewStatusEnum.PASS.getValue() != app.getReviewStatus(),
+                           ErrorCode.FORBIDDEN_ERROR,
+                           "应用未通过审核，无法答题！");
+        // AI 评分应用每份答案都需要调用模型，不支持批量导入
+        ThrowUtils.throwIf(ScoringStrategyEnum.AI.getValue() == app.getScoringStrategy(),
+                           ErrorCode.PARAMS_ERROR,
+                           "AI 评分应用不支持批量导入");
+        // 仅应用创建者或管理员可导入
+        User loginUser = userService.getLoginUser(request);
+        if (!app.getUserId()
+                .equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
         }
-        return ResultUtils.success(newUserAnswerId);
+        // 批量评分并写入
+        List<Long> ids = userAnswerService.scoreAndSaveBatch(app, choicesList, loginUser.getId());
+        return ResultUtils.success(ids);
     }
 
     /**
@@ -176,6 +215,47 @@ public class UserAnswerController {
         return ResultUtils.success(userAnswerService.getUserAnswerVO(userAnswer, request));
     }
 
+    /**
+     * 获取评分结果（异步评分时轮询使用）
+     *
+     * @param id    用户答案 id
+     * @param appId 应用 id，可选，提供时只查询所在分表
+     * @return 用户答案，scoringStatus 为评分中时需稍后再查
+     */
+    @GetMapping("/result")
+    public BaseResponse<UserAnswerVO> getUserAnswerResult(long id, Long appId, HttpServletRequest request) {
+        UserAnswer userAnswer = getOwnUserAnswer(id, appId, request);
+        return ResultUtils.success(UserAnswerVO.objToVo(userAnswer));
+    }
+
+    /**
+     * 获取评分结果（SSE，评分完成后推送一次 result 事件并关闭）
+     *
+     * @param id    用户答案 id
+     * @param appId 应用 id，可选，提供时只查询所在分表
+     * @return SSE 连接
+     */
+    @GetMapping("/result/sse")
+    public SseEmitter getUserAnswerResultSse(long id, Long appId, HttpServletRequest request) {
+        getOwnUserAnswer(id, appId, request);
+        return scoringResultNotifier.subscribe(id, () -> userAnswerService.getUserAnswer(id, appId));
+    }
+
+    /**
+     * 获取用户答案，仅本人或管理员可查看
+     */
+    private UserAnswer getOwnUserAnswer(long id, Long appId, HttpServletRequest request) {
+        ThrowUtils.throwIf(id <= 0, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        UserAnswer userAnswer = userAnswerService.getUserAnswer(id, appId);
+        ThrowUtils.throwIf(userAnswer == null, ErrorCode.NOT_FOUND_ERROR);
+        if (!userAnswer.getUserId()
+                       .equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
+        }
+        return userAnswer;
+    }
+
     /**
      * 分页获取用户答案列表（仅管理员可用）
      *
@@ -234,18 +314,69 @@ public class UserAnswerController {
         // 补充查询条件，只查询当前登录用户的数据
         User loginUser = userService.getLoginUser(request);
         userAnswerQueryRequest.setUserId(loginUser.getId());
-        long current = userAnswerQueryRequest.getCurrent();
         long size = userAnswerQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        // 查询数据库
-        Page<UserAnswer> userAnswerPage = userAnswerService.page(new Page<>(current, size),
-                                                                 userAnswerService.getQueryWrapper(
-                                                                     userAnswerQueryRequest));
+        // 查询数据库，经索引表只查询答题记录所在的分表
+        Page<UserAnswer> userAnswerPage = userAnswerService.pageByUser(userAnswerQueryRequest);
         // 获取封装类
         return ResultUtils.success(userAnswerService.getUserAnswerVOPage(userAnswerPage, request));
     }
 
+    /**
+     * 游标分页获取用户答案列表（封装类）
+     * <p>
+     * 按 id 倒序，默认不统计总数，翻页耗时与页码无关
+     *
+     * @param userAnswerQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/list/cursor/vo")
+    public BaseResponse<CursorPage<UserAnswerVO>> listUserAnswerVOByCursor(
+        @RequestBody UserAnswerQueryRequest userAnswerQueryRequest,
+        HttpServletRequest request) {
+        ThrowUtils.throwIf(userAnswerQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 限制爬虫
+        ThrowUtils.throwIf(userAnswerQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库
+        CursorPage<UserAnswer> userAnswerPage = cursorPageManager.page(userAnswerService,
+                                                                       userAnswerQueryRequest,
+                                                                       userAnswerService::getQueryWrapper,
+                                                                       UserAnswer::getId);
+        // 获取封装类
+        Page<UserAnswerVO> userAnswerVOPage = userAnswerService.getUserAnswerVOPage(
+            new Page<UserAnswer>().setRecords(userAnswerPage.getRecords()),
+            request);
+        return ResultUtils.success(userAnswerPage.withRecords(userAnswerVOPage.getRecords()));
+    }
+
+    /**
+     * 游标分页获取当前登录用户的用户答案列表
+     *
+     * @param userAnswerQueryRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/my/list/cursor/vo")
+    public BaseResponse<CursorPage<UserAnswerVO>> listMyUserAnswerVOByCursor(
+        @RequestBody UserAnswerQueryRequest userAnswerQueryRequest,
+        HttpServletRequest request) {
+        ThrowUtils.throwIf(userAnswerQueryRequest == null, ErrorCode.PARAMS_ERROR);
+        // 补充查询条件，只查询当前登录用户的数据
+        User loginUser = userService.getLoginUser(request);
+        userAnswerQueryRequest.setUserId(loginUser.getId());
+        // 限制爬虫
+        ThrowUtils.throwIf(userAnswerQueryRequest.getPageSize() > 20, ErrorCode.PARAMS_ERROR);
+        // 查询数据库，经索引表只查询答题记录所在的分表
+        CursorPage<UserAnswer> userAnswerPage = userAnswerService.cursorPageByUser(userAnswerQueryRequest);
+        // 获取封装类
+        Page<UserAnswerVO> userAnswerVOPage = userAnswerService.getUserAnswerVOPage(
+            new Page<UserAnswer>().setRecords(userAnswerPage.getRecords()),
+            request);
+        return ResultUtils.success(userAnswerPage.withRecords(userAnswerVOPage.getRecords()));
+    }
+
     /**
      * 编辑用户答案（给用户使用）
      *
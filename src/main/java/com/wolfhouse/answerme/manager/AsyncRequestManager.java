@@ -0,0 +1,47 @@
+package com.wolfhouse.answerme.manager;
+
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.config.WebAsyncConfig;
+import com.wolfhouse.answerme.exception.BusinessException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 异步接口执行
+ * <p>
+ * 登录校验、参数校验等依赖请求的操作应在调用前于请求线程中完成，传入的任务只执行耗时的业务调用。
+ *
+ * @author Rylin Wolf
+ */
+@Component
+public class AsyncRequestManager {
+    @Resource
+    private WebAsyncConfig webAsyncConfig;
+
+    @Resource
+    private Executor webAsyncExecutor;
+
+    /**
+     * 执行任务，开启异步时在异步接口执行器中执行，否则在当前线程中执行
+     *
+     * @param task 任务
+     * @param <T>  返回类型
+     * @return 任务结果
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        if (!webAsyncConfig.isEnabled()) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, webAsyncExecutor);
+        } catch (RejectedExecutionException e) {
+            // 线程池队列已满
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "服务繁忙，请稍后重试");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.wolfhouse.answerme.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wolfhouse.answerme.common.CursorPage;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.common.PageRequest;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.exception.ThrowUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 游标分页
+ * <p>
+ * 按 id 倒序分页，游标为上一页最后一条记录的 id（编码后对外不透明），查询条件为 id < 游标，走主键索引，
+ * 不统计总数，耗时与页码无关。id 由雪花算法生成，按时间递增，因此 id 倒序即创建时间倒序。
+ * 需要总数时返回短时间缓存的近似值。
+ *
+ * @author Rylin Wolf
+ */
+@Component
+public class CursorPageManager {
+    private static final String ID_COLUMN = "id";
+
+    /** 总数缓存时间（秒） */
+    private static final long TOTAL_EXPIRE_SECONDS = 60L;
+
+    /**
+     * 总数缓存，键为 实体类型:查询条件
+     */
+    private final Cache<String, Long> totalCache = Caffeine.newBuilder()
+                                                           .maximumSize(10_000)
+                                                           .expireAfterWrite(TOTAL_EXPIRE_SECONDS, TimeUnit.SECONDS)
+                                                           .build();
+
+    /**
+     * 游标分页查询
+     * <p>
+     * 游标分页固定按 id 倒序，请求中的排序字段被忽略
+     *
+     * @param service      实体服务
+     * @param pageRequest  分页请求
+     * @param queryWrapper 根据请求构建查询条件的方法
+     * @param idGetter     获取实体 id 的方法
+     * @param <T>          实体类型
+     * @param <R>          请求类型
+     * @return 分页结果
+     */
+    public <T, R extends PageRequest> CursorPage<T> page(IService<T> service,
+                                                         R pageRequest,
+                                                         Function<R, QueryWrapper<T>> queryWrapper,
+                                                         Function<T, Long> idGetter) {
+        int size = pageRequest.getPageSize();
+        ThrowUtils.throwIf(size <= 0, ErrorCode.PARAMS_ERROR, "页面大小必须大于 0");
+        Long lastId = decodeCursor(pageRequest.getCursor());
+        pageRequest.setSortField(null);
+        QueryWrapper<T> wrapper = queryWrapper.apply(pageRequest);
+
+        CursorPage<T> cursorPage = new CursorPage<>();
+        if (pageRequest.isWithTotal()) {
+            String key = service.getEntityClass()
+                                .getName() + ":" + wrapper.getSqlSegment() + ":" + wrapper.getParamNameValuePairs();
+            cursorPage.setTotal(cachedTotal(key, () -> service.count(wrapper)));
+        }
+        // 多查一条判断是否还有下一页
+        wrapper.lt(lastId != null, ID_COLUMN, lastId)
+               .orderByDesc(ID_COLUMN)
+               .last("limit " + (size + 1));
+        fill(cursorPage, service.list(wrapper), size, idGetter);
+        return cursorPage;
+    }
+
+    /**
+     * 用已查询的数据（按 id 倒序，最多 size + 1 条）填充分页结果
+     *
+     * @param cursorPage 分页结果
+     * @param records    数据
+     * @param size       页面大小
+     * @param idGetter   获取实体 id 的方法
+     * @param <T>        实体类型
+     */
+    public <T> void fill(CursorPage<T> cursorPage, List<T> records, int size, Function<T, Long> idGetter) {
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = records.subList(0, size);
+        }
+        fill(cursorPage, records, hasMore ? idGetter.apply(records.get(size - 1)) : null);
+    }
+
+    /**
+     * 填充分页结果，是否还有下一页由调用方按实际查询的行（如索引表）确定
+     *
+     * @param cursorPage 分页结果
+     * @param records    本页数据
+     * @param nextId     下一页游标对应的 id（本页最后一行的 id），没有下一页时为 null
+     * @param <T>        实体类型
+     */
+    public <T> void fill(CursorPage<T> cursorPage, List<T> records, Long nextId) {
+        cursorPage.setRecords(records);
+        cursorPage.setHasMore(nextId != null);
+        if (nextId != null) {
+            cursorPage.setNextCursor(encodeCursor(nextId));
+        }
+    }
+
+    /**
+     * 获取缓存的总数，未缓存时统计并缓存
+     *
+     * @param key   缓存键
+     * @param count 统计方法
+     * @return 总数
+     */
+    public Long cachedTotal(String key, Supplier<Long> count) {
+        return totalCache.get(key, k -> count.get());
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor 游标
+     * @return 上一页最后一条记录的 id，游标为空时返回 null
+     */
+    public Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder()
+                                                   .decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标无效");
+        }
+    }
+
+    /**
+     * 生成游标
+     *
+     * @param id 本页最后一条记录的 id
+     * @return 游标
+     */
+    public String encodeCursor(Long id) {
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(String.valueOf(id)
+                                           .getBytes(StandardCharsets.UTF_8));
+    }
+}
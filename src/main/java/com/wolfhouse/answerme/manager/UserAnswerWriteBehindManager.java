@@ -0,0 +1,462 @@
+package com.wolfhouse.answerme.manager;
+
+import cn.hutool.json.JSONUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.config.WriteBehindConfig;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.service.UserAnswerIndexService;
+import com.wolfhouse.answerme.service.UserAnswerService;
+import com.wolfhouse.answerme.sharding.UserAnswerHotApps;
+import com.wolfhouse.answerme.sharding.UserAnswerResharder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.AutoClaimResult;
+import org.redisson.api.RScript;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamCreateGroupArgs;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户答题记录延迟写入
+ * <p>
+ * 提交的记录（已预分配 id）放入有界缓冲区后立即返回，后台线程每隔几毫秒取出一批，
+ * 按分表分组后先写入索引再 JDBC 批量写入（rewriteBatchedStatements 下为多行插入）。
+ * 缓冲区已满时提交最多等待 offerTimeout 毫秒，仍无空间则拒绝；Redis Stream 缓冲区由脚本原子地检查长度并追加，
+ * 多个节点同时提交也不会超出容量（不使用 XADD MAXLEN，它会裁剪尚未写入的记录）。
+ * <p>
+ * 崩溃安全：内存缓冲区在进程崩溃时丢失尚未写入的记录（最多一个缓冲区），正常关闭时会先写完；
+ * 内存缓冲区中写入失败的记录不丢弃，保留在后台线程中等待后与新记录一起重试，数据库持续不可用时缓冲区逐渐填满，
+ * 新的提交被拒绝，已返回 id 的记录只在关闭超时后仍写入失败时丢弃。
+ * Redis Stream 缓冲区在写入成功后才确认，未确认的记录由本节点重启后或空闲超时后由其他节点重新写入，
+ * 重复写入按主键冲突跳过，并重新双写（崩溃可能发生在提交后、双写前）。写入前的记录可通过 {@link #getBuffered} 读取。
+ * <p>
+ * 批量写入经 saveBatch 在事务中执行，重新分表的双写在事务提交后进行，刷出的记录同样写入另一侧布局。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class UserAnswerWriteBehindManager {
+    private static final String STREAM_KEY = "user_answer_write_behind";
+    private static final String GROUP = "writer";
+    private static final String FIELD = "row";
+
+    /** 重复读取未确认记录与接管其他节点记录的间隔 */
+    private static final long CLAIM_INTERVAL_MILLIS = 5_000L;
+
+    /** 写入失败后的等待时间 */
+    private static final long FAILURE_BACKOFF_MILLIS = 1_000L;
+
+    /** 关闭时等待写完缓冲区的最长时间 */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000L;
+
+    /** Redis Stream 缓冲区已满时重新尝试提交的间隔 */
+    private static final long OFFER_RETRY_MILLIS = 5L;
+
+    /** 未超过容量时追加记录，返回消息 id；已满时返回空 */
+    private static final String OFFER_SCRIPT =
+        "if redis.call('XLEN', KEYS[1]) < tonumber(ARGV[1]) then " +
+        "return redis.call('XADD', KEYS[1], '*', ARGV[2], ARGV[3]) end " +
+        "return false";
+
+    @Resource
+    private WriteBehindConfig writeBehindConfig;
+
+    @Resource
+    @Lazy
+    private UserAnswerService userAnswerService;
+
+    @Resource
+    private UserAnswerIndexService userAnswerIndexService;
+
+    @Resource
+    private UserAnswerResharder userAnswerResharder;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<UserAnswer> queue;
+
+    private RStream<String, String> stream;
+
+    private RScript script;
+
+    private String consumer;
+
+    /** 已提交尚未写入的记录，供提交后立即读取 */
+    private Cache<Long, UserAnswer> buffered;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    /** 关闭时内存缓冲区停止重试失败记录的时间 */
+    private volatile long shutdownDeadline = Long.MAX_VALUE;
+
+    private Counter rejectedCounter;
+    private Counter droppedCounter;
+    private DistributionSummary batchSizeSummary;
+
+    @PostConstruct
+    public void init() {
+        if (!writeBehindConfig.isEnabled()) {
+            return;
+        }
+        buffered = Caffeine.newBuilder()
+                           .maximumSize(writeBehindConfig.getCapacity() * 2L)
+                           .expireAfterWrite(1, TimeUnit.MINUTES)
+                           .build();
+        rejectedCounter = Counter.builder("answerme.write_behind.rejected")
+                                 .description("缓冲区已满而被拒绝的答题记录数")
+                                 .register(meterRegistry);
+        droppedCounter = Counter.builder("answerme.write_behind.dropped")
+                                .description("关闭超时后仍写入失败而丢弃的答题记录数（仅内存缓冲区）")
+                                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("answerme.write_behind.batch.size")
+                                              .description("每次批量写入的答题记录数")
+                                              .register(meterRegistry);
+        if (writeBehindConfig.isDurable()) {
+            // 脚本追加的记录为纯文本，读写使用同一编码
+            stream = redissonClient.getStream(STREAM_KEY, StringCodec.INSTANCE);
+            script = redissonClient.getScript(StringCodec.INSTANCE);
+            consumer = consumerName();
+            try {
+                stream.createGroup(StreamCreateGroupArgs.name(GROUP)
+                                                        .id(StreamMessageId.ALL)
+                                                        .makeStream());
+            } catch (RedisException e) {
+                // 消费组已存在
+            }
+            Gauge.builder("answerme.write_behind.buffer", stream, RStream::size)
+                 .description("缓冲区中的答题记录数")
+                 .register(meterRegistry);
+        } else {
+            queue = new ArrayBlockingQueue<>(writeBehindConfig.getCapacity());
+            Gauge.builder("answerme.write_behind.buffer", queue, BlockingQueue::size)
+                 .description("缓冲区中的答题记录数")
+                 .register(meterRegistry);
+        }
+        running = true;
+        flusher = new Thread(writeBehindConfig.isDurable() ? this::consumeStream : this::consumeQueue,
+                             "user-answer-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        // 内存缓冲区先写完再退出，写入失败的记录在超时前持续重试
+        shutdownDeadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS - FAILURE_BACKOFF_MILLIS;
+        running = false;
+        flusher.interrupt();
+        flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 是否启用
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return writeBehindConfig.isEnabled();
+    }
+
+    /**
+     * 提交一条完整的答题记录（id 已预分配）
+     *
+     * @param userAnswer 答题记录
+     */
+    public void submit(UserAnswer userAnswer) {
+        buffered.put(userAnswer.getId(), userAnswer);
+        boolean accepted;
+        if (writeBehindConfig.isDurable()) {
+            accepted = offerStream(JSONUtil.toJsonStr(userAnswer));
+        } else {
+            try {
+                accepted = queue.offer(userAnswer, writeBehindConfig.getOfferTimeout(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                accepted = false;
+            }
+        }
+        if (!accepted) {
+            buffered.invalidate(userAnswer.getId());
+            rejectedCounter.increment();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "提交人数过多，请稍后重试");
+        }
+    }
+
+    /**
+     * 追加到 Redis Stream 缓冲区，已满时每隔几毫秒重试，最多等待 offerTimeout 毫秒
+     */
+    private boolean offerStream(String row) {
+        long deadline = System.currentTimeMillis() + writeBehindConfig.getOfferTimeout();
+        while (true) {
+            Object messageId = script.eval(STREAM_KEY,
+                                           RScript.Mode.READ_WRITE,
+                                           OFFER_SCRIPT,
+                                           RScript.ReturnType.VALUE,
+                                           Collections.<Object>singletonList(STREAM_KEY),
+                                           String.valueOf(writeBehindConfig.getCapacity()),
+                                           FIELD,
+                                           row);
+            if (messageId != null) {
+                return true;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(Math.min(OFFER_RETRY_MILLIS, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 获取已提交尚未写入的记录
+     *
+     * @param id 记录 id
+     * @return 记录，不存在时返回 null
+     */
+    public UserAnswer getBuffered(Long id) {
+        if (buffered == null || id == null) {
+            return null;
+        }
+        return buffered.getIfPresent(id);
+    }
+
+    private void consumeQueue() {
+        // 写入失败的记录，等待后与新提交的记录一起重试
+        List<UserAnswer> failed = new ArrayList<>();
+        while (running || !queue.isEmpty() || !failed.isEmpty()) {
+            List<UserAnswer> rows = new ArrayList<>(writeBehindConfig.getMaxBatchRows());
+            if (failed.isEmpty()) {
+                UserAnswer first;
+                try {
+                    first = queue.poll(writeBehindConfig.getFlushInterval(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // 关闭时继续写完缓冲区
+                    continue;
+                }
+                if (first == null) {
+                    continue;
+                }
+                if (running) {
+                    // 等待一个间隔，合并这段时间内提交的记录
+                    try {
+                        Thread.sleep(writeBehindConfig.getFlushInterval());
+                    } catch (InterruptedException e) {
+                        // 关闭时立即写入
+                    }
+                }
+                rows.add(first);
+            } else {
+                if (!running && System.currentTimeMillis() >= shutdownDeadline) {
+                    drop(failed);
+                    failed = new ArrayList<>();
+                    continue;
+                }
+                try {
+                    Thread.sleep(FAILURE_BACKOFF_MILLIS);
+                } catch (InterruptedException e) {
+                    // 关闭时立即重试
+                }
+                rows.addAll(failed);
+            }
+            queue.drainTo(rows, writeBehindConfig.getMaxBatchRows() - rows.size());
+            failed = write(rows);
+            if (!failed.isEmpty()) {
+                log.warn("答题记录写入失败，{} 毫秒后重试，数量: {}", FAILURE_BACKOFF_MILLIS, failed.size());
+                for (UserAnswer userAnswer : failed) {
+                    // 重试期间仍可读取
+                    buffered.put(userAnswer.getId(), userAnswer);
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭超时后丢弃仍写入失败的记录
+     */
+    private void drop(List<UserAnswer> rows) {
+        for (UserAnswer userAnswer : rows) {
+            log.error("答题记录写入失败，关闭超时，已丢弃: {}", JSONUtil.toJsonStr(userAnswer));
+            buffered.invalidate(userAnswer.getId());
+        }
+        droppedCounter.increment(rows.size());
+    }
+
+    private void consumeStream() {
+        long lastClaim = 0;
+        while (running) {
+            try {
+                Map<StreamMessageId, Map<String, String>> messages;
+                if (System.currentTimeMillis() - lastClaim >= CLAIM_INTERVAL_MILLIS) {
+                    lastClaim = System.currentTimeMillis();
+                    // 本节点未确认的记录（重启前或上次写入失败）与其他节点空闲过久的记录
+                    // StreamMessageId 不可比较，按读取顺序保存
+                    messages = new LinkedHashMap<>(stream.readGroup(GROUP,
+                                                                    consumer,
+                                                                    StreamReadGroupArgs.greaterThan(new StreamMessageId(0, 0))
+                                                                                       .count(writeBehindConfig.getMaxBatchRows())));
+                    AutoClaimResult<String, String> claimed = stream.autoClaim(GROUP,
+                                                                               consumer,
+                                                                               writeBehindConfig.getClaimIdleTime(),
+                                                                               TimeUnit.MILLISECONDS,
+                                                                               new StreamMessageId(0, 0),
+                                                                               writeBehindConfig.getMaxBatchRows());
+                    messages.putAll(claimed.getMessages());
+                } else {
+                    messages = stream.readGroup(GROUP,
+                                                consumer,
+                                                StreamReadGroupArgs.neverDelivered()
+                                                                   .count(writeBehindConfig.getMaxBatchRows())
+                                                                   .timeout(Duration.ofMillis(writeBehindConfig.getFlushInterval())));
+                }
+                if (messages == null || messages.isEmpty()) {
+                    continue;
+                }
+                Map<Long, StreamMessageId> messageIds = new TreeMap<>();
+                List<UserAnswer> rows = new ArrayList<>(messages.size());
+                messages.forEach((messageId, fields) -> {
+                    UserAnswer userAnswer = JSONUtil.toBean(fields.get(FIELD), UserAnswer.class);
+                    rows.add(userAnswer);
+                    messageIds.put(userAnswer.getId(), messageId);
+                });
+                List<UserAnswer> failed = write(rows);
+                // 写入失败的记录不确认，稍后重新读取
+                for (UserAnswer userAnswer : failed) {
+                    messageIds.remove(userAnswer.getId());
+                }
+                if (!messageIds.isEmpty()) {
+                    StreamMessageId[] ids = messageIds.values()
+                                                      .toArray(new StreamMessageId[0]);
+                    stream.ack(GROUP, ids);
+                    stream.remove(ids);
+                }
+                if (!failed.isEmpty()) {
+                    Thread.sleep(FAILURE_BACKOFF_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("读取答题记录缓冲区失败", e);
+            }
+        }
+    }
+
+    /**
+     * 按分表分组批量写入，批量失败时逐条写入（主键冲突视为已写入）
+     *
+     * @return 写入失败的记录
+     */
+    private List<UserAnswer> write(List<UserAnswer> rows) {
+        batchSizeSummary.record(rows.size());
+        Map<Integer, List<UserAnswer>> groups = new TreeMap<>();
+        for (UserAnswer userAnswer : rows) {
+            int shard = UserAnswerHotApps.shard(userAnswer.getAppId(),
+                                                userAnswer.getUserId(),
+                                                userAnswer.getId(),
+                                                writeBehindConfig.getShardCount());
+            groups.computeIfAbsent(shard, key -> new ArrayList<>())
+                  .add(userAnswer);
+        }
+        List<UserAnswer> failed = new ArrayList<>();
+        for (List<UserAnswer> group : groups.values()) {
+            try {
+                userAnswerIndexService.addIndex(group);
+                userAnswerService.saveBatch(group, group.size());
+                invalidate(group);
+            } catch (RuntimeException e) {
+                log.warn("答题记录批量写入失败，逐条写入，数量: {}, 原因: {}", group.size(), e.getMessage());
+                for (UserAnswer userAnswer : group) {
+                    if (writeOne(userAnswer)) {
+                        buffered.invalidate(userAnswer.getId());
+                    } else {
+                        failed.add(userAnswer);
+                    }
+                }
+            }
+        }
+        return failed;
+    }
+
+    private boolean writeOne(UserAnswer userAnswer) {
+        try {
+            try {
+                userAnswerIndexService.addIndex(Collections.singletonList(userAnswer));
+            } catch (DuplicateKeyException e) {
+                // 索引已写入
+            }
+            userAnswerService.save(userAnswer);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // 重复写入（重新读取的未确认记录），上次可能在双写前崩溃，重新双写（按主键整行覆盖，可重复执行）
+            userAnswerResharder.sync(userAnswer.getId(), userAnswer.getAppId());
+            return true;
+        } catch (RuntimeException e) {
+            log.error("答题记录写入失败，id: {}", userAnswer.getId(), e);
+            return false;
+        }
+    }
+
+    private void invalidate(List<UserAnswer> rows) {
+        for (UserAnswer userAnswer : rows) {
+            buffered.invalidate(userAnswer.getId());
+        }
+    }
+
+    private String consumerName() {
+        try {
+            return InetAddress.getLocalHost()
+                              .getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID()
+                       .toString();
+        }
+    }
+}
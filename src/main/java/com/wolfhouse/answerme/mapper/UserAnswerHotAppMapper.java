@@ -0,0 +1,13 @@
+package com.wolfhouse.answerme.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wolfhouse.answerme.model.entity.UserAnswerHotApp;
+
+/**
+ * 用户答题记录热点应用数据库操作
+ *
+ * @author Rylin Wolf
+ */
+public interface UserAnswerHotAppMapper extends BaseMapper<UserAnswerHotApp> {
+
+}
@@ -0,0 +1,13 @@
+package com.wolfhouse.answerme.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wolfhouse.answerme.model.entity.UserAnswerIndex;
+
+/**
+ * 用户答题记录索引数据库操作
+ *
+ * @author Rylin Wolf
+ */
+public interface UserAnswerIndexMapper extends BaseMapper<UserAnswerIndex> {
+
+}
@@ -0,0 +1,27 @@
+package com.wolfhouse.answerme.model.dto.useranswer;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量创建用户答案请求（答题卡批量导入）
+ *
+ * @author Rylin Wolf
+ */
+@Data
+public class UserAnswerBatchAddRequest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 应用 id
+     */
+    private Long appId;
+
+    /**
+     * 答题卡列表，每一项为一份用户答案
+     */
+    private List<List<String>> choicesList;
+}
@@ -85,4 +85,9 @@ public class UserAnswerQueryRequest extends PageRequest implements Serializable
     /** 搜索词 */
     private String searchText;
 
+    /**
+     * 上一页最后一条记录 id，查询本人答题记录时传入则按 id 倒序游标分页（不统计总数）
+     */
+    private Long lastId;
+
 }
\ No newline at end of file
@@ -67,6 +67,11 @@ public class UserAnswer {
      */
     private Integer resultScore;
 
+    /**
+     * 评分状态（0-评分完成，1-评分中，2-评分失败）
+     */
+    private Integer scoringStatus;
+
     /**
      * 用户 id
      */
@@ -0,0 +1,41 @@
+package com.wolfhouse.answerme.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 用户答题记录热点应用（答题记录分散到多张分表的应用）
+ *
+ * @author Rylin Wolf
+ * @TableName user_answer_hot_app
+ */
+@TableName(value = "user_answer_hot_app")
+@Data
+public class UserAnswerHotApp implements Serializable {
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+    /**
+     * 应用 id
+     */
+    @TableId(type = IdType.INPUT)
+    private Long appId;
+    /**
+     * 分散的分表数
+     */
+    private Integer subShards;
+    /**
+     * 从此 id 起的答题记录分散写入
+     */
+    private Long sinceId;
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+}
@@ -0,0 +1,41 @@
+package com.wolfhouse.answerme.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 用户答题记录索引（用户 id -> 应用 id, 答题记录 id）
+ *
+ * @author Rylin Wolf
+ * @TableName user_answer_index
+ */
+@TableName(value = "user_answer_index")
+@Data
+public class UserAnswerIndex implements Serializable {
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+    /**
+     * 用户答题记录 id
+     */
+    @TableId(type = IdType.INPUT)
+    private Long id;
+    /**
+     * 用户 id
+     */
+    private Long userId;
+    /**
+     * 应用 id
+     */
+    private Long appId;
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+}
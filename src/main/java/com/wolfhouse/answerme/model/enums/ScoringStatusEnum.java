@@ -0,0 +1,67 @@
+package com.wolfhouse.answerme.model.enums;
+
+import cn.hutool.core.util.ObjectUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 用户答案评分状态枚举
+ *
+ * @author Rylin Wolf
+ */
+public enum ScoringStatusEnum {
+    /**
+     * 评分状态
+     */
+    SUCCEED("评分完成", 0),
+    PENDING("评分中", 1),
+    FAILED("评分失败", 2);
+
+    private final String text;
+
+    private final int value;
+
+    ScoringStatusEnum(String text, int value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static ScoringStatusEnum getEnumByValue(Integer value) {
+        if (ObjectUtil.isEmpty(value)) {
+            return null;
+        }
+        for (ScoringStatusEnum anEnum : ScoringStatusEnum.values()) {
+            if (anEnum.value == value) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<Integer> getValues() {
+        return Arrays.stream(values())
+                     .map(item -> item.value)
+                     .collect(Collectors.toList());
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -64,6 +64,11 @@ public class UserAnswerVO implements Serializable {
      */
     private Integer resultScore;
 
+    /**
+     * 评分状态（0-评分完成，1-评分中，2-评分失败）
+     */
+    private Integer scoringStatus;
+
     /**
      * 用户 id
      */
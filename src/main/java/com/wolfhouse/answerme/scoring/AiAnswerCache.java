@@ -0,0 +1,204 @@
+package com.wolfhouse.answerme.scoring;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wolfhouse.answerme.config.ScoringConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * AI 评分结果二级缓存
+ * <p>
+ * 一级为本地 Caffeine 缓存，二级为 Redis 缓存（每个应用一个 RMapCache），集群内共享并在重启后保留。
+ * 以应用 id + 答案摘要为键，应用题目或评分结果变更时按应用整体失效。
+ *
+ * @author Rylin Wolf
+ */
+@Component
+public class AiAnswerCache {
+    /** Redis 缓存前缀，后接应用 id */
+    private static final String REMOTE_CACHE_PREFIX = "ai_answer_cache:";
+
+    private static final String LEVEL_LOCAL = "local";
+    private static final String LEVEL_REMOTE = "remote";
+
+    /** 各应用的访问计数器下标：级别 * 2 + 是否命中 */
+    private static final int LOCAL_MISS = 0;
+    private static final int LOCAL_HIT = 1;
+    private static final int REMOTE_MISS = 2;
+    private static final int REMOTE_HIT = 3;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private ScoringConfig scoringConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 本地缓存，键为 应用 id:答案摘要
+     */
+    private Cache<String, String> localCache;
+
+    /** 应用 id -> 访问计数器，避免每次访问重新构建与注册 */
+    private final Map<Long, Counter[]> requestCounters = new ConcurrentHashMap<>();
+
+    /** 应用 id -> 加载耗时 */
+    private final Map<Long, Timer> loadTimers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                             .initialCapacity(1024)
+                             .maximumSize(scoringConfig.getAiCacheLocalMaximumSize())
+                             .expireAfterAccess(scoringConfig.getAiCacheLocalExpireSeconds(), TimeUnit.SECONDS)
+                             .build();
+    }
+
+    /**
+     * 获取缓存的评分结果，本地未命中时读取 Redis 并回填本地缓存，计入缓存命中率
+     * <p>
+     * 每次评分请求只调用一次，同一请求内的再次检查使用 {@link #peek}
+     *
+     * @param appId  应用 id
+     * @param digest 答案摘要
+     * @return AI 评分输出，不存在时返回 null
+     */
+    public String get(Long appId, String digest) {
+        return lookup(appId, digest, true);
+    }
+
+    /**
+     * 获取缓存的评分结果，与 {@link #get} 相同但不计入缓存命中率
+     *
+     * @param appId  应用 id
+     * @param digest 答案摘要
+     * @return AI 评分输出，不存在时返回 null
+     */
+    public String peek(Long appId, String digest) {
+        return lookup(appId, digest, false);
+    }
+
+    private String lookup(Long appId, String digest, boolean counted) {
+        String localKey = localKey(appId, digest);
+        String result = localCache.getIfPresent(localKey);
+        if (result != null) {
+            count(counted, appId, LOCAL_HIT);
+            return result;
+        }
+        count(counted, appId, LOCAL_MISS);
+        if (!scoringConfig.isAiCacheRemoteEnabled()) {
+            return null;
+        }
+        result = remoteCache(appId).get(digest);
+        if (result == null) {
+            count(counted, appId, REMOTE_MISS);
+            return null;
+        }
+        count(counted, appId, REMOTE_HIT);
+        localCache.put(localKey, result);
+        return result;
+    }
+
+    /**
+     * 写入评分结果
+     *
+     * @param appId  应用 id
+     * @param digest 答案摘要
+     * @param result AI 评分输出
+     */
+    public void put(Long appId, String digest, String result) {
+        localCache.put(localKey(appId, digest), result);
+        if (scoringConfig.isAiCacheRemoteEnabled()) {
+            remoteCache(appId).fastPut(digest,
+                                       result,
+                                       scoringConfig.getAiCacheRemoteExpireSeconds(),
+                                       TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 加载评分结果并记录耗时
+     *
+     * @param appId  应用 id
+     * @param loader 加载方法（调用 AI）
+     * @return AI 评分输出
+     */
+    public String load(Long appId, Supplier<String> loader) {
+        return loadTimers.computeIfAbsent(appId, id -> Timer.builder("answerme.ai.cache.load")
+                                                            .description("AI 评分结果未命中缓存时的加载耗时")
+                                                            .tag("app", String.valueOf(id))
+                                                            .register(meterRegistry))
+                         .record(loader);
+    }
+
+    /**
+     * 使应用的全部评分结果失效，包括 Redis 缓存
+     *
+     * @param appId 应用 id
+     */
+    public void invalidate(Long appId) {
+        invalidateLocal(appId);
+        if (scoringConfig.isAiCacheRemoteEnabled()) {
+            remoteCache(appId).delete();
+        }
+    }
+
+    /**
+     * 使应用的本地评分结果失效（收到集群失效通知时调用）
+     *
+     * @param appId 应用 id
+     */
+    public void invalidateLocal(Long appId) {
+        String prefix = appId + ":";
+        // 失效不频繁，直接遍历本地缓存
+        localCache.asMap()
+                  .keySet()
+                  .removeIf(key -> key.startsWith(prefix));
+    }
+
+    private RMapCache<String, String> remoteCache(Long appId) {
+        return redissonClient.getMapCache(REMOTE_CACHE_PREFIX + appId);
+    }
+
+    private String localKey(Long appId, String digest) {
+        return appId + ":" + digest;
+    }
+
+    private void count(boolean counted, Long appId, int index) {
+        if (counted) {
+            requestCounters.computeIfAbsent(appId, this::newRequestCounters)[index].increment();
+        }
+    }
+
+    private Counter[] newRequestCounters(Long appId) {
+        Counter[] counters = new Counter[4];
+        counters[LOCAL_MISS] = requestCounter(appId, LEVEL_LOCAL, "miss");
+        counters[LOCAL_HIT] = requestCounter(appId, LEVEL_LOCAL, "hit");
+        counters[REMOTE_MISS] = requestCounter(appId, LEVEL_REMOTE, "miss");
+        counters[REMOTE_HIT] = requestCounter(appId, LEVEL_REMOTE, "hit");
+        return counters;
+    }
+
+    private Counter requestCounter(Long appId, String level, String result) {
+        return Counter.builder("answerme.ai.cache.requests")
+                      .description("AI 评分结果缓存访问次数")
+                      .tag("app", String.valueOf(appId))
+                      .tag("level", level)
+                      .tag("result", result)
+                      .register(meterRegistry);
+    }
+}
@@ -0,0 +1,302 @@
+package com.wolfhouse.answerme.scoring;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.wolfhouse.answerme.ai.AiManager;
+import com.wolfhouse.answerme.ai.AiOutputParseException;
+import com.wolfhouse.answerme.ai.AiOutputParser;
+import com.wolfhouse.answerme.ai.AiResilienceConfig;
+import com.wolfhouse.answerme.ai.AiUseCase;
+import com.wolfhouse.answerme.ai.Prompts;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.config.ScoringConfig;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.model.dto.question.QuestionAnswerDto;
+import com.wolfhouse.answerme.model.entity.App;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AI 评分请求合并
+ * <p>
+ * 同一应用在合并窗口内到达的评分请求（最多 aiBatchMaxSize 份）合并为一次 AI 调用，
+ * 系统 Prompt 只发送一次，模型按输入顺序返回结果数组，再分发给各个等待的请求。
+ * 返回数组长度不一致时退回逐个调用，逐个调用并行执行。
+ * <p>
+ * 定时线程只负责到期后把批次交给发送线程池，AI 调用与逐个退回都在发送线程池中执行，
+ * 一个应用的慢调用不会推迟其他应用的合并窗口；发送线程池已满时直接拒绝，等待方收到“繁忙”错误。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class AiScoringBatcher {
+    @Resource
+    private AiManager aiManager;
+
+    @Resource
+    private Prompts prompts;
+
+    @Resource
+    private AiOutputParser aiOutputParser;
+
+    @Resource
+    private ScoringConfig scoringConfig;
+
+    @Resource
+    private AiResilienceConfig aiResilienceConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private ThreadPoolTaskExecutor aiScoringBatchTaskExecutor;
+
+    /** 应用 id -> 正在收集的批次 */
+    private final Map<Long, Batch> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private DistributionSummary batchSizeSummary;
+    private Counter splitCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(scoringConfig.getAiBatchThreads(), r -> {
+            Thread thread = new Thread(r, "ai-scoring-batch-timer-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        batchSizeSummary = DistributionSummary.builder("answerme.ai.scoring.batch.size")
+                                              .description("合并后每次 AI 评分调用包含的答案数")
+                                              .register(meterRegistry);
+        splitCounter = Counter.builder("answerme.ai.scoring.batch.split")
+                              .description("合并结果数量不一致而退回逐个调用的次数")
+                              .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * 是否启用合并
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return scoringConfig.isAiBatchEnabled();
+    }
+
+    /**
+     * 提交一份答案并等待评分结果
+     *
+     * @param app     应用
+     * @param answers 题目 - 答案列表
+     * @return AI 评分输出（单个结果对象）
+     */
+    public String score(App app, List<QuestionAnswerDto> answers) {
+        Entry entry = new Entry(answers);
+        Long appId = app.getId();
+        Batch[] full = {null};
+        pending.compute(appId, (id, batch) -> {
+            if (batch == null) {
+                Batch created = new Batch(app);
+                created.timer = scheduler.schedule(() -> flushExpired(id, created),
+                                                   scoringConfig.getAiBatchWindow(),
+                                                   TimeUnit.MILLISECONDS);
+                batch = created;
+            }
+            batch.entries.add(entry);
+            if (batch.entries.size() >= scoringConfig.getAiBatchMaxSize()) {
+                // 批次已满，立即发送
+                batch.timer.cancel(false);
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            dispatch(full[0]);
+        }
+        return await(entry.future);
+    }
+
+    private void flushExpired(Long appId, Batch batch) {
+        // 已因批次满被发送时不再重复发送
+        if (pending.remove(appId, batch)) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * 交给发送线程池执行，线程池已满时整批失败
+     */
+    private void dispatch(Batch batch) {
+        try {
+            aiScoringBatchTaskExecutor.execute(() -> flush(batch));
+        } catch (TaskRejectedException e) {
+            BusinessException busy = busy();
+            for (Entry entry : batch.entries) {
+                entry.future.completeExceptionally(busy);
+            }
+        }
+    }
+
+    private void flush(Batch batch) {
+        List<Entry> entries = batch.entries;
+        batchSizeSummary.record(entries.size());
+        App app = batch.app;
+        try {
+            if (entries.size() == 1) {
+                entries.get(0).future.complete(scoreOne(app, entries.get(0).answers));
+                return;
+            }
+            List<List<QuestionAnswerDto>> answersList = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                answersList.add(entry.answers);
+            }
+            String result = aiManager.doSyncStableRequest(prompts.systemScoringBatchPrompt(),
+                                                          prompts.userScoringBatchInput(app.getAppName(),
+                                                                                        app.getAppDesc(),
+                                                                                        answersList),
+                                                          AiUseCase.SCORING,
+                                                          app.getId());
+            List<String> results = splitResults(result);
+            if (results == null || results.size() != entries.size()) {
+                // 模型未按要求返回，并行逐个评分
+                log.warn("AI 合并评分结果数量不一致，退回逐个调用，appId: {}, 期望: {}",
+                         app.getId(),
+                         entries.size());
+                splitCounter.increment();
+                for (Entry entry : entries) {
+                    dispatchOne(app, entry);
+                }
+                return;
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).future.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Entry entry : entries) {
+                entry.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 逐个评分交给发送线程池，不等待结果，避免发送线程互相等待
+     */
+    private void dispatchOne(App app, Entry entry) {
+        try {
+            aiScoringBatchTaskExecutor.execute(() -> completeOne(app, entry));
+        } catch (TaskRejectedException e) {
+            entry.future.completeExceptionally(busy());
+        }
+    }
+
+    private BusinessException busy() {
+        return new BusinessException(ErrorCode.OPERATION_ERROR, "AI 服务繁忙，请稍后重试");
+    }
+
+    private void completeOne(App app, Entry entry) {
+        try {
+            entry.future.complete(scoreOne(app, entry.answers));
+        } catch (RuntimeException e) {
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    private String scoreOne(App app, List<QuestionAnswerDto> answers) {
+        return aiManager.doSyncStableRequest(prompts.systemScoringPrompt(),
+                                             prompts.userScoringInput(app.getAppName(),
+                                                                      app.getAppDesc(),
+                                                                      answers),
+                                             AiUseCase.SCORING,
+                                             app.getId());
+    }
+
+    /**
+     * 从模型输出中截取结果数组，解析失败时返回 null
+     */
+    private List<String> splitResults(String result) {
+        try {
+            List<JsonNode> array = aiOutputParser.parseList(result, JsonNode.class);
+            List<String> results = new ArrayList<>(array.size());
+            for (JsonNode item : array) {
+                results.add(item.toString());
+            }
+            return results;
+        } catch (AiOutputParseException e) {
+            log.warn("AI 合并评分结果解析失败，原因: {}, 位置: {}", e.getReason(), e.getOffset());
+            return null;
+        }
+    }
+
+    private String await(CompletableFuture<String> future) {
+        // 合并窗口 + 调用超时（含重试），逐个退回时再预留一倍
+        long timeout = scoringConfig.getAiBatchWindow() +
+                       2 * aiResilienceConfig.getCallTimeout() * (aiResilienceConfig.getMaxRetries() + 1L);
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 评分失败");
+        } catch (TimeoutException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 评分超时，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 评分被中断");
+        }
+    }
+
+    /**
+     * 等待合并的一份答案
+     */
+    private static final class Entry {
+        private final List<QuestionAnswerDto> answers;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        private Entry(List<QuestionAnswerDto> answers) {
+            this.answers = answers;
+        }
+    }
+
+    /**
+     * 同一应用正在收集的批次，只在 pending 的 compute 中修改
+     */
+    private static final class Batch {
+        private final App app;
+        private final List<Entry> entries = new ArrayList<>();
+        private ScheduledFuture<?> timer;
+
+        private Batch(App app) {
+            this.app = app;
+        }
+    }
+}
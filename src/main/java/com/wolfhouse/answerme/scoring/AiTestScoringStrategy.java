@@ -1,47 +1,65 @@
 package com.wolfhouse.answerme.scoring;
 
-import cn.hutool.crypto.digest.DigestUtil;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.wolfhouse.answerme.ai.AiManager;
+import com.wolfhouse.answerme.ai.AiOutputParseException;
+import com.wolfhouse.answerme.ai.AiOutputParser;
+import com.wolfhouse.answerme.ai.AiResilienceConfig;
+import com.wolfhouse.answerme.ai.AiUseCase;
 import com.wolfhouse.answerme.ai.Prompts;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.model.dto.question.QuestionAnswerDto;
 import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
 import com.wolfhouse.answerme.model.entity.App;
 import com.wolfhouse.answerme.model.entity.Question;
 import com.wolfhouse.answerme.model.entity.UserAnswer;
 import com.wolfhouse.answerme.service.QuestionService;
-import com.wolfhouse.answerme.utils.AiJsonUtils;
+import com.wolfhouse.answerme.utils.AnswerKeyUtils;
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.redisson.api.RLock;
+import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Ai 测评类应用测评类策略
  *
  * @author Rylin Wolf
  */
+@Slf4j
 @ScoringStrategyConfig(appType = 1, scoringStrategy = 1)
 public class AiTestScoringStrategy implements ScoringStrategy {
 
     private static final String AI_ANSWER_LOCK = "ai_answer_lock";
+    /** 评分计算结束广播主题 */
+    private static final String AI_ANSWER_DONE_TOPIC = "ai_answer_done";
+    /** 锁租期，也是等待其他节点结果的最长时间 */
+    private static final long LOCK_LEASE_SECONDS = 60L;
+    /** 竞争锁的最大次数 */
+    private static final int MAX_LOCK_ATTEMPTS = 2;
+
     /**
-     * AI 评分结果本地缓存，保存 AI 评分输出
+     * 本节点正在计算的请求，相同的请求共享同一个结果
      */
-    private final Cache<String, String> answerCache =
-        Caffeine.newBuilder()
-                .initialCapacity(1024)
-                // 五分钟移除
-                .expireAfterAccess(5L, TimeUnit.MINUTES)
-                .build();
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 等待其他节点计算结果的请求
+     */
+    private final Map<String, CompletableFuture<Void>> remoteWaiters = new ConcurrentHashMap<>();
 
     @Resource
     private QuestionService questionService;
@@ -49,12 +67,32 @@ public class AiTestScoringStrategy implements ScoringStrategy {
     @Resource
     private AiManager aiManager;
 
+    @Resource
+    private Prompts prompts;
+
     @Resource
     private RedissonClient redissonClient;
 
+    @Resource
+    private AiAnswerCache aiAnswerCache;
+
+    @Resource
+    private AiResilienceConfig aiResilienceConfig;
+
+    @Resource
+    private CustomTestScoringStrategy customTestScoringStrategy;
+
+    @Resource
+    private AiScoringBatcher aiScoringBatcher;
+
+    @Resource
+    private AiOutputParser aiOutputParser;
+
+    private RTopic doneTopic;
+
     @NotNull
-    private static UserAnswer getUserAnswerFromAiResult(App app, String result, Long appId, String choicesJson) {
-        UserAnswer userAnswer = AiJsonUtils.toBean(result, UserAnswer.class);
+    private UserAnswer getUserAnswerFromAiResult(App app, String result, Long appId, String choicesJson) {
+        UserAnswer userAnswer = aiOutputParser.parseObject(result, UserAnswer.class);
         userAnswer.setAppId(appId);
         userAnswer.setAppType(app.getAppType());
         userAnswer.setChoices(choicesJson);
@@ -62,87 +100,212 @@ public class AiTestScoringStrategy implements ScoringStrategy {
         return userAnswer;
     }
 
+    @PostConstruct
+    public void init() {
+        doneTopic = redissonClient.getTopic(AI_ANSWER_DONE_TOPIC);
+        // 其他节点（或本节点）计算结束，唤醒等待该结果的请求
+        doneTopic.addListener(String.class, (channel, cacheKey) -> {
+            CompletableFuture<Void> waiter = remoteWaiters.remove(cacheKey);
+            if (waiter != null) {
+                waiter.complete(null);
+            }
+        });
+    }
+
     @Override
     public UserAnswer doScore(List<String> choices, App app) throws Exception {
+        try {
+            return scoreByAi(choices, app);
+        } catch (BusinessException e) {
+            UserAnswer fallback = fallback(choices, app);
+            if (fallback == null) {
+                throw e;
+            }
+            return fallback;
+        }
+    }
 
+    private UserAnswer scoreByAi(List<String> choices, App app) throws Exception {
         Long appId = app.getId();
         String choicesJson = JSONUtil.toJsonStr(choices);
-        String cacheKey = buildCacheKey(appId, choicesJson);
-        String cachedScoreResult = answerCache.getIfPresent(cacheKey);
+        String digest = AnswerKeyUtils.digest(choices);
+        String cacheKey = appId + ":" + digest;
+        String cachedScoreResult = aiAnswerCache.get(appId, digest);
         if (cachedScoreResult != null) {
             // 构造返回值
             return getUserAnswerFromAiResult(app, cachedScoreResult, appId, choicesJson);
         }
 
+        // 本节点内相同的请求共享同一次计算
+        CompletableFuture<String> own = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(cacheKey, own);
+        if (existing != null) {
+            return getUserAnswerFromAiResult(app, await(existing), appId, choicesJson);
+        }
+        try {
+            String result = loadResult(cacheKey, digest, choices, app);
+            own.complete(result);
+            // 构造返回值
+            return getUserAnswerFromAiResult(app, result, appId, choicesJson);
+        } catch (Exception e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, own);
+        }
+    }
+
+    /**
+     * AI 评分失败时降级为按应用评分结果计算（需开启降级且应用配置了评分结果）
+     */
+    private UserAnswer fallback(List<String> choices, App app) {
+        if (!aiResilienceConfig.isScoringFallbackEnabled()) {
+            return null;
+        }
+        try {
+            UserAnswer userAnswer = customTestScoringStrategy.doScore(choices, app);
+            log.warn("AI 评分失败，降级为规则评分，appId: {}", app.getId());
+            return userAnswer;
+        } catch (Exception e) {
+            // 应用未配置评分结果，无法降级
+            return null;
+        }
+    }
+
+    /**
+     * 获取评分结果：竞争分布式锁，抢到锁的节点调用 AI，其余节点等待其广播后读取共享缓存
+     */
+    private String loadResult(String cacheKey, String digest, List<String> choices, App app) throws Exception {
+
         // 定义并发锁
         RLock lock = redissonClient.getLock(AI_ANSWER_LOCK + cacheKey);
-        try {
-            // 竞争锁
-            boolean res = lock.tryLock(3, 15, TimeUnit.SECONDS);
-            // 没抢到锁，从缓存中获取
-            if (!res) {
-                // 从缓存中获取数据，最大重试五次
-                int retryTimes = 1;
-                int maxRetryTimes = 5;
-                while (retryTimes <= maxRetryTimes) {
-                    String cachedResult = answerCache.getIfPresent(cacheKey);
-                    if (cachedResult != null) {
-                        return getUserAnswerFromAiResult(app, cachedResult, appId, choicesJson);
+        // 持锁节点失败或超时后，再竞争一次
+        for (int attempt = 0; attempt < MAX_LOCK_ATTEMPTS; attempt++) {
+            if (lock.tryLock(0, LOCK_LEASE_SECONDS, TimeUnit.SECONDS)) {
+                try {
+                    return computeResult(digest, choices, app);
+                } finally {
+                    // 防止锁超时释放后，释放其他线程的锁
+                    if (lock.isHeldByCurrentThread()) {
+                        lock.unlock();
                     }
-                    retryTimes++;
-                    Thread.sleep(1000);
+                    // 无论成功与否都通知等待方，失败时等待方将自行重试
+                    doneTopic.publish(cacheKey);
                 }
-                return null;
             }
-
-            // 根据 ID 获取到题目信息
-            Question question = questionService.getOne(new LambdaQueryWrapper<Question>().eq(Question::getAppId,
-                                                                                             app.getId()));
-            // 获取题目列表
-            List<QuestionContentDto> questions = JSONUtil.toList(question.getQuestionContent(),
-                                                                 QuestionContentDto.class);
-            List<QuestionAnswerDto> answers = new ArrayList<>();
-            // 构建题目 - 答案列表
-            for (int i = 0; i < questions.size(); i++) {
-                // 获取问题 dto 及用户选项
-                QuestionContentDto questionDto = questions.get(i);
-                String choice = choices.get(i);
-                // 构建问题答案 dto
-                QuestionAnswerDto answerDto = new QuestionAnswerDto();
-                String userAnswer = questionDto.getOptions()
-                                               .stream()
-                                               .filter(o -> o.getKey()
-                                                             .equals(choice))
-                                               .findFirst()
-                                               .orElseThrow()
-                                               .getResult();
-                answerDto.setTitle(questionDto.getTitle());
-                answerDto.setUserAnswer(userAnswer);
-                answers.add(answerDto);
+            // 其他节点正在计算，等待其通知
+            String remoteResult = awaitRemote(cacheKey, app.getId(), digest);
+            if (remoteResult != null) {
+                return remoteResult;
             }
-            // 调用 AI 获取结果
-            String userScoringInput = Prompts.userScoringInput(app.getAppName(),
-                                                               app.getAppDesc(),
-                                                               answers);
-            String systemPrompt = Prompts.systemScoringPrompt();
-            String result = aiManager.doSyncStableRequest(systemPrompt, userScoringInput);
+        }
+        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 评分超时，请稍后重试");
+    }
 
-            // 缓存结果
-            answerCache.put(cacheKey, result);
+    /**
+     * 调用 AI 计算评分结果，并写入共享缓存
+     */
+    private String computeResult(String digest, List<String> choices, App app) {
+        // 抢到锁后再检查一次，结果可能刚被其他节点写入
+        String sharedResult = aiAnswerCache.peek(app.getId(), digest);
+        if (sharedResult != null) {
+            return sharedResult;
+        }
 
-            // 构造返回值
-            return getUserAnswerFromAiResult(app, result, appId, choicesJson);
-        } finally {
-            if (lock != null && lock.isLocked()) {
-                // 防止锁超时释放后，释放其他线程的锁
-                if (lock.isHeldByCurrentThread()) {
-                    lock.unlock();
-                }
-            }
+        // 根据 ID 获取到题目信息
+        Question question = questionService.getOne(new LambdaQueryWrapper<Question>().eq(Question::getAppId,
+                                                                                         app.getId()));
+        // 获取题目列表
+        List<QuestionContentDto> questions = JSONUtil.toList(question.getQuestionContent(),
+                                                             QuestionContentDto.class);
+        List<QuestionAnswerDto> answers = new ArrayList<>();
+        // 构建题目 - 答案列表
+        for (int i = 0; i < questions.size(); i++) {
+            // 获取问题 dto 及用户选项
+            QuestionContentDto questionDto = questions.get(i);
+            String choice = choices.get(i);
+            // 构建问题答案 dto
+            QuestionAnswerDto answerDto = new QuestionAnswerDto();
+            String userAnswer = questionDto.getOptions()
+                                           .stream()
+                                           .filter(o -> o.getKey()
+                                                         .equals(choice))
+                                           .findFirst()
+                                           .orElseThrow()
+                                           .getResult();
+            answerDto.setTitle(questionDto.getTitle());
+            answerDto.setUserAnswer(userAnswer);
+            answers.add(answerDto);
+        }
+        // 调用 AI 获取结果，输出格式错误时重新调用一次，避免缓存无法解析的结果
+        String result = requestResult(app, answers);
+        try {
+            aiOutputParser.parseObject(result, UserAnswer.class);
+        } catch (AiOutputParseException e) {
+            log.warn("AI 评分输出解析失败，重新调用，appId: {}, 原因: {}, 位置: {}",
+                     app.getId(),
+                     e.getReason(),
+                     e.getOffset());
+            result = requestResult(app, answers);
+            aiOutputParser.parseObject(result, UserAnswer.class);
         }
+
+        // 缓存结果，本地缓存与共享缓存
+        aiAnswerCache.put(app.getId(), digest, result);
+        return result;
+    }
+
+    /**
+     * 调用 AI 评分，开启合并时与同一应用的其他请求合并调用
+     */
+    private String requestResult(App app, List<QuestionAnswerDto> answers) {
+        if (aiScoringBatcher.isEnabled()) {
+            return aiAnswerCache.load(app.getId(), () -> aiScoringBatcher.score(app, answers));
+        }
+        String userScoringInput = prompts.userScoringInput(app.getAppName(),
+                                                           app.getAppDesc(),
+                                                           answers);
+        String systemPrompt = prompts.systemScoringPrompt();
+        return aiAnswerCache.load(app.getId(),
+                                  () -> aiManager.doSyncStableRequest(systemPrompt,
+                                                                      userScoringInput,
+                                                                      AiUseCase.SCORING,
+                                                                      app.getId()));
+    }
+
+    /**
+     * 等待其他节点的计算结果，超时或对方失败时返回 null
+     */
+    private String awaitRemote(String cacheKey, Long appId, String digest) throws Exception {
+        CompletableFuture<Void> waiter = remoteWaiters.computeIfAbsent(cacheKey, k -> new CompletableFuture<>());
+        // 注册后再检查一次共享缓存，避免在注册前已经错过通知
+        String sharedResult = aiAnswerCache.peek(appId, digest);
+        if (sharedResult != null) {
+            remoteWaiters.remove(cacheKey, waiter);
+            return sharedResult;
+        }
+        try {
+            waiter.get(LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            remoteWaiters.remove(cacheKey, waiter);
+            return null;
+        }
+        return aiAnswerCache.peek(appId, digest);
     }
 
-    private String buildCacheKey(Long appId, String choices) {
-        return appId + ":" + Arrays.toString(DigestUtil.md5(choices));
+    /**
+     * 等待本节点内正在进行的同一计算
+     */
+    private String await(CompletableFuture<String> future) throws Exception {
+        try {
+            return future.get(LOCK_LEASE_SECONDS * MAX_LOCK_ATTEMPTS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "AI 评分超时，请稍后重试");
+        }
     }
 }
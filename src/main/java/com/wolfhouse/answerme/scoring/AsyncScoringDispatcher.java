@@ -0,0 +1,362 @@
+package com.wolfhouse.answerme.scoring;
+
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.config.ScoringConfig;
+import com.wolfhouse.answerme.config.ThreadPoolConfig;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.mapper.UserAnswerMapper;
+import com.wolfhouse.answerme.model.entity.App;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.model.enums.ScoringStatusEnum;
+import com.wolfhouse.answerme.model.enums.ScoringStrategyEnum;
+import com.wolfhouse.answerme.service.AppService;
+import com.wolfhouse.answerme.sharding.UserAnswerResharder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步评分调度
+ * <p>
+ * 评分中的记录写入后，由本组件在后台线程池完成评分并回写结果。
+ * AI 评分与自定义评分使用不同的线程池，AI 线程池满时直接拒绝新的提交。
+ * <p>
+ * 评分任务只在内存队列中：关闭时先等待队列执行完（数据库与 AI 调用此时仍可用）；
+ * 崩溃或等待超时丢失的任务由定时扫描恢复，评分中且长时间未更新的记录重新提交评分，创建过久的置为评分失败，
+ * 轮询与订阅结果的客户端最终都能得到结果。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class AsyncScoringDispatcher {
+    private static final String POOL_CUSTOM = "custom";
+    private static final String POOL_AI = "ai";
+
+    /** 评分中记录扫描锁，同一时间只有一个节点扫描 */
+    private static final String SWEEP_LOCK_KEY = "user_answer_pending_sweep";
+
+    @Resource
+    private ScoringStrategyExecutor scoringStrategyExecutor;
+
+    @Resource
+    private UserAnswerMapper userAnswerMapper;
+
+    @Resource
+    private ScoringResultNotifier scoringResultNotifier;
+
+    @Resource
+    private UserAnswerResharder userAnswerResharder;
+
+    @Resource
+    private AppService appService;
+
+    @Resource
+    private ScoringConfig scoringConfig;
+
+    @Resource
+    private ThreadPoolConfig threadPoolConfig;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private ThreadPoolTaskExecutor asyncScoringTaskExecutor;
+
+    @Resource
+    private ThreadPoolTaskExecutor aiScoringTaskExecutor;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Timer customWaitTimer;
+    private Timer aiWaitTimer;
+    private Timer customExecuteTimer;
+    private Timer aiExecuteTimer;
+    private Counter aiRejectedCounter;
+    private Counter redispatchedCounter;
+    private Counter staleFailedCounter;
+
+    @PostConstruct
+    public void init() {
+        registerQueueGauge(POOL_CUSTOM, asyncScoringTaskExecutor);
+        registerQueueGauge(POOL_AI, aiScoringTaskExecutor);
+        customWaitTimer = waitTimer(POOL_CUSTOM);
+        aiWaitTimer = waitTimer(POOL_AI);
+        customExecuteTimer = executeTimer(POOL_CUSTOM);
+        aiExecuteTimer = executeTimer(POOL_AI);
+        aiRejectedCounter = Counter.builder("answerme.scoring.async.rejected")
+                                   .description("异步评分因队列已满被拒绝的次数")
+                                   .tag("pool", POOL_AI)
+                                   .register(meterRegistry);
+        redispatchedCounter = recoveredCounter("redispatched");
+        staleFailedCounter = recoveredCounter("failed");
+    }
+
+    /**
+     * 应用是否使用异步评分
+     *
+     * @param app 应用
+     * @return 是否异步
+     */
+    public boolean isAsync(App app) {
+        return scoringConfig.isAsync() || (scoringConfig.isAiAsync() && isAi(app));
+    }
+
+    /**
+     * 检查异步评分队列是否还能接收任务，已满时拒绝（写入评分中的记录前调用）
+     *
+     * @param app 应用
+     */
+    public void checkCapacity(App app) {
+        if (!hasCapacity(app)) {
+            aiRejectedCounter.increment();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "评分繁忙，请稍后重试");
+        }
+    }
+
+    private boolean hasCapacity(App app) {
+        return !isAi(app) || aiScoringTaskExecutor.getThreadPoolExecutor()
+                                                  .getQueue()
+                                                  .remainingCapacity() > 0;
+    }
+
+    /**
+     * 关闭前等待队列中的评分完成，本组件先于数据库等依赖销毁，此时评分结果仍能回写
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        ThreadPoolExecutor ai = aiScoringTaskExecutor.getThreadPoolExecutor();
+        ThreadPoolExecutor custom = asyncScoringTaskExecutor.getThreadPoolExecutor();
+        ai.shutdown();
+        custom.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(threadPoolConfig.getAsyncScoringShutdownTimeout());
+        boolean drained = ai.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) &&
+                          custom.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (!drained) {
+            log.warn("关闭时异步评分队列未执行完，剩余 AI 评分: {}，自定义评分: {}，由评分中记录扫描恢复",
+                     ai.getQueue()
+                       .size(),
+                     custom.getQueue()
+                           .size());
+        }
+    }
+
+    /**
+     * 恢复丢失评分任务的评分中记录
+     */
+    @Scheduled(fixedDelayString = "${custom.scoring.pending-sweep-interval:60000}")
+    public void recoverStalePending() {
+        if (!scoringConfig.isAsync() && !scoringConfig.isAiAsync()) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(SWEEP_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            recover();
+        } catch (RuntimeException e) {
+            log.error("评分中记录恢复失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 扫描一批长时间未更新的评分中记录，重新提交评分或置为评分失败
+     */
+    void recover() {
+        long now = System.currentTimeMillis();
+        Date failBefore = new Date(now - scoringConfig.getPendingFailAfter());
+        List<UserAnswer> stale = userAnswerMapper.selectList(
+            Wrappers.lambdaQuery(UserAnswer.class)
+                    .eq(UserAnswer::getScoringStatus, ScoringStatusEnum.PENDING.getValue())
+                    .lt(UserAnswer::getUpdateTime, new Date(now - scoringConfig.getPendingRedispatchAfter()))
+                    .orderByAsc(UserAnswer::getUpdateTime)
+                    .last("limit " + scoringConfig.getPendingSweepBatchSize()));
+        for (UserAnswer userAnswer : stale) {
+            App app = appService.getById(userAnswer.getAppId());
+            if (app == null || userAnswer.getCreateTime()
+                                         .before(failBefore)) {
+                failStale(userAnswer);
+                continue;
+            }
+            if (!hasCapacity(app)) {
+                // 队列已满，下次扫描再提交
+                return;
+            }
+            // 以更新时间为条件认领，已完成或已被认领的记录跳过；认领后更新时间刷新，下个周期内不会重复提交
+            if (!claim(userAnswer)) {
+                continue;
+            }
+            log.warn("评分中记录长时间未完成，重新提交评分，id: {}", userAnswer.getId());
+            try {
+                dispatch(userAnswer.getId(), app, JSONUtil.toList(userAnswer.getChoices(), String.class));
+                redispatchedCounter.increment();
+            } catch (BusinessException e) {
+                // 并发提交占满队列，记录已置为评分失败
+                scoringResultNotifier.notifyScored(userAnswer.getId());
+                return;
+            }
+        }
+    }
+
+    private boolean claim(UserAnswer userAnswer) {
+        int updated = userAnswerMapper.update(null,
+                                              Wrappers.lambdaUpdate(UserAnswer.class)
+                                                      .set(UserAnswer::getUpdateTime, new Date())
+                                                      .eq(UserAnswer::getId, userAnswer.getId())
+                                                      .eq(UserAnswer::getAppId, userAnswer.getAppId())
+                                                      .eq(UserAnswer::getScoringStatus,
+                                                          ScoringStatusEnum.PENDING.getValue())
+                                                      .eq(UserAnswer::getUpdateTime, userAnswer.getUpdateTime()));
+        if (updated > 0) {
+            userAnswerResharder.sync(userAnswer.getId(), userAnswer.getAppId());
+        }
+        return updated > 0;
+    }
+
+    /**
+     * 置为评分失败（仍为评分中时），并通知等待结果的客户端
+     */
+    private void failStale(UserAnswer userAnswer) {
+        log.warn("评分中记录超时未完成，置为评分失败，id: {}", userAnswer.getId());
+        int updated = userAnswerMapper.update(failed(),
+                                              Wrappers.lambdaUpdate(UserAnswer.class)
+                                                      .eq(UserAnswer::getId, userAnswer.getId())
+                                                      .eq(UserAnswer::getAppId, userAnswer.getAppId())
+                                                      .eq(UserAnswer::getScoringStatus,
+                                                          ScoringStatusEnum.PENDING.getValue()));
+        if (updated > 0) {
+            staleFailedCounter.increment();
+            userAnswerResharder.sync(userAnswer.getId(), userAnswer.getAppId());
+            scoringResultNotifier.notifyScored(userAnswer.getId());
+        }
+    }
+
+    /**
+     * 提交评分中的用户答案，由后台线程完成评分
+     *
+     * @param id      用户答案 id
+     * @param app     应用
+     * @param choices 用户答案
+     */
+    public void dispatch(Long id, App app, List<String> choices) {
+        boolean ai = isAi(app);
+        ThreadPoolTaskExecutor executor = ai ? aiScoringTaskExecutor : asyncScoringTaskExecutor;
+        Timer waitTimer = ai ? aiWaitTimer : customWaitTimer;
+        Timer executeTimer = ai ? aiExecuteTimer : customExecuteTimer;
+        long enqueueTime = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - enqueueTime, TimeUnit.NANOSECONDS);
+                executeTimer.record(() -> complete(id, app, choices));
+            });
+        } catch (RejectedExecutionException e) {
+            // 检查容量后仍被拒绝（并发提交），将记录置为评分失败
+            aiRejectedCounter.increment();
+            updateResult(id, app.getId(), failed());
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "评分繁忙，请稍后重试");
+        }
+    }
+
+    /**
+     * 完成评分中的用户答案
+     *
+     * @param id      用户答案 id
+     * @param app     应用
+     * @param choices 用户答案
+     */
+    private void complete(Long id, App app, List<String> choices) {
+        UserAnswer userAnswer;
+        try {
+            userAnswer = scoringStrategyExecutor.doScore(choices, app);
+            ThrowUtils.throwIf(userAnswer == null, ErrorCode.SYSTEM_ERROR, "评分错误");
+            userAnswer.setScoringStatus(ScoringStatusEnum.SUCCEED.getValue());
+        } catch (Exception e) {
+            log.error("异步评分失败，id: {}", id, e);
+            userAnswer = failed();
+        }
+        updateResult(id, app.getId(), userAnswer);
+        // 通知等待结果的客户端
+        scoringResultNotifier.notifyScored(id);
+    }
+
+    /**
+     * 回写评分结果
+     */
+    private void updateResult(Long id, Long appId, UserAnswer userAnswer) {
+        // 不更新 AppID 与答案，防止分表分片值更新；以 appId 作为条件，只路由到一张分表
+        userAnswer.setId(null);
+        userAnswer.setAppId(null);
+        userAnswer.setChoices(null);
+        userAnswerMapper.update(userAnswer,
+                                Wrappers.lambdaUpdate(UserAnswer.class)
+                                        .eq(UserAnswer::getId, id)
+                                        .eq(UserAnswer::getAppId, appId));
+        userAnswerResharder.sync(id, appId);
+    }
+
+    private UserAnswer failed() {
+        UserAnswer userAnswer = new UserAnswer();
+        userAnswer.setScoringStatus(ScoringStatusEnum.FAILED.getValue());
+        return userAnswer;
+    }
+
+    private boolean isAi(App app) {
+        return app.getScoringStrategy() != null &&
+               app.getScoringStrategy() == ScoringStrategyEnum.AI.getValue();
+    }
+
+    private void registerQueueGauge(String pool, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("answerme.scoring.async.queue",
+                      executor,
+                      e -> e.getThreadPoolExecutor()
+                            .getQueue()
+                            .size())
+             .description("异步评分队列中等待的任务数")
+             .tag("pool", pool)
+             .register(meterRegistry);
+    }
+
+    private Timer waitTimer(String pool) {
+        return Timer.builder("answerme.scoring.async.wait")
+                    .description("异步评分任务排队等待时间")
+                    .tag("pool", pool)
+                    .register(meterRegistry);
+    }
+
+    private Counter recoveredCounter(String action) {
+        return Counter.builder("answerme.scoring.async.recovered")
+                      .description("评分任务丢失的评分中记录被扫描恢复的次数（redispatched 重新评分，failed 置为评分失败）")
+                      .tag("action", action)
+                      .register(meterRegistry);
+    }
+
+    private Timer executeTimer(String pool) {
+        return Timer.builder("answerme.scoring.async.execute")
+                    .description("异步评分任务执行时间（ai 线程池即 AI 评分耗时）")
+                    .tag("pool", pool)
+                    .register(meterRegistry);
+    }
+}
@@ -0,0 +1,171 @@
+package com.wolfhouse.answerme.scoring;
+
+import com.wolfhouse.answerme.config.ScoringConfig;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.model.enums.ScoringStatusEnum;
+import com.wolfhouse.answerme.model.vo.UserAnswerVO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 评分结果通知
+ * <p>
+ * 异步评分完成后通过 Redis 主题广播用户答案 id，
+ * 任意节点上等待该结果的 SSE 连接收到通知后推送最新结果并关闭。
+ * 评分任务丢失的记录由 {@link AsyncScoringDispatcher} 扫描恢复，重新评分完成或置为评分失败时同样广播，等待的连接不会一直挂起。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class ScoringResultNotifier {
+    /** 评分完成广播主题 */
+    private static final String SCORED_TOPIC = "user_answer_scored";
+
+    /** SSE 推送的事件名 */
+    private static final String RESULT_EVENT = "result";
+
+    /** 用户答案 id -> 等待结果的 SSE 连接 */
+    private final Map<Long, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    /** 当前打开的 SSE 连接数 */
+    private final AtomicInteger openEmitters = new AtomicInteger();
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private ScoringConfig scoringConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private RTopic scoredTopic;
+
+    @PostConstruct
+    public void init() {
+        scoredTopic = redissonClient.getTopic(SCORED_TOPIC);
+        scoredTopic.addListener(Long.class, (channel, id) -> onScored(id));
+        Gauge.builder("answerme.scoring.result.sse.open", openEmitters, AtomicInteger::get)
+             .description("等待评分结果的 SSE 连接数")
+             .register(meterRegistry);
+    }
+
+    /**
+     * 广播评分完成
+     *
+     * @param id 用户答案 id
+     */
+    public void notifyScored(Long id) {
+        scoredTopic.publish(id);
+    }
+
+    /**
+     * 订阅评分结果
+     *
+     * @param id     用户答案 id
+     * @param loader 加载最新用户答案
+     * @return SSE 连接，评分完成后推送一次结果并关闭
+     */
+    public SseEmitter subscribe(Long id, Supplier<UserAnswer> loader) {
+        SseEmitter emitter = new SseEmitter(scoringConfig.getResultSseTimeout());
+        Subscription subscription = new Subscription(emitter, loader);
+        openEmitters.incrementAndGet();
+        Runnable cleanup = () -> {
+            if (removeSubscription(id, subscription)) {
+                openEmitters.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+        subscriptions.compute(id, (k, list) -> {
+            List<Subscription> waiting = list == null ? new CopyOnWriteArrayList<>() : list;
+            waiting.add(subscription);
+            return waiting;
+        });
+
+        // 注册后再检查一次，避免在注册前已经评分完成而错过通知
+        UserAnswer current = loader.get();
+        if (current == null || !isPending(current)) {
+            if (removeSubscription(id, subscription)) {
+                openEmitters.decrementAndGet();
+                send(emitter, current);
+            }
+        }
+        return emitter;
+    }
+
+    private void onScored(Long id) {
+        List<Subscription> waiting = subscriptions.remove(id);
+        if (waiting == null || waiting.isEmpty()) {
+            return;
+        }
+        openEmitters.addAndGet(-waiting.size());
+        // 同一答案的所有连接共享一次加载
+        UserAnswer userAnswer = waiting.get(0).loader.get();
+        for (Subscription subscription : waiting) {
+            send(subscription.emitter, userAnswer);
+        }
+    }
+
+    private void send(SseEmitter emitter, UserAnswer userAnswer) {
+        try {
+            if (userAnswer != null) {
+                emitter.send(SseEmitter.event()
+                                       .name(RESULT_EVENT)
+                                       .data(UserAnswerVO.objToVo(userAnswer)));
+            }
+            emitter.complete();
+        } catch (IOException e) {
+            // 客户端已断开
+            log.debug("评分结果推送失败: {}", e.getMessage());
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // 连接已超时或已关闭
+            log.debug("评分结果推送失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean removeSubscription(Long id, Subscription subscription) {
+        boolean[] removed = {false};
+        subscriptions.computeIfPresent(id, (k, list) -> {
+            removed[0] = list.remove(subscription);
+            return list.isEmpty() ? null : list;
+        });
+        return removed[0];
+    }
+
+    private boolean isPending(UserAnswer userAnswer) {
+        return userAnswer.getScoringStatus() != null &&
+               userAnswer.getScoringStatus() == ScoringStatusEnum.PENDING.getValue();
+    }
+
+    /**
+     * 等待结果的 SSE 连接
+     */
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private final Supplier<UserAnswer> loader;
+
+        private Subscription(SseEmitter emitter, Supplier<UserAnswer> loader) {
+            this.emitter = emitter;
+            this.loader = loader;
+        }
+    }
+}
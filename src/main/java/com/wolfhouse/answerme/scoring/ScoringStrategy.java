@@ -3,6 +3,7 @@ package com.wolfhouse.answerme.scoring;
 import com.wolfhouse.answerme.model.entity.App;
 import com.wolfhouse.answerme.model.entity.UserAnswer;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,4 +22,22 @@ public interface ScoringStrategy {
      * @throws Exception
      */
     UserAnswer doScore(List<String> choices, App app) throws Exception;
+
+    /**
+     * 批量执行评分
+     * <p>
+     * 默认逐份调用 {@link #doScore(List, App)}，可加载一次题目与结果的策略应覆盖此方法
+     *
+     * @param choicesList 多份用户答案
+     * @param app         应用
+     * @return 与 choicesList 顺序一致的评分结果
+     * @throws Exception
+     */
+    default List<UserAnswer> doScoreBatch(List<List<String>> choicesList, App app) throws Exception {
+        List<UserAnswer> userAnswers = new ArrayList<>(choicesList.size());
+        for (List<String> choices : choicesList) {
+            userAnswers.add(doScore(choices, app));
+        }
+        return userAnswers;
+    }
 }
@@ -4,21 +4,106 @@ import com.wolfhouse.answerme.common.ErrorCode;
 import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.model.entity.App;
 import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.model.enums.AppTypeEnum;
+import com.wolfhouse.answerme.model.enums.ScoringStrategyEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Rylin Wolf
  */
+@Slf4j
 @Service
 public class ScoringStrategyExecutor {
+    /** 批量评分时每个子任务处理的答案数 */
+    private static final int BATCH_CHUNK_SIZE = 200;
 
     /** 策略列表 */
     @Resource
     private List<ScoringStrategy> scoringStrategyList;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private ThreadPoolTaskExecutor scoringTaskExecutor;
+
+    /**
+     * 策略分派表，下标为 [应用类型][评分策略]，启动后只读
+     */
+    private StrategyEntry[][] strategyTable;
+
+    /**
+     * 启动时根据注解构建策略分派表
+     * <p>
+     * 注册的应用类型或评分策略不在枚举内、或同一组合重复注册时启动失败
+     */
+    @PostConstruct
+    public void init() {
+        List<Integer> appTypes = AppTypeEnum.getValues();
+        List<Integer> scoringStrategies = ScoringStrategyEnum.getValues();
+        int appTypeSize = appTypes.stream()
+                                  .mapToInt(Integer::intValue)
+                                  .max()
+                                  .orElse(-1) + 1;
+        int scoringStrategySize = scoringStrategies.stream()
+                                                   .mapToInt(Integer::intValue)
+                                                   .max()
+                                                   .orElse(-1) + 1;
+        StrategyEntry[][] table = new StrategyEntry[appTypeSize][scoringStrategySize];
+
+        for (ScoringStrategy strategy : scoringStrategyList) {
+            // 获取被代理前的原始类，避免 CGLIB 代理类丢失注解
+            Class<?> targetClass = AopUtils.getTargetClass(strategy);
+            ScoringStrategyConfig config = AnnotationUtils.findAnnotation(targetClass, ScoringStrategyConfig.class);
+            if (config == null) {
+                throw new IllegalStateException("评分策略未配置 @ScoringStrategyConfig：" + targetClass.getName());
+            }
+            int appType = config.appType();
+            int scoringStrategy = config.scoringStrategy();
+            if (!appTypes.contains(appType) || !scoringStrategies.contains(scoringStrategy)) {
+                throw new IllegalStateException(String.format("评分策略 %s 配置了未知的应用类型 %d 或评分策略 %d",
+                                                              targetClass.getName(),
+                                                              appType,
+                                                              scoringStrategy));
+            }
+            StrategyEntry existing = table[appType][scoringStrategy];
+            if (existing != null) {
+                throw new IllegalStateException(String.format("评分策略重复注册：%s 与 %s",
+                                                              existing.name,
+                                                              targetClass.getName()));
+            }
+            table[appType][scoringStrategy] = new StrategyEntry(strategy,
+                                                                targetClass.getSimpleName(),
+                                                                appType,
+                                                                scoringStrategy,
+                                                                meterRegistry);
+        }
+
+        // 未注册的组合仅提示，请求到达时按配置有误处理
+        for (int appType : appTypes) {
+            for (int scoringStrategy : scoringStrategies) {
+                if (table[appType][scoringStrategy] == null) {
+                    log.warn("应用类型 {} 与评分策略 {} 未注册评分策略", appType, scoringStrategy);
+                }
+            }
+        }
+        this.strategyTable = table;
+    }
 
     /**
      * 评分
@@ -29,23 +114,116 @@ public class ScoringStrategyExecutor {
      * @throws Exception
      */
     public UserAnswer doScore(List<String> choiceList, App app) throws Exception {
+        StrategyEntry entry = getEntry(app);
+        long start = System.nanoTime();
+        try {
+            return entry.strategy.doScore(choiceList, app);
+        } catch (Exception e) {
+            entry.errorCounter.increment();
+            throw e;
+        } finally {
+            entry.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 批量评分
+     * <p>
+     * 按 {@link #BATCH_CHUNK_SIZE} 切分后在评分线程池中并行执行，结果顺序与入参一致
+     *
+     * @param choicesList 多份用户答案
+     * @param app         应用
+     * @return 评分结果
+     * @throws Exception
+     */
+    public List<UserAnswer> doScoreBatch(List<List<String>> choicesList, App app) throws Exception {
+        StrategyEntry entry = getEntry(app);
+        int size = choicesList.size();
+        List<CompletableFuture<List<UserAnswer>>> futures = new ArrayList<>();
+        for (int from = 0; from < size; from += BATCH_CHUNK_SIZE) {
+            List<List<String>> chunk = choicesList.subList(from, Math.min(from + BATCH_CHUNK_SIZE, size));
+            futures.add(CompletableFuture.supplyAsync(() -> doScoreChunk(entry, chunk, app), scoringTaskExecutor));
+        }
+        List<UserAnswer> userAnswers = new ArrayList<>(size);
+        try {
+            for (CompletableFuture<List<UserAnswer>> future : futures) {
+                userAnswers.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            // 还原子任务中的原始异常
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        return userAnswers;
+    }
+
+    private List<UserAnswer> doScoreChunk(StrategyEntry entry, List<List<String>> chunk, App app) {
+        long start = System.nanoTime();
+        try {
+            return entry.strategy.doScoreBatch(chunk, app);
+        } catch (Exception e) {
+            entry.errorCounter.increment();
+            throw new CompletionException(e);
+        } finally {
+            entry.batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private StrategyEntry getEntry(App app) {
         Integer appType = app.getAppType();
         Integer appScoringStrategy = app.getScoringStrategy();
-        if (appType == null || appScoringStrategy == null) {
+        if (appType == null || appScoringStrategy == null ||
+            appType < 0 || appType >= strategyTable.length ||
+            appScoringStrategy < 0 || appScoringStrategy >= strategyTable[appType].length) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用配置有误，未找到匹配的策略");
         }
-        // 根据注解获取策略
-        for (ScoringStrategy strategy : scoringStrategyList) {
-            if (strategy.getClass()
-                        .isAnnotationPresent(ScoringStrategyConfig.class)) {
-                ScoringStrategyConfig scoringStrategyConfig = strategy.getClass()
-                                                                      .getAnnotation(ScoringStrategyConfig.class);
-                if (scoringStrategyConfig.appType() == appType &&
-                    scoringStrategyConfig.scoringStrategy() == appScoringStrategy) {
-                    return strategy.doScore(choiceList, app);
-                }
-            }
+        StrategyEntry entry = strategyTable[appType][appScoringStrategy];
+        if (entry == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用配置有误，未找到匹配的策略");
+        }
+        return entry;
+    }
+
+    /**
+     * 分派表项：策略及其调用指标
+     */
+    private static final class StrategyEntry {
+        private final ScoringStrategy strategy;
+        private final String name;
+        /** 调用耗时（计数即调用次数） */
+        private final Timer timer;
+        /** 批量调用耗时（按子任务计） */
+        private final Timer batchTimer;
+        /** 调用失败次数 */
+        private final Counter errorCounter;
+
+        private StrategyEntry(ScoringStrategy strategy,
+                              String name,
+                              int appType,
+                              int scoringStrategy,
+                              MeterRegistry registry) {
+            this.strategy = strategy;
+            this.name = name;
+            this.timer = Timer.builder("answerme.scoring.strategy")
+                              .description("评分策略调用耗时")
+                              .tag("strategy", name)
+                              .tag("appType", String.valueOf(appType))
+                              .tag("scoringStrategy", String.valueOf(scoringStrategy))
+                              .register(registry);
+            this.batchTimer = Timer.builder("answerme.scoring.strategy.batch")
+                                   .description("评分策略批量调用耗时")
+                                   .tag("strategy", name)
+                                   .tag("appType", String.valueOf(appType))
+                                   .tag("scoringStrategy", String.valueOf(scoringStrategy))
+                                   .register(registry);
+            this.errorCounter = Counter.builder("answerme.scoring.strategy.errors")
+                                       .description("评分策略调用失败次数")
+                                       .tag("strategy", name)
+                                       .tag("appType", String.valueOf(appType))
+                                       .tag("scoringStrategy", String.valueOf(scoringStrategy))
+                                       .register(registry);
         }
-        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "应用配置有误，未找到匹配的策略");
     }
 }
@@ -0,0 +1,180 @@
+package com.wolfhouse.answerme.scoring.model;
+
+import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
+import com.wolfhouse.answerme.model.entity.ScoringResult;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的应用评分模型
+ * <p>
+ * 由题目与评分结果编译而来，构建完成后只读，可在多线程间共享。
+ * 评分时不再访问数据库，也不再解析题目 JSON。
+ * 同时包含得分类应用使用的分数表与测评类应用使用的 {@link CompiledTestEvaluator}。
+ *
+ * @author Rylin Wolf
+ */
+@Getter
+public class CompiledScoringModel {
+    /** 应用 id */
+    private final Long appId;
+
+    /** 模型版本，每次编译递增 */
+    private final long version;
+
+    /** 题目数 */
+    private final int questionCount;
+
+    /**
+     * 选项 key -> 各题该选项的得分（按题目下标）
+     * <p>
+     * 题目中不存在该选项时得分为 0
+     */
+    private final Map<String, int[]> optionScores;
+
+    /** 得分阈值（升序） */
+    private final int[] scoreThresholds;
+
+    /** 与得分阈值一一对应的评分结果 */
+    private final ScoringResult[] thresholdResults;
+
+    /** 未命中任何阈值时使用的结果（分数范围最高的结果） */
+    private final ScoringResult defaultResult;
+
+    /** 测评类结果计算器 */
+    private final CompiledTestEvaluator testEvaluator;
+
+    private CompiledScoringModel(Long appId,
+                                 long version,
+                                 int questionCount,
+                                 Map<String, int[]> optionScores,
+                                 int[] scoreThresholds,
+                                 ScoringResult[] thresholdResults,
+                                 ScoringResult defaultResult,
+                                 CompiledTestEvaluator testEvaluator) {
+        this.appId = appId;
+        this.version = version;
+        this.questionCount = questionCount;
+        this.optionScores = optionScores;
+        this.scoreThresholds = scoreThresholds;
+        this.thresholdResults = thresholdResults;
+        this.defaultResult = defaultResult;
+        this.testEvaluator = testEvaluator;
+    }
+
+    /**
+     * 编译评分模型
+     *
+     * @param appId          应用 id
+     * @param version        模型版本
+     * @param questions      题目列表
+     * @param scoringResults 评分结果列表（保持查询顺序）
+     * @return 编译后的模型
+     */
+    public static CompiledScoringModel compile(Long appId,
+                                               long version,
+                                               List<QuestionContentDto> questions,
+                                               List<ScoringResult> scoringResults) {
+        int questionCount = questions.size();
+
+        // 1. 选项 key -> 各题得分
+        Map<String, int[]> optionScores = new HashMap<>();
+        for (int i = 0; i < questionCount; i++) {
+            List<QuestionContentDto.Option> options = questions.get(i)
+                                                               .getOptions();
+            if (options == null) {
+                continue;
+            }
+            // 同一题目中 key 重复时，以第一个选项为准
+            Set<String> seen = new HashSet<>();
+            for (QuestionContentDto.Option option : options) {
+                String key = option.getKey();
+                if (key == null || !seen.add(key)) {
+                    continue;
+                }
+                int[] scores = optionScores.computeIfAbsent(key, k -> new int[questionCount]);
+                scores[i] = option.getScore() == null ? 0 : option.getScore();
+            }
+        }
+
+        // 2. 按分数范围从高到低排序（稳定排序，相同分数保持原顺序），忽略未设置分数范围的结果
+        List<ScoringResult> ranged = new ArrayList<>();
+        for (ScoringResult result : scoringResults) {
+            if (result.getResultScoreRange() != null) {
+                ranged.add(result);
+            }
+        }
+        ranged.sort(Comparator.comparing(ScoringResult::getResultScoreRange)
+                              .reversed());
+
+        // 3. 反转为升序数组，相同阈值时原顺序靠前的结果位于右侧，二分查找时优先命中
+        int n = ranged.size();
+        int[] thresholds = new int[n];
+        ScoringResult[] results = new ScoringResult[n];
+        for (int i = 0; i < n; i++) {
+            ScoringResult result = ranged.get(n - 1 - i);
+            thresholds[i] = result.getResultScoreRange();
+            results[i] = result;
+        }
+        ScoringResult defaultResult = n > 0 ? ranged.get(0) :
+                                      (scoringResults.isEmpty() ? null : scoringResults.get(0));
+
+        return new CompiledScoringModel(appId,
+                                        version,
+                                        questionCount,
+                                        optionScores,
+                                        thresholds,
+                                        results,
+                                        defaultResult,
+                                        CompiledTestEvaluator.compile(questions, scoringResults));
+    }
+
+    /**
+     * 计算用户总得分
+     *
+     * @param choices 用户选项
+     * @return 总得分
+     */
+    public int totalScore(List<String> choices) {
+        int totalScore = 0;
+        // 确保答案列表和题目列表数量一致
+        int size = Math.min(choices.size(), questionCount);
+        for (int i = 0; i < size; i++) {
+            int[] scores = optionScores.get(choices.get(i));
+            if (scores != null) {
+                totalScore += scores[i];
+            }
+        }
+        return totalScore;
+    }
+
+    /**
+     * 根据得分匹配评分结果：分数范围不超过得分的最高结果，未命中时返回默认结果
+     *
+     * @param totalScore 总得分
+     * @return 评分结果
+     */
+    public ScoringResult matchByScore(int totalScore) {
+        // 二分查找最后一个 <= totalScore 的阈值
+        int low = 0;
+        int high = scoreThresholds.length - 1;
+        int index = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (scoreThresholds[mid] <= totalScore) {
+                index = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return index >= 0 ? thresholdResults[index] : defaultResult;
+    }
+}
@@ -0,0 +1,158 @@
+package com.wolfhouse.answerme.scoring.model;
+
+import cn.hutool.json.JSONUtil;
+import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
+import com.wolfhouse.answerme.model.entity.ScoringResult;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的测评类结果计算器
+ * <p>
+ * 属性名在编译时被映射为从 0 开始的整数 id，
+ * 评分时只在线程私有的 int 数组上计数，预热后不再产生任何对象分配。
+ * 计算结果与原算法一致：取属性命中数最高的结果，分数相同时取靠前的结果，全部为 0 时取第一个结果。
+ *
+ * @author Rylin Wolf
+ */
+public class CompiledTestEvaluator {
+    /** 无属性 */
+    private static final int NO_PROP = -1;
+
+    /** 线程私有的计数数组 */
+    private static final ThreadLocal<int[]> COUNT_BUFFER = ThreadLocal.withInitial(() -> new int[16]);
+
+    /** 题目数 */
+    private final int questionCount;
+
+    /** 属性数 */
+    private final int propCount;
+
+    /** 选项 key -> 各题该选项对应的属性 id（按题目下标），不存在时为 -1 */
+    private final Map<String, int[]> optionPropIds;
+
+    /** 各评分结果包含的属性 id */
+    private final int[][] resultPropIds;
+
+    /** 评分结果，与 resultPropIds 一一对应 */
+    private final ScoringResult[] results;
+
+    private CompiledTestEvaluator(int questionCount,
+                                  int propCount,
+                                  Map<String, int[]> optionPropIds,
+                                  int[][] resultPropIds,
+                                  ScoringResult[] results) {
+        this.questionCount = questionCount;
+        this.propCount = propCount;
+        this.optionPropIds = optionPropIds;
+        this.resultPropIds = resultPropIds;
+        this.results = results;
+    }
+
+    /**
+     * 编译计算器
+     *
+     * @param questions      题目列表
+     * @param scoringResults 评分结果列表（保持查询顺序）
+     * @return 计算器
+     */
+    public static CompiledTestEvaluator compile(List<QuestionContentDto> questions,
+                                                List<ScoringResult> scoringResults) {
+        int questionCount = questions.size();
+        // 属性名 -> 属性 id
+        Map<String, Integer> propIds = new HashMap<>();
+
+        // 1. 选项 key -> 各题属性 id
+        Map<String, int[]> optionPropIds = new HashMap<>();
+        for (int i = 0; i < questionCount; i++) {
+            List<QuestionContentDto.Option> options = questions.get(i)
+                                                               .getOptions();
+            if (options == null) {
+                continue;
+            }
+            // 同一题目中 key 重复时，以第一个选项为准
+            Set<String> seen = new HashSet<>();
+            for (QuestionContentDto.Option option : options) {
+                String key = option.getKey();
+                if (key == null || !seen.add(key) || option.getResult() == null) {
+                    continue;
+                }
+                int[] ids = optionPropIds.computeIfAbsent(key, k -> newPropIdArray(questionCount));
+                ids[i] = propIds.computeIfAbsent(option.getResult(), p -> propIds.size());
+            }
+        }
+
+        // 2. 各评分结果的属性 id
+        int resultCount = scoringResults.size();
+        int[][] resultPropIds = new int[resultCount][];
+        ScoringResult[] results = new ScoringResult[resultCount];
+        for (int i = 0; i < resultCount; i++) {
+            ScoringResult result = scoringResults.get(i);
+            List<String> props = result.getResultProp() == null ?
+                                 List.of() :
+                                 JSONUtil.toList(result.getResultProp(), String.class);
+            int[] ids = new int[props.size()];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = propIds.computeIfAbsent(props.get(j), p -> propIds.size());
+            }
+            resultPropIds[i] = ids;
+            results[i] = result;
+        }
+
+        return new CompiledTestEvaluator(questionCount, propIds.size(), optionPropIds, resultPropIds, results);
+    }
+
+    private static int[] newPropIdArray(int questionCount) {
+        int[] ids = new int[questionCount];
+        Arrays.fill(ids, NO_PROP);
+        return ids;
+    }
+
+    /**
+     * 计算测评结果
+     *
+     * @param choices 用户选项
+     * @return 属性命中数最高的评分结果
+     */
+    public ScoringResult evaluate(List<String> choices) {
+        if (results.length == 0) {
+            return null;
+        }
+        int[] counts = COUNT_BUFFER.get();
+        if (counts.length < propCount) {
+            counts = new int[propCount];
+            COUNT_BUFFER.set(counts);
+        } else {
+            Arrays.fill(counts, 0, propCount, 0);
+        }
+
+        // 1. 统计用户每个选择对应的属性个数
+        int size = Math.min(choices.size(), questionCount);
+        for (int i = 0; i < size; i++) {
+            int[] ids = optionPropIds.get(choices.get(i));
+            if (ids != null && ids[i] != NO_PROP) {
+                counts[ids[i]]++;
+            }
+        }
+
+        // 2. 计算每个结果的分数，严格大于时才更新，保证同分时取靠前的结果
+        int maxScore = 0;
+        int maxIndex = 0;
+        for (int i = 0; i < resultPropIds.length; i++) {
+            int score = 0;
+            for (int propId : resultPropIds[i]) {
+                score += counts[propId];
+            }
+            if (score > maxScore) {
+                maxScore = score;
+                maxIndex = i;
+            }
+        }
+        return results[maxIndex];
+    }
+}
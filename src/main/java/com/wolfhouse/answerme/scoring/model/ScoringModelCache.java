@@ -0,0 +1,157 @@
+package com.wolfhouse.answerme.scoring.model;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
+import com.wolfhouse.answerme.model.entity.Question;
+import com.wolfhouse.answerme.model.entity.ScoringResult;
+import com.wolfhouse.answerme.model.vo.QuestionVO;
+import com.wolfhouse.answerme.scoring.AiAnswerCache;
+import com.wolfhouse.answerme.service.QuestionService;
+import com.wolfhouse.answerme.service.ScoringResultService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 应用评分模型缓存
+ * <p>
+ * 每个应用的题目与评分结果只在首次评分时加载并编译一次，
+ * 题目或评分结果变更时通过 {@link #invalidate(Long)} 失效，并广播到集群内其他节点。
+ * <p>
+ * 模型版本在加载数据前分配，失效时记录失效版本；编译期间发生失效的模型可能读到旧数据，
+ * 不会被继续使用，而是重新编译。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class ScoringModelCache {
+    /** 模型失效广播主题 */
+    private static final String INVALIDATE_TOPIC = "scoring_model_invalidate";
+
+    /** 模型版本与失效版本共用的序列 */
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /** 应用 id -> 最近一次失效时的版本，保留时间不短于模型缓存的过期时间 */
+    private final Cache<Long, Long> invalidatedVersions =
+        Caffeine.newBuilder()
+                .maximumSize(4096)
+                .expireAfterWrite(1L, TimeUnit.HOURS)
+                .build();
+
+    /**
+     * 编译后的评分模型，以应用 id 为键
+     */
+    private final Cache<Long, CompiledScoringModel> modelCache =
+        Caffeine.newBuilder()
+                .initialCapacity(256)
+                .maximumSize(4096)
+                // 兜底过期，防止失效广播丢失后长期使用旧模型
+                .expireAfterWrite(1L, TimeUnit.HOURS)
+                .build();
+
+    @Resource
+    private QuestionService questionService;
+
+    @Resource
+    private ScoringResultService scoringResultService;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private AiAnswerCache aiAnswerCache;
+
+    private RTopic invalidateTopic;
+
+    @PostConstruct
+    public void init() {
+        invalidateTopic = redissonClient.getTopic(INVALIDATE_TOPIC);
+        // 接收其他节点（包括本节点）的失效通知
+        invalidateTopic.addListener(Long.class, (channel, appId) -> {
+            invalidateLocal(appId);
+            aiAnswerCache.invalidateLocal(appId);
+        });
+    }
+
+    /**
+     * 获取应用的评分模型，不存在时加载并编译
+     *
+     * @param appId 应用 id
+     * @return 评分模型
+     */
+    public CompiledScoringModel getModel(Long appId) {
+        CompiledScoringModel model = modelCache.get(appId, this::compile);
+        while (isStale(model)) {
+            // 编译期间应用被失效，移除该模型（其他线程可能已替换为新模型）后重新获取
+            modelCache.asMap()
+                      .remove(appId, model);
+            model = modelCache.get(appId, this::compile);
+        }
+        return model;
+    }
+
+    /**
+     * 使应用的评分模型及 AI 评分结果缓存失效（题目或评分结果变更后调用）
+     *
+     * @param appId 应用 id
+     */
+    public void invalidate(Long appId) {
+        if (appId == null) {
+            return;
+        }
+        invalidateLocal(appId);
+        aiAnswerCache.invalidate(appId);
+        invalidateTopic.publish(appId);
+    }
+
+    private void invalidateLocal(Long appId) {
+        // 先记录失效版本再移除，正在编译的旧模型写入缓存后也会被识别
+        invalidatedVersions.put(appId, versionSequence.incrementAndGet());
+        modelCache.invalidate(appId);
+    }
+
+    private boolean isStale(CompiledScoringModel model) {
+        Long invalidatedVersion = invalidatedVersions.getIfPresent(model.getAppId());
+        return invalidatedVersion != null && invalidatedVersion > model.getVersion();
+    }
+
+    private CompiledScoringModel compile(Long appId) {
+        // 版本在查询前分配，查询后发生的失效一定大于该版本
+        long version = versionSequence.incrementAndGet();
+        // 根据 ID 查询题目和题目结果信息
+        Question question = questionService.getOne(
+            Wrappers.lambdaQuery(Question.class)
+                    .eq(Question::getAppId, appId));
+        if (question == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "应用题目不存在");
+        }
+        List<ScoringResult> scoringResults = scoringResultService.list(
+            new LambdaQueryWrapper<>(ScoringResult.class)
+                .eq(ScoringResult::getAppId, appId));
+        if (scoringResults.isEmpty()) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "应用评分结果不存在");
+        }
+        List<QuestionContentDto> questionContent = QuestionVO.objToVo(question)
+                                                             .getQuestionContent();
+
+        CompiledScoringModel model = CompiledScoringModel.compile(appId,
+                                                                  version,
+                                                                  questionContent,
+                                                                  scoringResults);
+        log.info("评分模型编译完成，appId: {}, version: {}", appId, model.getVersion());
+        return model;
+    }
+}
@@ -0,0 +1,56 @@
+package com.wolfhouse.answerme.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.model.entity.UserAnswerIndex;
+
+import java.util.List;
+
+/**
+ * 用户答题记录索引服务
+ * <p>
+ * 答题记录按 appId 分表，按用户查询时先从索引表（不分表）取得 (appId, id)，再只查询对应的分表
+ *
+ * @author Rylin Wolf
+ */
+public interface UserAnswerIndexService extends IService<UserAnswerIndex> {
+
+    /**
+     * 写入答题记录索引，应在写入答题记录前调用
+     *
+     * @param userAnswers 答题记录（需已分配 id）
+     */
+    void addIndex(List<UserAnswer> userAnswers);
+
+    /**
+     * 分页查询用户的答题记录索引，按 id 倒序（即提交时间倒序）
+     *
+     * @param userId  用户 id
+     * @param appId   应用 id，可为空
+     * @param current 当前页号
+     * @param size    页面大小
+     * @return 索引分页
+     */
+    Page<UserAnswerIndex> pageByUser(Long userId, Long appId, long current, long size);
+
+    /**
+     * 游标查询用户的答题记录索引，返回 id 小于 lastId 的记录，按 id 倒序
+     *
+     * @param userId 用户 id
+     * @param appId  应用 id，可为空
+     * @param lastId 上一页最后一条记录 id，为空时从头开始
+     * @param size   条数
+     * @return 索引列表
+     */
+    List<UserAnswerIndex> listByUserAfter(Long userId, Long appId, Long lastId, long size);
+
+    /**
+     * 统计用户的答题记录数
+     *
+     * @param userId 用户 id
+     * @param appId  应用 id，可为空
+     * @return 记录数
+     */
+    long countByUser(Long userId, Long appId);
+}
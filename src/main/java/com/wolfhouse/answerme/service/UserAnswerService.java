@@ -3,11 +3,14 @@ package com.wolfhouse.answerme.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.wolfhouse.answerme.common.CursorPage;
 import com.wolfhouse.answerme.model.dto.useranswer.UserAnswerQueryRequest;
+import com.wolfhouse.answerme.model.entity.App;
 import com.wolfhouse.answerme.model.entity.UserAnswer;
 import com.wolfhouse.answerme.model.vo.UserAnswerVO;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.List;
 
 /**
  * 用户答案服务
@@ -48,4 +51,52 @@ public interface UserAnswerService extends IService<UserAnswer> {
      */
     Page
         <UserAnswerVO> getUserAnswerVOPage(Page<UserAnswer> userAnswerPage, HttpServletRequest request);
+
+    /**
+     * 批量评分并写入用户答案（仅用于自定义评分应用，AI 评分应用由调用方拒绝）
+     *
+     * @param app         应用
+     * @param choicesList 多份用户答案
+     * @param userId      提交用户 id
+     * @return 新写入的数据 id，顺序与 choicesList 一致
+     */
+    List<Long> scoreAndSaveBatch(App app, List<List<String>> choicesList, Long userId);
+
+    /**
+     * 提交用户答案：先评分再单次写入（启用延迟写入时放入缓冲区批量写入）；异步评分模式下先写入评分中的记录，由后台线程完成评分
+     *
+     * @param app     应用
+     * @param choices 用户答案
+     * @param userId  提交用户 id
+     * @return 新写入的数据 id
+     */
+    Long submitUserAnswer(App app, List<String> choices, Long userId);
+
+    /**
+     * 根据 id 获取用户答案，提供应用 id 时只查询其所在的分表
+     *
+     * @param id    用户答案 id
+     * @param appId 应用 id，可为空
+     * @return 用户答案
+     */
+    UserAnswer getUserAnswer(Long id, Long appId);
+
+    /**
+     * 分页查询某个用户的答题记录
+     * <p>
+     * 只按用户（及应用）筛选时经索引表定位分表，按 id 倒序，传入 lastId 时游标分页；
+     * 带其他筛选条件时按普通条件查询
+     *
+     * @param userAnswerQueryRequest 查询条件（userId 必填）
+     * @return 答题记录分页
+     */
+    Page<UserAnswer> pageByUser(UserAnswerQueryRequest userAnswerQueryRequest);
+
+    /**
+     * 游标分页查询某个用户的答题记录，只按用户（及应用）筛选时经索引表定位分表
+     *
+     * @param userAnswerQueryRequest 查询条件（userId 必填）
+     * @return 答题记录分页
+     */
+    CursorPage<UserAnswer> cursorPageByUser(UserAnswerQueryRequest userAnswerQueryRequest);
 }
@@ -0,0 +1,72 @@
+package com.wolfhouse.answerme.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.mapper.UserAnswerIndexMapper;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.model.entity.UserAnswerIndex;
+import com.wolfhouse.answerme.service.UserAnswerIndexService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 用户答题记录索引服务实现
+ *
+ * @author Rylin Wolf
+ */
+@Service
+public class UserAnswerIndexServiceImpl extends ServiceImpl<UserAnswerIndexMapper, UserAnswerIndex>
+    implements UserAnswerIndexService {
+    /** 批量写入时每批的行数 */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    @Override
+    public void addIndex(List<UserAnswer> userAnswers) {
+        Date now = new Date();
+        List<UserAnswerIndex> indexes = new ArrayList<>(userAnswers.size());
+        for (UserAnswer userAnswer : userAnswers) {
+            UserAnswerIndex index = new UserAnswerIndex();
+            index.setId(userAnswer.getId());
+            index.setUserId(userAnswer.getUserId());
+            index.setAppId(userAnswer.getAppId());
+            index.setCreateTime(now);
+            indexes.add(index);
+        }
+        boolean result = indexes.size() == 1 ? save(indexes.get(0)) : saveBatch(indexes, INSERT_BATCH_SIZE);
+        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+    }
+
+    @Override
+    public Page<UserAnswerIndex> pageByUser(Long userId, Long appId, long current, long size) {
+        return page(new Page<>(current, size), userQuery(userId, appId));
+    }
+
+    @Override
+    public List<UserAnswerIndex> listByUserAfter(Long userId, Long appId, Long lastId, long size) {
+        return list(userQuery(userId, appId).lt(lastId != null, UserAnswerIndex::getId, lastId)
+                                            .last("limit " + size));
+    }
+
+    @Override
+    public long countByUser(Long userId, Long appId) {
+        return count(Wrappers.lambdaQuery(UserAnswerIndex.class)
+                             .eq(UserAnswerIndex::getUserId, userId)
+                             .eq(appId != null, UserAnswerIndex::getAppId, appId));
+    }
+
+    private LambdaQueryWrapper<UserAnswerIndex> userQuery(Long userId, Long appId) {
+        // 走 (userId, id) 联合索引
+        return Wrappers.lambdaQuery(UserAnswerIndex.class)
+                       .select(UserAnswerIndex::getId, UserAnswerIndex::getAppId)
+                       .eq(UserAnswerIndex::getUserId, userId)
+                       .eq(appId != null, UserAnswerIndex::getAppId, appId)
+                       .orderByDesc(UserAnswerIndex::getId);
+    }
+}
@@ -1,21 +1,36 @@
 package com.wolfhouse.answerme.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.wolfhouse.answerme.common.CursorPage;
 import com.wolfhouse.answerme.common.ErrorCode;
 import com.wolfhouse.answerme.constant.CommonConstant;
+import com.wolfhouse.answerme.exception.BusinessException;
 import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.manager.CursorPageManager;
+import com.wolfhouse.answerme.manager.UserAnswerWriteBehindManager;
 import com.wolfhouse.answerme.mapper.UserAnswerMapper;
 import com.wolfhouse.answerme.model.dto.useranswer.UserAnswerQueryRequest;
+import com.wolfhouse.answerme.model.entity.App;
 import com.wolfhouse.answerme.model.entity.User;
 import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.model.entity.UserAnswerIndex;
+import com.wolfhouse.answerme.model.enums.ScoringStatusEnum;
 import com.wolfhouse.answerme.model.vo.UserAnswerVO;
 import com.wolfhouse.answerme.model.vo.UserVO;
+import com.wolfhouse.answerme.scoring.AsyncScoringDispatcher;
+import com.wolfhouse.answerme.scoring.ScoringStrategyExecutor;
 import com.wolfhouse.answerme.service.AppService;
+import com.wolfhouse.answerme.service.UserAnswerIndexService;
 import com.wolfhouse.answerme.service.UserAnswerService;
 import com.wolfhouse.answerme.service.UserService;
+import com.wolfhouse.answerme.sharding.HotAppDetector;
+import com.wolfhouse.answerme.sharding.UserAnswerResharder;
 import com.wolfhouse.answerme.utils.SqlUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
@@ -24,6 +39,9 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,6 +53,8 @@ import java.util.stream.Collectors;
 @Service
 @Slf4j
 public class UserAnswerServiceImpl extends ServiceImpl<UserAnswerMapper, UserAnswer> implements UserAnswerService {
+    /** 批量写入时每批的行数 */
+    private static final int INSERT_BATCH_SIZE = 500;
 
     @Resource
     private UserService userService;
@@ -42,6 +62,27 @@ public class UserAnswerServiceImpl extends ServiceImpl<UserAnswerMapper, UserAns
     @Resource
     private AppService appService;
 
+    @Resource
+    private ScoringStrategyExecutor scoringStrategyExecutor;
+
+    @Resource
+    private AsyncScoringDispatcher asyncScoringDispatcher;
+
+    @Resource
+    private UserAnswerIndexService userAnswerIndexService;
+
+    @Resource
+    private CursorPageManager cursorPageManager;
+
+    @Resource
+    private UserAnswerResharder userAnswerResharder;
+
+    @Resource
+    private HotAppDetector hotAppDetector;
+
+    @Resource
+    private UserAnswerWriteBehindManager userAnswerWriteBehindManager;
+
     /**
      * 校验数据
      *
@@ -205,4 +246,267 @@ public class UserAnswerServiceImpl extends ServiceImpl<UserAnswerMapper, UserAns
         return userAnswerVOPage;
     }
 
+    /**
+     * 批量评分并写入用户答案
+     *
+     * @param app         应用
+     * @param choicesList 多份用户答案
+     * @param userId      提交用户 id
+     * @return 新写入的数据 id，顺序与 choicesList 一致
+     */
+    @Override
+    public List<Long> scoreAndSaveBatch(App app, List<List<String>> choicesList, Long userId) {
+        // 1. 并行批量评分（整批共享一次题目与结果加载）
+        List<UserAnswer> userAnswers;
+        try {
+            userAnswers = scoringStrategyExecutor.doScoreBatch(choicesList, app);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "评分错误" + e.getMessage());
+        }
+
+        // 2. 预分配 id，填充默认值
+        List<Long> ids = new ArrayList<>(userAnswers.size());
+        for (UserAnswer userAnswer : userAnswers) {
+            userAnswer.setId(IdWorker.getId());
+            userAnswer.setUserId(userId);
+            userAnswer.setScoringStatus(ScoringStatusEnum.SUCCEED.getValue());
+            ids.add(userAnswer.getId());
+        }
+
+        // 3. 先写入按用户查询的索引，再 JDBC 批量写入，同一应用的答案分片键相同，只路由到一张分表
+        userAnswerIndexService.addIndex(userAnswers);
+        boolean result = saveBatch(userAnswers, INSERT_BATCH_SIZE);
+        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        return ids;
+    }
+
+    /**
+     * 提交用户答案：先评分再单次写入（启用延迟写入时放入缓冲区批量写入）；异步评分模式下先写入评分中的记录，由后台线程完成评分
+     *
+     * @param app     应用
+     * @param choices 用户答案
+     * @param userId  提交用户 id
+     * @return 新写入的数据 id
+     */
+    @Override
+    public Long submitUserAnswer(App app, List<String> choices, Long userId) {
+        // 预分配 id，评分与写入不再依赖数据库回填
+        long id = IdWorker.getId();
+        if (asyncScoringDispatcher.isAsync(app)) {
+            // 队列已满时直接拒绝，不写入数据
+            asyncScoringDispatcher.checkCapacity(app);
+            // 写入评分中的记录，由后台线程完成评分；评分任务只在内存队列中，崩溃或重启丢失时由定时扫描重新提交
+            UserAnswer pending = new UserAnswer();
+            pending.setId(id);
+            pending.setAppId(app.getId());
+            pending.setAppType(app.getAppType());
+            pending.setScoringStrategy(app.getScoringStrategy());
+            pending.setChoices(JSONUtil.toJsonStr(choices));
+            pending.setUserId(userId);
+            pending.setScoringStatus(ScoringStatusEnum.PENDING.getValue());
+            userAnswerIndexService.addIndex(List.of(pending));
+            ThrowUtils.throwIf(!save(pending), ErrorCode.OPERATION_ERROR);
+            asyncScoringDispatcher.dispatch(id, app, choices);
+            return id;
+        }
+
+        // 先评分，评分失败时不写入任何数据
+        UserAnswer userAnswer;
+        try {
+            userAnswer = scoringStrategyExecutor.doScore(choices, app);
+            ThrowUtils.throwIf(userAnswer == null, ErrorCode.SYSTEM_ERROR, "评分错误");
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "评分错误" + e.getMessage());
+        }
+        // 单次写入完整记录
+        userAnswer.setId(id);
+        userAnswer.setUserId(userId);
+        userAnswer.setScoringStatus(ScoringStatusEnum.SUCCEED.getValue());
+        if (userAnswerWriteBehindManager.isEnabled()) {
+            // 延迟批量写入，立即返回预分配的 id
+            userAnswerWriteBehindManager.submit(userAnswer);
+            return id;
+        }
+        // 先写入索引，写入答题记录失败时留下的索引在查询时被忽略
+        userAnswerIndexService.addIndex(List.of(userAnswer));
+        ThrowUtils.throwIf(!save(userAnswer), ErrorCode.OPERATION_ERROR);
+        return id;
+    }
+
+    /**
+     * 根据 id 获取用户答案，提供应用 id 时只查询其所在的分表
+     *
+     * @param id    用户答案 id
+     * @param appId 应用 id，可为空
+     * @return 用户答案
+     */
+    @Override
+    public UserAnswer getUserAnswer(Long id, Long appId) {
+        UserAnswer buffered = userAnswerWriteBehindManager.getBuffered(id);
+        if (buffered != null) {
+            return buffered;
+        }
+        if (appId == null) {
+            return getById(id);
+        }
+        return getOne(Wrappers.lambdaQuery(UserAnswer.class)
+                              .eq(UserAnswer::getId, id)
+                              .eq(UserAnswer::getAppId, appId));
+    }
+
+    @Override
+    public Page<UserAnswer> pageByUser(UserAnswerQueryRequest userAnswerQueryRequest) {
+        long current = userAnswerQueryRequest.getCurrent();
+        long size = userAnswerQueryRequest.getPageSize();
+        if (!isUserIndexQuery(userAnswerQueryRequest)) {
+            return page(new Page<>(current, size), getQueryWrapper(userAnswerQueryRequest));
+        }
+        Long userId = userAnswerQueryRequest.getUserId();
+        Long appId = userAnswerQueryRequest.getAppId();
+        Long lastId = userAnswerQueryRequest.getLastId();
+        Page<UserAnswer> userAnswerPage;
+        List<UserAnswerIndex> indexes;
+        if (lastId != null) {
+            // 游标分页，不统计总数
+            userAnswerPage = new Page<>(current, size, false);
+            indexes = userAnswerIndexService.listByUserAfter(userId, appId, lastId, size);
+        } else {
+            Page<UserAnswerIndex> indexPage = userAnswerIndexService.pageByUser(userId, appId, current, size);
+            userAnswerPage = new Page<>(current, size, indexPage.getTotal());
+            indexes = indexPage.getRecords();
+        }
+        userAnswerPage.setRecords(listByIndexes(indexes));
+        return userAnswerPage;
+    }
+
+    @Override
+    public CursorPage<UserAnswer> cursorPageByUser(UserAnswerQueryRequest userAnswerQueryRequest) {
+        ThrowUtils.throwIf(userAnswerQueryRequest.getPageSize() <= 0, ErrorCode.PARAMS_ERROR, "页面大小必须大于 0");
+        userAnswerQueryRequest.setSortField(null);
+        if (!isUserIndexQuery(userAnswerQueryRequest)) {
+            return cursorPageManager.page(this, userAnswerQueryRequest, this::getQueryWrapper, UserAnswer::getId);
+        }
+        Long userId = userAnswerQueryRequest.getUserId();
+        Long appId = userAnswerQueryRequest.getAppId();
+        int size = userAnswerQueryRequest.getPageSize();
+        CursorPage<UserAnswer> cursorPage = new CursorPage<>();
+        if (userAnswerQueryRequest.isWithTotal()) {
+            cursorPage.setTotal(cursorPageManager.cachedTotal("user_answer_index:" + userId + ":" + appId,
+                                                              () -> userAnswerIndexService.countByUser(userId,
+                                                                                                       appId)));
+        }
+        // 经索引表游标查询，多查一条判断是否还有下一页
+        Long lastId = cursorPageManager.decodeCursor(userAnswerQueryRequest.getCursor());
+        List<UserAnswerIndex> indexes = userAnswerIndexService.listByUserAfter(userId, appId, lastId, size + 1L);
+        boolean hasMore = indexes.size() > size;
+        if (hasMore) {
+            indexes = indexes.subList(0, size);
+        }
+        // 是否还有下一页与游标按索引行确定，索引存在而记录已删除时本页可能少于 size 条
+        Long nextId = hasMore ? indexes.get(size - 1)
+                                       .getId() : null;
+        cursorPageManager.fill(cursorPage, listByIndexes(indexes), nextId);
+        return cursorPage;
+    }
+
+    @Override
+    public UserAnswer getById(Serializable id) {
+        // 已提交尚未写入的记录
+        UserAnswer buffered = userAnswerWriteBehindManager.getBuffered(Long.valueOf(id.toString()));
+        return buffered != null ? buffered : super.getById(id);
+    }
+
+    @Override
+    public boolean save(UserAnswer userAnswer) {
+        boolean result = super.save(userAnswer);
+        if (result) {
+            hotAppDetector.record(userAnswer.getAppId(), 1);
+            userAnswerResharder.sync(userAnswer.getId(), userAnswer.getAppId());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean saveBatch(Collection<UserAnswer> userAnswers, int batchSize) {
+        boolean result = super.saveBatch(userAnswers, batchSize);
+        if (result) {
+            for (UserAnswer userAnswer : userAnswers) {
+                hotAppDetector.record(userAnswer.getAppId(), 1);
+            }
+            // 批量写入在事务中执行（继承父类的 @Transactional），双写在事务提交后进行
+            userAnswerResharder.sync(userAnswers);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean updateById(UserAnswer userAnswer) {
+        boolean result = super.updateById(userAnswer);
+        if (result) {
+            userAnswerResharder.sync(userAnswer.getId(), userAnswer.getAppId());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            // 先双写，应用 id 仍可从索引中查到
+            userAnswerResharder.sync(Long.valueOf(id.toString()), null);
+            userAnswerIndexService.removeById(id);
+        }
+        return result;
+    }
+
+    /**
+     * 只按用户（及应用）筛选、未指定排序时可以经索引表查询
+     */
+    private boolean isUserIndexQuery(UserAnswerQueryRequest request) {
+        return request.getUserId() != null &&
+               request.getId() == null &&
+               request.getNotId() == null &&
+               request.getAppType() == null &&
+               request.getScoringStrategy() == null &&
+               request.getResultId() == null &&
+               request.getResultScore() == null &&
+               StringUtils.isAllBlank(request.getChoices(),
+                                      request.getResultName(),
+                                      request.getResultDesc(),
+                                      request.getResultPicture(),
+                                      request.getSearchText(),
+                                      request.getSortField());
+    }
+
+    /**
+     * 按索引查询答题记录，只路由到索引中应用所在的分表，结果保持索引顺序；已删除的记录被忽略
+     */
+    private List<UserAnswer> listByIndexes(List<UserAnswerIndex> indexes) {
+        if (CollUtil.isEmpty(indexes)) {
+            return new ArrayList<>();
+        }
+        Set<Long> appIds = indexes.stream()
+                                  .map(UserAnswerIndex::getAppId)
+                                  .collect(Collectors.toSet());
+        List<Long> ids = indexes.stream()
+                                .map(UserAnswerIndex::getId)
+                                .collect(Collectors.toList());
+        Map<Long, UserAnswer> userAnswerMap = list(Wrappers.lambdaQuery(UserAnswer.class)
+                                                           .in(UserAnswer::getAppId, appIds)
+                                                           .in(UserAnswer::getId, ids))
+            .stream()
+            .collect(Collectors.toMap(UserAnswer::getId, userAnswer -> userAnswer));
+        List<UserAnswer> userAnswers = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UserAnswer userAnswer = userAnswerMap.get(id);
+            if (userAnswer != null) {
+                userAnswers.add(userAnswer);
+            }
+        }
+        return userAnswers;
+    }
 }
@@ -0,0 +1,40 @@
+package com.wolfhouse.answerme.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户答题记录热点应用配置，须与 ShardingSphere 规则中的 {@link UserAnswerShardingAlgorithm} 同时启用
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.user-answer-hot-app")
+@Data
+public class HotAppConfig {
+    /**
+     * 是否启用热点应用分散写入
+     */
+    private boolean enabled = false;
+
+    /**
+     * 统计写入速率的窗口（秒）
+     */
+    private int windowSeconds = 10;
+
+    /**
+     * 单个节点上每秒写入数达到此值的应用标记为热点
+     */
+    private int hotWritesPerSecond = 200;
+
+    /**
+     * 热点应用分散的分表数，不超过分表总数
+     */
+    private int subShards = 4;
+
+    /**
+     * 从数据库重新加载热点应用的间隔（毫秒），新热点在两个间隔后生效，保证所有节点生效前已得知
+     */
+    private long refreshIntervalMillis = 5000L;
+}
@@ -0,0 +1,161 @@
+package com.wolfhouse.answerme.sharding;
+
+import com.wolfhouse.answerme.mapper.UserAnswerHotAppMapper;
+import com.wolfhouse.answerme.model.entity.UserAnswerHotApp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点应用识别
+ * <p>
+ * 按窗口统计本节点每个应用的答题记录写入数，超过阈值的应用写入热点应用表，并通过 Redis 通知其他节点重新加载。
+ * 热点生效的 id（sinceId）取两个加载间隔之后的时间对应的雪花 id，所有节点在生效前都已得知，
+ * 因此每条记录所在的分表是确定的。热点应用不会取消，否则已分散的记录无法定位。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class HotAppDetector {
+    private static final String TOPIC = "user_answer_hot_app";
+
+    /** MyBatis-Plus 雪花 id 的起始时间戳与时间戳位移 */
+    private static final long ID_EPOCH = 1288834974657L;
+    private static final int ID_TIMESTAMP_SHIFT = 22;
+
+    @Resource
+    private HotAppConfig hotAppConfig;
+
+    @Resource
+    private UserAnswerHotAppMapper userAnswerHotAppMapper;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /** 当前窗口内应用 id -> 写入数，每个窗口替换 */
+    private volatile Map<Long, LongAdder> writes = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private RTopic topic;
+
+    private Counter markedCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!hotAppConfig.isEnabled()) {
+            return;
+        }
+        refresh();
+        topic = redissonClient.getTopic(TOPIC);
+        topic.addListener(Long.class, (channel, appId) -> refresh());
+        Gauge.builder("answerme.sharding.hot_apps", () -> UserAnswerHotApps.snapshot()
+                                                                           .size())
+             .description("答题记录分散写入的热点应用数")
+             .register(meterRegistry);
+        markedCounter = Counter.builder("answerme.sharding.hot_app.marked")
+                               .description("本节点标记的热点应用数")
+                               .register(meterRegistry);
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "hot-app-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkWindow,
+                                         hotAppConfig.getWindowSeconds(),
+                                         hotAppConfig.getWindowSeconds(),
+                                         TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::refresh,
+                                         hotAppConfig.getRefreshIntervalMillis(),
+                                         hotAppConfig.getRefreshIntervalMillis(),
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录应用的答题记录写入数
+     *
+     * @param appId 应用 id
+     * @param count 写入数
+     */
+    public void record(Long appId, int count) {
+        if (!hotAppConfig.isEnabled() || appId == null || UserAnswerHotApps.snapshot()
+                                                                           .containsKey(appId)) {
+            return;
+        }
+        writes.computeIfAbsent(appId, id -> new LongAdder())
+              .add(count);
+    }
+
+    private void checkWindow() {
+        Map<Long, LongAdder> window = writes;
+        writes = new ConcurrentHashMap<>();
+        long threshold = (long) hotAppConfig.getHotWritesPerSecond() * hotAppConfig.getWindowSeconds();
+        window.forEach((appId, count) -> {
+            if (count.sum() >= threshold) {
+                try {
+                    markHot(appId);
+                } catch (RuntimeException e) {
+                    log.error("标记热点应用失败，appId: {}", appId, e);
+                }
+            }
+        });
+    }
+
+    private void markHot(long appId) {
+        UserAnswerHotApp hotApp = new UserAnswerHotApp();
+        hotApp.setAppId(appId);
+        hotApp.setSubShards(hotAppConfig.getSubShards());
+        hotApp.setSinceId(idAt(System.currentTimeMillis() + hotAppConfig.getRefreshIntervalMillis() * 2));
+        try {
+            userAnswerHotAppMapper.insert(hotApp);
+        } catch (DuplicateKeyException e) {
+            // 已由其他节点标记
+            return;
+        }
+        log.info("应用 {} 标记为热点，id 从 {} 起分散到 {} 张分表", appId, hotApp.getSinceId(), hotApp.getSubShards());
+        markedCounter.increment();
+        refresh();
+        topic.publish(appId);
+    }
+
+    private void refresh() {
+        try {
+            UserAnswerHotApps.update(userAnswerHotAppMapper.selectList(null));
+        } catch (RuntimeException e) {
+            log.error("加载热点应用失败", e);
+        }
+    }
+
+    /**
+     * 某个时间对应的最小雪花 id
+     */
+    private static long idAt(long millis) {
+        return (millis - ID_EPOCH) << ID_TIMESTAMP_SHIFT;
+    }
+}
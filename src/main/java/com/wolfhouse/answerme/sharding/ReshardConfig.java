@@ -0,0 +1,76 @@
+package com.wolfhouse.answerme.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户答题记录重新分表配置
+ * <p>
+ * 重新分表工具直接连接分表所在的数据库（不经过 ShardingSphere），未配置 jdbcUrl 时不启用
+ *
+ * @author Rylin Wolf
+ */
+@Configuration
+@ConfigurationProperties(prefix = "custom.user-answer-reshard")
+@Data
+public class ReshardConfig {
+    /**
+     * 分表所在数据库的连接地址，为空时不启用
+     */
+    private String jdbcUrl;
+
+    private String username;
+
+    private String password;
+
+    /**
+     * 连接池大小
+     */
+    private int poolSize = 4;
+
+    /**
+     * 原分表名前缀，分表名为 前缀 + 序号
+     */
+    private String sourceTablePrefix = "user_answer_";
+
+    /**
+     * 原分表数
+     */
+    private int sourceShardCount = 2;
+
+    /**
+     * 新分表名前缀
+     */
+    private String targetTablePrefix = "user_answer_v2_";
+
+    /**
+     * 新分表数
+     */
+    private int targetShardCount = 4;
+
+    /**
+     * 当前节点的 ShardingSphere 规则是否已指向新分表（切换时滚动修改并重启）
+     */
+    private boolean servingTarget = false;
+
+    /**
+     * 每批复制与校验的行数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 复制两批之间的间隔（毫秒），用于限制对线上库的压力
+     */
+    private long copyIntervalMillis = 0L;
+
+    /**
+     * 各节点同步迁移阶段与上报心跳的间隔（毫秒）
+     */
+    private long pollIntervalMillis = 1000L;
+
+    /**
+     * 每次同步重试的失败记录数
+     */
+    private int retryBatchSize = 200;
+}
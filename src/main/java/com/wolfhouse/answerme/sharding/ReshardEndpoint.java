@@ -0,0 +1,57 @@
+package com.wolfhouse.answerme.sharding;
+
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Map;
+
+/**
+ * 用户答题记录重新分表端点（管理端口 /actuator/reshard，只监听本机）
+ * <p>
+ * GET 查看迁移状态；POST {"action": "start|verify|cutover|finish|abort|reset"} 执行操作并返回最新状态
+ *
+ * @author Rylin Wolf
+ */
+@Component
+@Endpoint(id = "reshard")
+public class ReshardEndpoint {
+    @Resource
+    private UserAnswerResharder userAnswerResharder;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return userAnswerResharder.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> action(String action) {
+        switch (action) {
+            case "start":
+                userAnswerResharder.start();
+                break;
+            case "verify":
+                userAnswerResharder.verify();
+                break;
+            case "cutover":
+                userAnswerResharder.cutover();
+                break;
+            case "finish":
+                userAnswerResharder.finish();
+                break;
+            case "abort":
+                userAnswerResharder.abort();
+                break;
+            case "reset":
+                userAnswerResharder.reset();
+                break;
+            default:
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "未知操作");
+        }
+        return userAnswerResharder.status();
+    }
+}
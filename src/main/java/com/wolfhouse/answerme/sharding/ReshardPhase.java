@@ -0,0 +1,57 @@
+package com.wolfhouse.answerme.sharding;
+
+/**
+ * 重新分表阶段
+ *
+ * @author Rylin Wolf
+ */
+public enum ReshardPhase {
+    /**
+     * 重新分表阶段
+     */
+    NONE("none", "未迁移"),
+    MIGRATING("migrating", "双写并复制存量数据"),
+    CUTOVER("cutover", "已校验，节点逐个切换到新分表，仍然双写"),
+    DONE("done", "全部节点已切换，停止双写");
+
+    private final String value;
+
+    private final String text;
+
+    ReshardPhase(String value, String text) {
+        this.value = value;
+        this.text = text;
+    }
+
+    /**
+     * 根据 value 获取枚举，未知时返回 NONE
+     *
+     * @param value 值
+     * @return 枚举
+     */
+    public static ReshardPhase getEnumByValue(String value) {
+        for (ReshardPhase phase : values()) {
+            if (phase.value.equals(value)) {
+                return phase;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 是否需要双写
+     *
+     * @return 是否双写
+     */
+    public boolean isDualWrite() {
+        return this == MIGRATING || this == CUTOVER;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
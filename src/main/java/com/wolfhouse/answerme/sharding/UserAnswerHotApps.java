@@ -0,0 +1,166 @@
+package com.wolfhouse.answerme.sharding;
+
+import com.wolfhouse.answerme.model.entity.UserAnswerHotApp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * 热点应用分表路由
+ * <p>
+ * 普通应用的答题记录全部在 appId % 分表数 的分表中（主分表）。热点应用 id 不小于 sinceId 的记录
+ * 按 CRC32(userId) % subShards 分散到从主分表起连续的 subShards 张分表中，之前的记录仍在主分表。
+ * 每条记录所在的分表只取决于 (appId, userId, id) 与热点应用表，与写入节点何时得知热点无关。
+ * <p>
+ * ShardingSphere 分片算法与重新分表工具共用此路由，热点应用由 {@link HotAppDetector} 加载与更新。
+ *
+ * @author Rylin Wolf
+ */
+public final class UserAnswerHotApps {
+    /** 应用 id -> 热点应用 */
+    private static volatile Map<Long, UserAnswerHotApp> hotApps = Collections.emptyMap();
+
+    private UserAnswerHotApps() {
+    }
+
+    /**
+     * 替换全部热点应用
+     *
+     * @param apps 热点应用
+     */
+    public static void update(Collection<UserAnswerHotApp> apps) {
+        Map<Long, UserAnswerHotApp> map = new HashMap<>(apps.size() * 2);
+        for (UserAnswerHotApp app : apps) {
+            map.put(app.getAppId(), app);
+        }
+        hotApps = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 当前的热点应用
+     *
+     * @return 应用 id -> 热点应用
+     */
+    public static Map<Long, UserAnswerHotApp> snapshot() {
+        return hotApps;
+    }
+
+    /**
+     * 记录所在的分表序号
+     *
+     * @param appId      应用 id
+     * @param userId     用户 id
+     * @param id         记录 id
+     * @param shardCount 分表数
+     * @return 分表序号
+     */
+    public static int shard(long appId, long userId, long id, int shardCount) {
+        int home = home(appId, shardCount);
+        UserAnswerHotApp hotApp = hotApps.get(appId);
+        int subShards = subShards(hotApp, shardCount);
+        if (subShards <= 1 || id < hotApp.getSinceId()) {
+            return home;
+        }
+        return (home + (int) (crc32(userId) % subShards)) % shardCount;
+    }
+
+    /**
+     * 应用的记录可能所在的分表序号（主分表在前）
+     *
+     * @param appId      应用 id
+     * @param shardCount 分表数
+     * @return 分表序号
+     */
+    public static Set<Integer> shards(long appId, int shardCount) {
+        int home = home(appId, shardCount);
+        int subShards = subShards(hotApps.get(appId), shardCount);
+        Set<Integer> shards = new LinkedHashSet<>(subShards * 2);
+        for (int i = 0; i < subShards; i++) {
+            shards.add((home + i) % shardCount);
+        }
+        return shards;
+    }
+
+    /**
+     * 应用中某个用户的记录可能所在的分表序号：主分表与用户的热点分表
+     *
+     * @param appId      应用 id
+     * @param userId     用户 id
+     * @param shardCount 分表数
+     * @return 分表序号
+     */
+    public static Set<Integer> shardsOfUser(long appId, long userId, int shardCount) {
+        Set<Integer> shards = new LinkedHashSet<>(4);
+        shards.add(home(appId, shardCount));
+        shards.add(shard(appId, userId, Long.MAX_VALUE, shardCount));
+        return shards;
+    }
+
+    /**
+     * 已知记录 id 时可能所在的分表序号：热点之前的记录只在主分表
+     *
+     * @param appId      应用 id
+     * @param id         记录 id
+     * @param shardCount 分表数
+     * @return 分表序号
+     */
+    public static Set<Integer> shardsOfId(long appId, long id, int shardCount) {
+        UserAnswerHotApp hotApp = hotApps.get(appId);
+        if (hotApp == null || id < hotApp.getSinceId()) {
+            return Collections.singleton(home(appId, shardCount));
+        }
+        return shards(appId, shardCount);
+    }
+
+    /**
+     * 计算记录分表序号的 SQL 表达式，与 {@link #shard} 一致（MySQL CRC32 对数字按十进制字符串计算）
+     *
+     * @param shardCount 分表数
+     * @return SQL 表达式
+     */
+    public static String shardExpression(int shardCount) {
+        Map<Long, UserAnswerHotApp> apps = hotApps;
+        StringBuilder offset = new StringBuilder();
+        for (UserAnswerHotApp hotApp : apps.values()) {
+            int subShards = subShards(hotApp, shardCount);
+            if (subShards <= 1) {
+                continue;
+            }
+            offset.append(" WHEN ")
+                  .append(hotApp.getAppId())
+                  .append(" THEN IF(id >= ")
+                  .append(hotApp.getSinceId())
+                  .append(", MOD(CRC32(userId), ")
+                  .append(subShards)
+                  .append("), 0)");
+        }
+        if (offset.length() == 0) {
+            return "MOD(appId, " + shardCount + ")";
+        }
+        return "MOD(appId + CASE appId" + offset + " ELSE 0 END, " + shardCount + ")";
+    }
+
+    private static int home(long appId, int shardCount) {
+        return (int) Math.floorMod(appId, (long) shardCount);
+    }
+
+    private static int subShards(UserAnswerHotApp hotApp, int shardCount) {
+        if (hotApp == null || hotApp.getSubShards() == null) {
+            return 1;
+        }
+        return Math.max(1, Math.min(hotApp.getSubShards(), shardCount));
+    }
+
+    private static long crc32(long userId) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(Long.toString(userId)
+                         .getBytes(StandardCharsets.US_ASCII));
+        return crc32.getValue();
+    }
+}
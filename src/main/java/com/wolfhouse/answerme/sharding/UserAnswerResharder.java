@@ -0,0 +1,663 @@
+package com.wolfhouse.answerme.sharding;
+
+import cn.hutool.core.util.StrUtil;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.exception.ThrowUtils;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用户答题记录在线重新分表
+ * <p>
+ * 1. start：创建新分表并开始双写，稍后由一个节点按主键分批把原分表的存量数据复制到新分表，进度保存在 Redis 中，中断后继续；
+ * 2. verify：按主键区间比较两侧的行数与校验和，不一致的区间以当前权威布局（切换前为原分表，切换后为新分表）逐行修复；
+ * 3. cutover：存量复制完成且校验通过后进入切换阶段，逐个节点把 ShardingSphere 规则改为新分表并设置 servingTarget 后重启；
+ * 4. finish：没有节点再使用原分表且切换后校验通过时停止双写。
+ * <p>
+ * 双写期间每个节点把自己写入的记录从其使用的布局同步到另一侧（按主键整行覆盖），同步失败的记录进入 Redis 重试集合。
+ * 迁移阶段保存在 Redis 中，各节点定时同步，并上报自己使用的布局。
+ * 两侧布局都按 {@link UserAnswerHotApps} 路由，热点应用的记录在新分表中同样分散。
+ *
+ * @author Rylin Wolf
+ */
+@Slf4j
+@Component
+public class UserAnswerResharder {
+    private static final String KEY_PREFIX = "user_answer_reshard:";
+    private static final String PHASE_KEY = KEY_PREFIX + "phase";
+    private static final String STARTED_AT_KEY = KEY_PREFIX + "started_at";
+    private static final String PROGRESS_KEY = KEY_PREFIX + "progress";
+    private static final String VERIFY_KEY = KEY_PREFIX + "verify";
+    private static final String NODES_KEY = KEY_PREFIX + "nodes";
+    private static final String RETRY_KEY = KEY_PREFIX + "retry";
+    private static final String COPY_LOCK_KEY = KEY_PREFIX + "copy_lock";
+    private static final String VERIFY_LOCK_KEY = KEY_PREFIX + "verify_lock";
+
+    /** 复制进度中表示分表已复制完成的后缀 */
+    private static final String DONE_SUFFIX = ":done";
+
+    private static final String LAYOUT_SOURCE = "source";
+    private static final String LAYOUT_TARGET = "target";
+
+    private static final String[] COLUMNS = {"id", "appId", "appType", "choices", "resultId", "resultName",
+                                             "resultDesc", "resultPicture", "resultScore", "scoringStatus",
+                                             "scoringStrategy", "userId", "createTime", "updateTime", "isDelete"};
+
+    private static final String COLUMN_LIST = String.join(", ", COLUMNS);
+
+    /** 区间行数与校验和（各行 CRC32 的异或，与行顺序无关） */
+    private static final String CHECKSUM_SELECT;
+
+    static {
+        StringBuilder row = new StringBuilder("CONCAT_WS('#'");
+        for (String column : COLUMNS) {
+            row.append(", IFNULL(")
+               .append(column)
+               .append(", CHAR(0))");
+        }
+        row.append(')');
+        CHECKSUM_SELECT = "SELECT COUNT(*), COALESCE(BIT_XOR(CRC32(" + row + ")), 0)";
+    }
+
+    @Resource
+    private ReshardConfig reshardConfig;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID()
+                                      .toString();
+
+    private final AtomicBoolean copying = new AtomicBoolean();
+
+    private final AtomicBoolean verifying = new AtomicBoolean();
+
+    private volatile ReshardPhase phase = ReshardPhase.NONE;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private UserAnswerShardLayout source;
+
+    private UserAnswerShardLayout target;
+
+    private ScheduledExecutorService executor;
+
+    private Counter copiedCounter;
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        source = new UserAnswerShardLayout(reshardConfig.getSourceTablePrefix(), reshardConfig.getSourceShardCount());
+        target = new UserAnswerShardLayout(reshardConfig.getTargetTablePrefix(), reshardConfig.getTargetShardCount());
+        dataSource = new HikariDataSource();
+        dataSource.setPoolName("user-answer-reshard");
+        dataSource.setJdbcUrl(reshardConfig.getJdbcUrl());
+        dataSource.setUsername(reshardConfig.getUsername());
+        dataSource.setPassword(reshardConfig.getPassword());
+        dataSource.setMaximumPoolSize(reshardConfig.getPoolSize());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        copiedCounter = Counter.builder("answerme.reshard.copied")
+                               .description("重新分表复制到新分表的存量行数")
+                               .register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 一个线程同步阶段与重试，复制与校验各占一个
+        executor = new ScheduledThreadPoolExecutor(3, r -> {
+            Thread thread = new Thread(r, "user-answer-reshard-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::poll,
+                                        0,
+                                        reshardConfig.getPollIntervalMillis(),
+                                        TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 是否启用
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return StrUtil.isNotBlank(reshardConfig.getJdbcUrl());
+    }
+
+    // region 双写
+
+    /**
+     * 双写：把刚写入的记录同步到另一侧布局，未在迁移时不做任何事。
+     * 在事务中调用时推迟到事务提交后执行，回滚时不同步
+     *
+     * @param userAnswers 刚写入的记录
+     */
+    public void sync(Collection<UserAnswer> userAnswers) {
+        if (!phase.isDualWrite()) {
+            return;
+        }
+        // 复制 id，提交前实体可能被修改
+        List<Long[]> rows = new ArrayList<>(userAnswers.size());
+        for (UserAnswer userAnswer : userAnswers) {
+            rows.add(new Long[]{userAnswer.getId(), userAnswer.getAppId()});
+        }
+        afterCommit(() -> {
+            for (Long[] row : rows) {
+                syncNow(row[0], row[1]);
+            }
+        });
+    }
+
+    /**
+     * 双写：把刚写入的记录同步到另一侧布局，同步失败时记录下来稍后重试，不影响本次写入。
+     * 同步使用独立连接，看不到未提交的写入，因此在事务中调用时推迟到事务提交后执行，回滚时不同步
+     *
+     * @param id    记录 id
+     * @param appId 应用 id，为空时从索引表查询
+     */
+    public void sync(Long id, Long appId) {
+        if (!phase.isDualWrite() || id == null) {
+            return;
+        }
+        afterCommit(() -> syncNow(id, appId));
+    }
+
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    private void syncNow(Long id, Long appId) {
+        if (!phase.isDualWrite() || id == null) {
+            return;
+        }
+        try {
+            Long shardAppId = appId == null ? findAppId(id) : appId;
+            if (shardAppId != null) {
+                syncRow(id, shardAppId, serving(), standby());
+            }
+            syncCounter("succeed").increment();
+        } catch (RuntimeException e) {
+            log.warn("重新分表双写失败，稍后重试，id: {}, 原因: {}", id, e.getMessage());
+            syncCounter("failed").increment();
+            retrySet().add(id + ":" + (appId == null ? "" : appId));
+        }
+    }
+
+    /**
+     * 按主键把一行从一侧布局整行覆盖到另一侧，来源不存在时删除目标行
+     */
+    private void syncRow(long id, long appId, UserAnswerShardLayout from, UserAnswerShardLayout to) {
+        for (String fromTable : from.tablesOfId(appId, id)) {
+            List<Long> userIds = jdbcTemplate.queryForList("SELECT userId FROM " + fromTable + " WHERE id = ?",
+                                                           Long.class,
+                                                           id);
+            if (!userIds.isEmpty()) {
+                jdbcTemplate.update("REPLACE INTO " + to.tableOf(appId, userIds.get(0), id) + " (" + COLUMN_LIST +
+                                    ") SELECT " + COLUMN_LIST + " FROM " + fromTable + " WHERE id = ?", id);
+                return;
+            }
+        }
+        for (String toTable : to.tablesOfId(appId, id)) {
+            jdbcTemplate.update("DELETE FROM " + toTable + " WHERE id = ?", id);
+        }
+    }
+
+    private Long findAppId(long id) {
+        List<Long> appIds = jdbcTemplate.queryForList("SELECT appId FROM user_answer_index WHERE id = ?",
+                                                      Long.class,
+                                                      id);
+        if (!appIds.isEmpty()) {
+            return appIds.get(0);
+        }
+        // 没有索引的历史数据，逐个分表查找
+        for (String table : serving().tables()) {
+            appIds = jdbcTemplate.queryForList("SELECT appId FROM " + table + " WHERE id = ?", Long.class, id);
+            if (!appIds.isEmpty()) {
+                return appIds.get(0);
+            }
+        }
+        return null;
+    }
+
+    private void retryFailed() {
+        RSet<String> retrySet = retrySet();
+        Set<String> failed = retrySet.removeRandom(reshardConfig.getRetryBatchSize());
+        for (String item : failed) {
+            String[] parts = item.split(":", -1);
+            syncNow(Long.valueOf(parts[0]), parts[1].isEmpty() ? null : Long.valueOf(parts[1]));
+        }
+    }
+
+    // endregion
+
+    // region 阶段切换
+
+    /**
+     * 开始迁移：创建新分表，开始双写，稍后开始复制存量数据
+     */
+    public void start() {
+        checkEnabled();
+        ThrowUtils.throwIf(phase() != ReshardPhase.NONE, ErrorCode.OPERATION_ERROR, "已有进行中的迁移");
+        for (String table : target.tables()) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " LIKE " + source.table(0));
+        }
+        progress().delete();
+        verifyResult().delete();
+        retrySet().delete();
+        redissonClient.<Long>getBucket(STARTED_AT_KEY)
+                      .set(System.currentTimeMillis());
+        transit(ReshardPhase.NONE, ReshardPhase.MIGRATING);
+        log.info("开始重新分表，{} -> {}", source, target);
+    }
+
+    /**
+     * 进入切换阶段：要求存量复制完成，且复制完成后的校验没有不一致
+     */
+    public void cutover() {
+        checkEnabled();
+        ThrowUtils.throwIf(phase() != ReshardPhase.MIGRATING, ErrorCode.OPERATION_ERROR, "当前阶段不能切换");
+        ThrowUtils.throwIf(!isCopyDone(), ErrorCode.OPERATION_ERROR, "存量数据尚未复制完成");
+        checkVerified(ReshardPhase.MIGRATING);
+        transit(ReshardPhase.MIGRATING, ReshardPhase.CUTOVER);
+        log.info("重新分表进入切换阶段，可以逐个节点切换到 {}", target);
+    }
+
+    /**
+     * 完成迁移，停止双写：要求没有节点使用原分表，且切换后的校验没有不一致
+     */
+    public void finish() {
+        checkEnabled();
+        ThrowUtils.throwIf(phase() != ReshardPhase.CUTOVER, ErrorCode.OPERATION_ERROR, "当前阶段不能完成迁移");
+        ThrowUtils.throwIf(nodes().containsValue(LAYOUT_SOURCE), ErrorCode.OPERATION_ERROR, "仍有节点使用原分表");
+        checkVerified(ReshardPhase.CUTOVER);
+        transit(ReshardPhase.CUTOVER, ReshardPhase.DONE);
+        log.info("重新分表完成，{} 不再写入", source);
+    }
+
+    /**
+     * 放弃迁移，停止双写：要求没有节点使用新分表；新分表保留，需手动删除
+     */
+    public void abort() {
+        checkEnabled();
+        ReshardPhase current = phase();
+        ThrowUtils.throwIf(!current.isDualWrite(), ErrorCode.OPERATION_ERROR, "没有进行中的迁移");
+        ThrowUtils.throwIf(nodes().containsValue(LAYOUT_TARGET), ErrorCode.OPERATION_ERROR, "仍有节点使用新分表");
+        transit(current, ReshardPhase.NONE);
+        log.info("已放弃重新分表，{} 保留", target);
+    }
+
+    /**
+     * 迁移完成并把配置中的原分表改为新分表后，重置阶段以便下次迁移
+     */
+    public void reset() {
+        checkEnabled();
+        transit(ReshardPhase.DONE, ReshardPhase.NONE);
+    }
+
+    private void transit(ReshardPhase from, ReshardPhase to) {
+        // 未迁移时不保存阶段值
+        boolean result = phaseBucket().compareAndSet(from == ReshardPhase.NONE ? null : from.getValue(),
+                                                     to == ReshardPhase.NONE ? null : to.getValue());
+        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "迁移阶段已被其他操作修改");
+        phase = to;
+    }
+
+    private void checkVerified(ReshardPhase verifiedPhase) {
+        Map<String, Object> result = verifyResult().readAllMap();
+        ThrowUtils.throwIf(!verifiedPhase.getValue()
+                                         .equals(result.get("phase")) || !Boolean.TRUE.equals(result.get("copyDone")),
+                           ErrorCode.OPERATION_ERROR,
+                           "请先在当前阶段完成一次校验");
+        Object mismatches = result.get("mismatches");
+        ThrowUtils.throwIf(!(mismatches instanceof Number) || ((Number) mismatches).longValue() != 0,
+                           ErrorCode.OPERATION_ERROR,
+                           "校验存在无法修复的不一致");
+    }
+
+    private void checkEnabled() {
+        if (!isEnabled()) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "未配置重新分表");
+        }
+    }
+
+    // endregion
+
+    // region 复制与校验
+
+    private void poll() {
+        try {
+            phase = phase();
+            nodes().fastPut(nodeId,
+                            reshardConfig.isServingTarget() ? LAYOUT_TARGET : LAYOUT_SOURCE,
+                            reshardConfig.getPollIntervalMillis() * 3,
+                            TimeUnit.MILLISECONDS);
+            if (!phase.isDualWrite()) {
+                return;
+            }
+            retryFailed();
+            // 等待所有节点都已开始双写后再复制，否则复制之后才开始双写的节点的修改会丢失
+            Long startedAt = redissonClient.<Long>getBucket(STARTED_AT_KEY)
+                                           .get();
+            boolean allDualWrite = startedAt != null &&
+                                   System.currentTimeMillis() - startedAt > reshardConfig.getPollIntervalMillis() * 3;
+            if (allDualWrite && !isCopyDone() && copying.compareAndSet(false, true)) {
+                executor.execute(this::copy);
+            }
+        } catch (RuntimeException e) {
+            log.error("重新分表状态同步失败", e);
+        }
+    }
+
+    private void copy() {
+        RLock lock = redissonClient.getLock(COPY_LOCK_KEY);
+        if (!lock.tryLock()) {
+            copying.set(false);
+            return;
+        }
+        try {
+            RMap<String, Long> progress = progress();
+            for (int shard = 0; shard < source.getShardCount(); shard++) {
+                String table = source.table(shard);
+                if (progress.containsKey(table + DONE_SUFFIX)) {
+                    continue;
+                }
+                long lastId = progress.getOrDefault(table, 0L);
+                while (phase.isDualWrite()) {
+                    Long rangeEnd = rangeEnd(table, lastId);
+                    if (rangeEnd == null) {
+                        progress.fastPut(table + DONE_SUFFIX, lastId);
+                        log.info("重新分表存量复制完成: {}", table);
+                        break;
+                    }
+                    // 已由双写写入的行不覆盖
+                    for (int targetShard = 0; targetShard < target.getShardCount(); targetShard++) {
+                        copiedCounter.increment(jdbcTemplate.update(
+                            "INSERT IGNORE INTO " + target.table(targetShard) + " (" + COLUMN_LIST + ") SELECT " +
+                            COLUMN_LIST + " FROM " + table + " WHERE id > ? AND id <= ? AND " +
+                            target.shardCondition(targetShard), lastId, rangeEnd));
+                    }
+                    lastId = rangeEnd;
+                    progress.fastPut(table, lastId);
+                    if (reshardConfig.getCopyIntervalMillis() > 0) {
+                        Thread.sleep(reshardConfig.getCopyIntervalMillis());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        } catch (RuntimeException e) {
+            log.error("重新分表存量复制失败，稍后继续", e);
+        } finally {
+            lock.unlock();
+            copying.set(false);
+        }
+    }
+
+    /**
+     * 在后台校验两侧数据，结果通过 status 查看
+     */
+    public void verify() {
+        checkEnabled();
+        ThrowUtils.throwIf(!phase().isDualWrite(), ErrorCode.OPERATION_ERROR, "没有进行中的迁移");
+        ThrowUtils.throwIf(!verifying.compareAndSet(false, true), ErrorCode.OPERATION_ERROR, "校验进行中");
+        executor.execute(() -> {
+            try {
+                runVerify();
+            } catch (RuntimeException e) {
+                log.error("重新分表校验失败", e);
+            } finally {
+                verifying.set(false);
+            }
+        });
+    }
+
+    private void runVerify() {
+        RLock lock = redissonClient.getLock(VERIFY_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            ReshardPhase verifyPhase = phase();
+            boolean copyDone = isCopyDone();
+            long startedAt = System.currentTimeMillis();
+            // 切换前以原分表为准，切换后以新分表为准
+            boolean fromTarget = verifyPhase == ReshardPhase.CUTOVER;
+            long ranges = 0;
+            long rows = 0;
+            long repaired = 0;
+            long mismatches = 0;
+            long rangeStart = 0;
+            boolean last = false;
+            while (!last) {
+                Long end = rangeEnd(rangeStart);
+                last = end == null;
+                long rangeEnd = last ? Long.MAX_VALUE : end;
+                long[] sourceChecksum = checksum(source, rangeStart, rangeEnd);
+                ranges++;
+                rows += sourceChecksum[0];
+                if (!Arrays.equals(sourceChecksum, checksum(target, rangeStart, rangeEnd))) {
+                    repaired += repairRange(rangeStart, rangeEnd, fromTarget);
+                    if (!Arrays.equals(checksum(source, rangeStart, rangeEnd), checksum(target, rangeStart, rangeEnd))) {
+                        mismatches++;
+                        log.warn("重新分表校验不一致，区间: ({}, {}]", rangeStart, rangeEnd);
+                    }
+                }
+                rangeStart = rangeEnd;
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("phase", verifyPhase.getValue());
+            result.put("copyDone", copyDone);
+            result.put("startedAt", startedAt);
+            result.put("finishedAt", System.currentTimeMillis());
+            result.put("ranges", ranges);
+            result.put("rows", rows);
+            result.put("repaired", repaired);
+            result.put("mismatches", mismatches);
+            RMap<String, Object> verifyResult = verifyResult();
+            verifyResult.delete();
+            verifyResult.putAll(result);
+            log.info("重新分表校验完成: {}", result);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 原分表中第 batchSize 行的 id（不足一批时为最大 id），没有更多数据时返回 null
+     */
+    private Long rangeEnd(String table, long rangeStart) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id > ? ORDER BY id LIMIT ?, 1",
+                                                   Long.class,
+                                                   rangeStart,
+                                                   reshardConfig.getBatchSize() - 1);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table + " WHERE id > ?", Long.class, rangeStart);
+    }
+
+    /**
+     * 各原分表下一批的结束 id 中最小的一个，使每个区间在每张分表中都不超过一批；没有更多数据时返回 null
+     */
+    private Long rangeEnd(long rangeStart) {
+        Long rangeEnd = null;
+        for (String table : source.tables()) {
+            Long end = rangeEnd(table, rangeStart);
+            if (end != null && (rangeEnd == null || end < rangeEnd)) {
+                rangeEnd = end;
+            }
+        }
+        return rangeEnd;
+    }
+
+    /**
+     * 一侧布局全部分表在区间内的行数与校验和，与行所在的分表无关
+     */
+    private long[] checksum(UserAnswerShardLayout layout, long rangeStart, long rangeEnd) {
+        long[] total = new long[2];
+        for (String table : layout.tables()) {
+            long[] checksum = jdbcTemplate.queryForObject(CHECKSUM_SELECT + " FROM " + table +
+                                                          " WHERE id > ? AND id <= ?",
+                                                          (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+                                                          rangeStart,
+                                                          rangeEnd);
+            total[0] += checksum[0];
+            total[1] ^= checksum[1];
+        }
+        return total;
+    }
+
+    /**
+     * 逐行修复一个区间，返回涉及的行数
+     */
+    private long repairRange(long rangeStart, long rangeEnd, boolean fromTarget) {
+        Map<Long, Long> rows = new LinkedHashMap<>();
+        for (UserAnswerShardLayout layout : Arrays.asList(source, target)) {
+            for (String table : layout.tables()) {
+                for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT id, appId FROM " + table +
+                                                                         " WHERE id > ? AND id <= ?",
+                                                                         rangeStart,
+                                                                         rangeEnd)) {
+                    rows.put(((Number) row.get("id")).longValue(), ((Number) row.get("appId")).longValue());
+                }
+            }
+        }
+        UserAnswerShardLayout from = fromTarget ? target : source;
+        UserAnswerShardLayout to = fromTarget ? source : target;
+        rows.forEach((id, appId) -> syncRow(id, appId, from, to));
+        return rows.size();
+    }
+
+    private boolean isCopyDone() {
+        RMap<String, Long> progress = progress();
+        for (String table : source.tables()) {
+            if (!progress.containsKey(table + DONE_SUFFIX)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // endregion
+
+    /**
+     * 迁移状态
+     *
+     * @return 阶段、布局、复制进度、最近一次校验结果、待重试数与各节点使用的布局
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", isEnabled());
+        if (!isEnabled()) {
+            return status;
+        }
+        ReshardPhase current = phase();
+        status.put("phase", current.getValue());
+        status.put("phaseText", current.getText());
+        status.put("source", source.toString());
+        status.put("target", target.toString());
+        status.put("copyDone", isCopyDone());
+        status.put("copyProgress", progress().readAllMap());
+        status.put("verifying", verifying.get());
+        status.put("verify", verifyResult().readAllMap());
+        status.put("retryBacklog", retrySet().size());
+        status.put("nodes", nodes().readAllMap());
+        return status;
+    }
+
+    private ReshardPhase phase() {
+        return ReshardPhase.getEnumByValue(phaseBucket().get());
+    }
+
+    private UserAnswerShardLayout serving() {
+        return reshardConfig.isServingTarget() ? target : source;
+    }
+
+    private UserAnswerShardLayout standby() {
+        return reshardConfig.isServingTarget() ? source : target;
+    }
+
+    private RBucket<String> phaseBucket() {
+        return redissonClient.getBucket(PHASE_KEY);
+    }
+
+    private RMap<String, Long> progress() {
+        return redissonClient.getMap(PROGRESS_KEY);
+    }
+
+    private RMap<String, Object> verifyResult() {
+        return redissonClient.getMap(VERIFY_KEY);
+    }
+
+    private RMapCache<String, String> nodes() {
+        return redissonClient.getMapCache(NODES_KEY);
+    }
+
+    private RSet<String> retrySet() {
+        return redissonClient.getSet(RETRY_KEY);
+    }
+
+    private Counter syncCounter(String result) {
+        return Counter.builder("answerme.reshard.sync")
+                      .description("重新分表双写同步次数")
+                      .tag("result", result)
+                      .register(meterRegistry);
+    }
+}
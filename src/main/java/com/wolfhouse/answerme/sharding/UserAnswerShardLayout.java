@@ -0,0 +1,92 @@
+package com.wolfhouse.answerme.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户答题记录分表布局：分表名为 前缀 + 序号，记录按 {@link UserAnswerHotApps} 路由
+ *
+ * @author Rylin Wolf
+ */
+public final class UserAnswerShardLayout {
+    private final String tablePrefix;
+
+    private final int shardCount;
+
+    public UserAnswerShardLayout(String tablePrefix, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("分表数必须大于 0");
+        }
+        this.tablePrefix = tablePrefix;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * 记录所在的分表
+     *
+     * @param appId  应用 id
+     * @param userId 用户 id
+     * @param id     记录 id
+     * @return 分表名
+     */
+    public String tableOf(long appId, long userId, long id) {
+        return table(UserAnswerHotApps.shard(appId, userId, id, shardCount));
+    }
+
+    /**
+     * 只知道应用与记录 id 时，记录可能所在的分表
+     *
+     * @param appId 应用 id
+     * @param id    记录 id
+     * @return 分表名列表
+     */
+    public List<String> tablesOfId(long appId, long id) {
+        List<String> tables = new ArrayList<>();
+        for (int shard : UserAnswerHotApps.shardsOfId(appId, id, shardCount)) {
+            tables.add(table(shard));
+        }
+        return tables;
+    }
+
+    /**
+     * 分表名
+     *
+     * @param shard 分表序号
+     * @return 分表名
+     */
+    public String table(int shard) {
+        return tablePrefix + shard;
+    }
+
+    /**
+     * 全部分表名
+     *
+     * @return 分表名列表
+     */
+    public List<String> tables() {
+        List<String> tables = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            tables.add(table(i));
+        }
+        return tables;
+    }
+
+    /**
+     * 筛选路由到某个分表的行的 SQL 条件
+     *
+     * @param shard 分表序号
+     * @return SQL 条件
+     */
+    public String shardCondition(int shard) {
+        return UserAnswerHotApps.shardExpression(shardCount) + " = " + shard;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    @Override
+    public String toString() {
+        return tablePrefix + "{0.." + (shardCount - 1) + "}";
+    }
+}
@@ -0,0 +1,103 @@
+package com.wolfhouse.answerme.sharding;
+
+import lombok.Getter;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingAlgorithm;
+import org.apache.shardingsphere.sharding.api.sharding.complex.ComplexKeysShardingValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 用户答题记录分表算法（分片键 appId、userId、id），热点应用按用户分散到多张分表
+ * <p>
+ * 写入时三个分片键齐全，只路由到一张分表。查询时按已知的分片键缩小范围：
+ * 只有 appId 时路由到应用可能所在的全部分表；有 userId 时只路由到主分表与用户的热点分表；
+ * 有 id 时热点之前的记录只路由到主分表。没有 appId（或按范围查询 appId）时路由到全部分表。
+ * <p>
+ * 分表按名称末尾的序号排序，序号即 {@link UserAnswerHotApps} 中的分表序号
+ *
+ * @author Rylin Wolf
+ */
+public class UserAnswerShardingAlgorithm implements ComplexKeysShardingAlgorithm<Comparable<?>> {
+    private static final String APP_ID = "appId";
+    private static final String USER_ID = "userId";
+    private static final String ID = "id";
+
+    @Getter
+    private Properties props;
+
+    @Override
+    public void init(Properties props) {
+        this.props = props;
+    }
+
+    @Override
+    public Collection<String> doSharding(Collection<String> availableTargetNames,
+                                         ComplexKeysShardingValue<Comparable<?>> shardingValue) {
+        Map<String, Collection<Comparable<?>>> values = shardingValue.getColumnNameAndShardingValuesMap();
+        Collection<Comparable<?>> appIds = values.get(APP_ID);
+        if (appIds == null || appIds.isEmpty()) {
+            return availableTargetNames;
+        }
+        Collection<Comparable<?>> userIds = values.get(USER_ID);
+        Collection<Comparable<?>> ids = values.get(ID);
+        boolean hasUserId = userIds != null && !userIds.isEmpty();
+        boolean hasId = ids != null && !ids.isEmpty();
+
+        List<String> tables = sortTables(availableTargetNames);
+        int shardCount = tables.size();
+        Set<Integer> shards = new LinkedHashSet<>();
+        for (Comparable<?> appIdValue : appIds) {
+            long appId = toLong(appIdValue);
+            if (hasUserId && hasId) {
+                for (Comparable<?> userId : userIds) {
+                    for (Comparable<?> id : ids) {
+                        shards.add(UserAnswerHotApps.shard(appId, toLong(userId), toLong(id), shardCount));
+                    }
+                }
+            } else if (hasUserId) {
+                for (Comparable<?> userId : userIds) {
+                    shards.addAll(UserAnswerHotApps.shardsOfUser(appId, toLong(userId), shardCount));
+                }
+            } else if (hasId) {
+                for (Comparable<?> id : ids) {
+                    shards.addAll(UserAnswerHotApps.shardsOfId(appId, toLong(id), shardCount));
+                }
+            } else {
+                shards.addAll(UserAnswerHotApps.shards(appId, shardCount));
+            }
+        }
+        List<String> result = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            result.add(tables.get(shard));
+        }
+        return result;
+    }
+
+    public String getType() {
+        return "USER_ANSWER_HOT_APP";
+    }
+
+    private List<String> sortTables(Collection<String> availableTargetNames) {
+        List<String> tables = new ArrayList<>(availableTargetNames);
+        tables.sort(Comparator.comparingInt(UserAnswerShardingAlgorithm::suffix));
+        return tables;
+    }
+
+    private static int suffix(String table) {
+        return Integer.parseInt(table.substring(table.lastIndexOf('_') + 1));
+    }
+
+    private static long toLong(Comparable<?> value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+}
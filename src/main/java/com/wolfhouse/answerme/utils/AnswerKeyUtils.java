@@ -0,0 +1,68 @@
+package com.wolfhouse.answerme.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * 答案缓存键工具
+ * <p>
+ * 对用户选项列表做规范编码（每个选项为 长度 + UTF-8 字节，null 的长度为 -1），
+ * 再计算 128 位摘要并输出 32 位十六进制字符串。
+ * 不经过 JSON 序列化，不同选项列表之间不会因拼接产生歧义。
+ *
+ * @author Rylin Wolf
+ */
+public class AnswerKeyUtils {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** 线程私有的摘要实例，避免每次调用重新创建 */
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * 计算选项列表的摘要
+     *
+     * @param choices 用户选项
+     * @return 32 位十六进制摘要
+     */
+    public static String digest(List<String> choices) {
+        MessageDigest md5 = MD5.get();
+        md5.reset();
+        byte[] length = new byte[4];
+        writeInt(md5, length, choices.size());
+        for (String choice : choices) {
+            if (choice == null) {
+                writeInt(md5, length, -1);
+                continue;
+            }
+            byte[] bytes = choice.getBytes(StandardCharsets.UTF_8);
+            writeInt(md5, length, bytes.length);
+            md5.update(bytes);
+        }
+        return toHex(md5.digest());
+    }
+
+    private static void writeInt(MessageDigest md5, byte[] buffer, int value) {
+        buffer[0] = (byte) (value >>> 24);
+        buffer[1] = (byte) (value >>> 16);
+        buffer[2] = (byte) (value >>> 8);
+        buffer[3] = (byte) value;
+        md5.update(buffer);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >>> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,99 @@
+package com.wolfhouse.answerme.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 流式 JSON 对象切分器
+ * <p>
+ * 按分片接收模型输出，每当一个顶层 JSON 对象闭合时立即输出该对象。
+ * 顶层对象之外的字符（数组括号、逗号、说明文字等）被忽略；
+ * 对象内部跟踪字符串与转义状态，字符串中的括号与转义引号不影响层级。
+ * 只按区间复制字符，不为单个字符创建对象。非线程安全，每个流使用一个实例。
+ *
+ * @author Rylin Wolf
+ */
+public class JsonObjectSplitter {
+    /** 当前对象已接收的内容 */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /** 对象内括号层级（{ 与 [ 共同计数），0 表示不在对象中 */
+    private int depth;
+
+    private boolean inString;
+
+    private boolean escaped;
+
+    /**
+     * 接收一个分片
+     *
+     * @param chunk 模型输出分片
+     * @return 本分片中闭合的顶层对象，没有时返回空列表
+     */
+    public List<String> feed(CharSequence chunk) {
+        List<String> objects = null;
+        // 当前分片中属于对象的起始位置，-1 表示不在对象中
+        int start = depth > 0 ? 0 : -1;
+        int length = chunk.length();
+        for (int i = 0; i < length; i++) {
+            char c = chunk.charAt(i);
+            if (depth == 0) {
+                if (c == '{') {
+                    depth = 1;
+                    start = i;
+                }
+                continue;
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    if (depth == 0) {
+                        buffer.append(chunk, start, i + 1);
+                        if (objects == null) {
+                            objects = new ArrayList<>(2);
+                        }
+                        objects.add(buffer.toString());
+                        buffer.setLength(0);
+                        start = -1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        // 对象跨分片，保留已接收部分
+        if (start >= 0) {
+            buffer.append(chunk, start, length);
+        }
+        return objects == null ? Collections.emptyList() : objects;
+    }
+
+    /**
+     * 一次性切分完整文本中的全部顶层对象
+     *
+     * @param text 文本
+     * @return 顶层对象
+     */
+    public static List<String> split(CharSequence text) {
+        return new JsonObjectSplitter().feed(text);
+    }
+}
@@ -0,0 +1,246 @@
+package com.wolfhouse.answerme.ai;
+
+import com.wolfhouse.answerme.ai.llm.LlmConfig;
+import com.wolfhouse.answerme.ai.llm.LlmResponse;
+import com.wolfhouse.answerme.ai.llm.StubLlmClient;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.zhipu.oapi.service.v4.model.ChatMessage;
+import com.zhipu.oapi.service.v4.model.ChatMessageRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AI 调用保护测试：可重试错误按次数重试，超时与不可重试错误不重试，连续失败后熔断
+ * <p>
+ * 模型调用使用注入失败的本地桩客户端
+ *
+ * @author Rylin Wolf
+ */
+class AiCallGuardTest {
+    private static final List<ChatMessage> MESSAGES = List.of(new ChatMessage(ChatMessageRole.SYSTEM.value(), "评分"),
+                                                              new ChatMessage(ChatMessageRole.USER.value(), "答案"));
+
+    private AiResilienceConfig config;
+
+    private LlmConfig llmConfig;
+
+    private StubLlmClient stubClient;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private SimpleMeterRegistry registry;
+
+    private AiCallGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        config = new AiResilienceConfig();
+        config.setMaxRetries(2);
+        config.setRetryBaseDelay(1L);
+        config.setRetryMaxDelay(2L);
+        config.setCircuitWindowSize(4);
+        config.setCircuitMinimumCalls(4);
+        config.setCircuitOpenDuration(60_000L);
+        llmConfig = new LlmConfig();
+        llmConfig.getStub()
+                 .setLatency(0L);
+        llmConfig.getStub()
+                 .setTokensPerSecond(1000);
+        stubClient = new StubLlmClient();
+        ReflectionTestUtils.setField(stubClient, "llmConfig", llmConfig);
+        stubClient.init();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("ai-call-test-");
+        executor.initialize();
+        registry = new SimpleMeterRegistry();
+        guard = new AiCallGuard();
+        ReflectionTestUtils.setField(guard, "aiResilienceConfig", config);
+        ReflectionTestUtils.setField(guard, "aiCallTaskExecutor", executor);
+        ReflectionTestUtils.setField(guard, "meterRegistry", registry);
+        guard.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void successfulCallReturnsStubOutput() {
+        LlmResponse response = guard.call(1_000L, () -> stubClient.chat(MESSAGES, null, 1_000L));
+        assertEquals(llmConfig.getStub()
+                              .getDefaultResponse(), response.getContent());
+        assertEquals(0.0, retries());
+    }
+
+    @Test
+    void retryableFailureIsRetriedUpToMaxRetries() {
+        failWith(LlmConfig.FailureMode.RETRYABLE);
+        AtomicInteger calls = new AtomicInteger();
+
+        BusinessException e = assertThrows(BusinessException.class, () -> guard.call(1_000L, () -> {
+            calls.incrementAndGet();
+            return stubClient.chat(MESSAGES, null, 1_000L);
+        }));
+
+        assertEquals(ErrorCode.SYSTEM_ERROR.getCode(), e.getCode());
+        assertEquals(config.getMaxRetries() + 1, calls.get());
+        assertEquals(config.getMaxRetries(), retries());
+    }
+
+    @Test
+    void retryableFailureRecoversOnRetry() {
+        AtomicInteger calls = new AtomicInteger();
+        String result = guard.call(1_000L, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new AiCallException(429, "rate limited");
+            }
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(1.0, retries());
+    }
+
+    @Test
+    void nonRetryableFailureIsNotRetried() {
+        failWith(LlmConfig.FailureMode.NON_RETRYABLE);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(BusinessException.class, () -> guard.call(1_000L, () -> {
+            calls.incrementAndGet();
+            return stubClient.chat(MESSAGES, null, 1_000L);
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0.0, retries());
+    }
+
+    @Test
+    void clientTimeoutIsNotRetried() {
+        failWith(LlmConfig.FailureMode.TIMEOUT);
+        AtomicInteger calls = new AtomicInteger();
+        long start = System.nanoTime();
+
+        BusinessException e = assertThrows(BusinessException.class, () -> guard.call(50L, () -> {
+            calls.incrementAndGet();
+            return stubClient.chat(MESSAGES, null, 50L);
+        }));
+
+        // 桩客户端在截止时间结束调用，不再发起同样耗时的重试
+        assertEquals(1, calls.get());
+        assertEquals(0.0, retries());
+        assertEquals("AI 调用超时", e.getMessage());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50L);
+    }
+
+    @Test
+    void hungCallIsCancelledAfterGraceAndNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        BusinessException e = assertThrows(BusinessException.class, () -> guard.call(10L, () -> {
+            calls.incrementAndGet();
+            // 客户端未按时结束
+            Thread.sleep(10_000L);
+            return "late";
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals("AI 调用超时", e.getMessage());
+    }
+
+    @Test
+    void ioErrorsAreRetriedButReadTimeoutsAreNot() {
+        AtomicInteger connectCalls = new AtomicInteger();
+        assertThrows(BusinessException.class, () -> guard.call(1_000L, () -> {
+            connectCalls.incrementAndGet();
+            throw new IOException("connection refused");
+        }));
+        assertEquals(config.getMaxRetries() + 1, connectCalls.get());
+
+        AtomicInteger readCalls = new AtomicInteger();
+        assertThrows(BusinessException.class, () -> guard.call(1_000L, () -> {
+            readCalls.incrementAndGet();
+            throw new RuntimeException(new SocketTimeoutException("read timed out"));
+        }));
+        assertEquals(1, readCalls.get());
+    }
+
+    @Test
+    void repeatedFailuresOpenCircuitAndRejectWithoutCalling() {
+        failWith(LlmConfig.FailureMode.NON_RETRYABLE);
+        for (int i = 0; i < config.getCircuitMinimumCalls(); i++) {
+            assertThrows(BusinessException.class, () -> guard.call(1_000L, () -> stubClient.chat(MESSAGES, null, 1_000L)));
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        BusinessException e = assertThrows(BusinessException.class, () -> guard.call(1_000L, () -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+
+        assertEquals(0, calls.get());
+        assertEquals("AI 服务暂不可用，请稍后重试", e.getMessage());
+        assertEquals(1.0, registry.get("answerme.ai.circuit.rejected")
+                                  .counter()
+                                  .count());
+        assertEquals(AiCircuitBreaker.State.OPEN.ordinal(), registry.get("answerme.ai.circuit.state")
+                                                                    .gauge()
+                                                                    .value());
+    }
+
+    @Test
+    void stalledStreamEndsWithIdleTimeout() {
+        failWith(LlmConfig.FailureMode.TIMEOUT);
+
+        TestSubscriber<LlmResponse> subscriber = guard.stream(50L, () -> stubClient.streamChat(MESSAGES, null, 50L))
+                                                      .test();
+
+        subscriber.awaitDone(5, TimeUnit.SECONDS);
+        subscriber.assertError(TimeoutException.class);
+    }
+
+    @Test
+    void streamFailureIsPropagated() {
+        failWith(LlmConfig.FailureMode.RETRYABLE);
+
+        TestSubscriber<LlmResponse> subscriber = guard.stream(1_000L, () -> stubClient.streamChat(MESSAGES, null, 1_000L))
+                                                      .test();
+
+        subscriber.awaitDone(5, TimeUnit.SECONDS);
+        subscriber.assertError(AiCallException.class);
+    }
+
+    private void failWith(LlmConfig.FailureMode mode) {
+        llmConfig.getStub()
+                 .setFailureRate(1.0);
+        llmConfig.getStub()
+                 .setFailureMode(mode);
+    }
+
+    private double retries() {
+        return registry.get("answerme.ai.retries")
+                       .counter()
+                       .count();
+    }
+}
@@ -0,0 +1,123 @@
+package com.wolfhouse.answerme.ai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AI 熔断器测试：关闭、打开、半开之间的状态转换
+ *
+ * @author Rylin Wolf
+ */
+class AiCircuitBreakerTest {
+    private static final long OPEN_DURATION = 50L;
+
+    private AiCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        AiResilienceConfig config = new AiResilienceConfig();
+        config.setCircuitWindowSize(4);
+        config.setCircuitMinimumCalls(4);
+        config.setCircuitFailureRateThreshold(0.5);
+        config.setCircuitOpenDuration(OPEN_DURATION);
+        breaker = new AiCircuitBreaker(config);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void opensAtFailureRateThresholdAndRejects() {
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+        // 4 次中 2 次失败，达到 50%
+        breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void staysClosedBelowThreshold() {
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void oldResultsSlideOutOfWindow() {
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        // 最早的失败移出窗口后，窗口内只有这一次失败
+        breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+        // 窗口为 成功、成功、失败、失败
+        breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsSingleTrialAndClosesOnSuccess() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION + 20);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(AiCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // 试探调用进行中，其他调用被拒绝
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        // 关闭后重新统计，一次失败不会再次打开
+        breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedTrialReopens() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION + 20);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(AiCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void releasedTrialFreesSlot() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION + 20);
+
+        assertTrue(breaker.tryAcquire());
+        // 试探调用未发出（本地拒绝），名额释放给下一次调用
+        breaker.release();
+        assertEquals(AiCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(AiCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
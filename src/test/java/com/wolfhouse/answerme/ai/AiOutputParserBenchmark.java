@@ -0,0 +1,126 @@
+package com.wolfhouse.answerme.ai;
+
+import cn.hutool.json.JSONUtil;
+import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 输出解析基准测试：Jackson 直接读取与原 AiJsonUtils（首尾括号截取 + Hutool 解析）对比
+ * <p>
+ * 输入为带有说明文字与代码块标记的模型输出。
+ * 运行：在 IDE 中执行 main 方法，或 mvn test-compile 后以测试类路径运行本类
+ *
+ * @author Rylin Wolf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AiOutputParserBenchmark {
+    @Param({"10", "50"})
+    private int questionNumber;
+
+    private AiOutputParser parser;
+
+    private String scoringOutput;
+
+    private String questionOutput;
+
+    @Setup
+    public void setUp() {
+        parser = new AiOutputParser();
+        ReflectionTestUtils.setField(parser, "objectMapper", Jackson2ObjectMapperBuilder.json()
+                                                                                         .build());
+        scoringOutput = "根据您的回答，评价如下：\n```json\n" +
+                        "{\"resultName\": \"INTJ\", \"resultDesc\": \"独立、理性，善于制定长期计划，" +
+                        "在做决定前会充分分析各种可能性。\"}\n```\n希望对您有帮助。";
+        StringBuilder output = new StringBuilder("以下是生成的题目：\n```json\n[");
+        for (int i = 0; i < questionNumber; i++) {
+            if (i > 0) {
+                output.append(",\n");
+            }
+            output.append("{\"title\": \"第 ")
+                  .append(i + 1)
+                  .append(" 题：你更喜欢哪种周末安排？\", \"options\": [");
+            for (int j = 0; j < 4; j++) {
+                if (j > 0) {
+                    output.append(", ");
+                }
+                output.append("{\"key\": \"")
+                      .append((char) ('A' + j))
+                      .append("\", \"value\": \"选项 ")
+                      .append(j + 1)
+                      .append("\", \"result\": \"I\"}");
+            }
+            output.append("]}");
+        }
+        output.append("]\n```");
+        questionOutput = output.toString();
+    }
+
+    @Benchmark
+    public UserAnswer parserObject() {
+        return parser.parseObject(scoringOutput, UserAnswer.class);
+    }
+
+    @Benchmark
+    public UserAnswer originalObject() {
+        return originalToBean(scoringOutput, UserAnswer.class);
+    }
+
+    @Benchmark
+    public List<QuestionContentDto> parserList() {
+        return parser.parseList(questionOutput, QuestionContentDto.class);
+    }
+
+    @Benchmark
+    public List<QuestionContentDto> originalList() {
+        return originalToList(questionOutput, QuestionContentDto.class);
+    }
+
+    /**
+     * 原 AiJsonUtils.toList：截取第一个 [ 到最后一个 ] 后由 Hutool 解析
+     */
+    private static <T> List<T> originalToList(String json, Class<T> clazz) {
+        int start = json.indexOf("[");
+        int end = json.lastIndexOf("]");
+        json = json.substring(start, end + 1);
+        return JSONUtil.toList(json, clazz);
+    }
+
+    /**
+     * 原 AiJsonUtils.toBean：截取第一个 { 到最后一个 } 后由 Hutool 解析
+     */
+    private static <T> T originalToBean(String json, Class<T> clazz) {
+        int start = json.indexOf("{");
+        int end = json.lastIndexOf("}");
+        json = json.substring(start, end + 1);
+        return JSONUtil.toBean(json, clazz);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AiOutputParserBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+}
@@ -0,0 +1,188 @@
+package com.wolfhouse.answerme.ai;
+
+import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AI 输出解析测试，输入为模型常见的输出形式
+ *
+ * @author Rylin Wolf
+ */
+class AiOutputParserTest {
+    private static final String RESULT = "{\"resultName\": \"INTJ\", \"resultDesc\": \"独立、理性 {善于规划}\"}";
+
+    private static final String QUESTIONS = "[{\"title\": \"你更喜欢？\", \"options\": [" +
+                                            "{\"key\": \"A\", \"value\": \"独处\", \"result\": \"I\"}, " +
+                                            "{\"key\": \"B\", \"value\": \"聚会\", \"result\": \"E\"}]}, " +
+                                            "{\"title\": \"遇到问题时？\", \"options\": [" +
+                                            "{\"key\": \"A\", \"value\": \"先想清楚\", \"result\": \"T\"}]}]";
+
+    private AiOutputParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new AiOutputParser();
+        // 与应用中的 ObjectMapper 使用相同的默认配置（忽略未知字段）
+        ReflectionTestUtils.setField(parser, "objectMapper", Jackson2ObjectMapperBuilder.json()
+                                                                                         .build());
+    }
+
+    @Test
+    void parsesObjectWrappedInMarkdownFence() {
+        String output = "根据您的回答，评价如下：\n```json\n" + RESULT + "\n```\n希望对您有帮助。";
+        UserAnswer answer = parser.parseObject(output, UserAnswer.class);
+        assertEquals("INTJ", answer.getResultName());
+        assertEquals("独立、理性 {善于规划}", answer.getResultDesc());
+    }
+
+    @Test
+    void ignoresTrailingProseWithBraces() {
+        String output = RESULT + "\n\n说明：以上结果仅供参考 {仅代表模型观点}。";
+        assertEquals("INTJ", parser.parseObject(output, UserAnswer.class)
+                                   .getResultName());
+    }
+
+    @Test
+    void ignoresUnknownFields() {
+        String output = "{\"resultName\": \"INTJ\", \"confidence\": 0.9, \"resultDesc\": \"理性\"}";
+        assertEquals("理性", parser.parseObject(output, UserAnswer.class)
+                                 .getResultDesc());
+    }
+
+    @Test
+    void skipsBracesInLeadingProse() {
+        String output = "好的，我会按照要求 {JSON 格式} 输出结果：\n" + RESULT;
+        assertEquals("INTJ", parser.parseObject(output, UserAnswer.class)
+                                   .getResultName());
+    }
+
+    @Test
+    void skipsBracketsInLeadingProseForList() {
+        String output = "以下是生成的题目 [共 2 题]：\n" + QUESTIONS;
+        List<QuestionContentDto> questions = parser.parseList(output, QuestionContentDto.class);
+        assertEquals(2, questions.size());
+        assertEquals("遇到问题时？", questions.get(1)
+                                        .getTitle());
+        assertEquals("E", questions.get(0)
+                                   .getOptions()
+                                   .get(1)
+                                   .getResult());
+    }
+
+    @Test
+    void triesAtMostThreeCandidates() {
+        String output = "{注一} {注二} {注三} " + RESULT;
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                 () -> parser.parseObject(output, UserAnswer.class));
+        // 报告第一个候选位置的错误
+        assertEquals(AiOutputParseException.Reason.MALFORMED, e.getReason());
+        assertTrue(e.getOffset() < output.indexOf("{注二}"), String.valueOf(e.getOffset()));
+    }
+
+    @Test
+    void notFoundWhenOutputHasNoJson() {
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                 () -> parser.parseObject("抱歉，我无法根据这些回答给出评价。",
+                                                                          UserAnswer.class));
+        assertEquals(AiOutputParseException.Reason.NOT_FOUND, e.getReason());
+        assertEquals(-1, e.getOffset());
+        assertNull(e.getSnippet());
+    }
+
+    @Test
+    void notFoundForNullOutput() {
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseList(null, QuestionContentDto.class));
+        assertEquals(AiOutputParseException.Reason.NOT_FOUND, e.getReason());
+    }
+
+    @Test
+    void notFoundWhenListExpectedButOnlyObjectPresent() {
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseList(RESULT, QuestionContentDto.class));
+        assertEquals(AiOutputParseException.Reason.NOT_FOUND, e.getReason());
+    }
+
+    @Test
+    void truncatedInsideString() {
+        String output = "{\"resultName\": \"INTJ\", \"resultDesc\": \"你是一个善于";
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseObject(output, UserAnswer.class));
+        assertEquals(AiOutputParseException.Reason.TRUNCATED, e.getReason());
+    }
+
+    @Test
+    void truncatedBetweenFields() {
+        String output = "{\"resultName\": \"INTJ\",";
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseObject(output, UserAnswer.class));
+        assertEquals(AiOutputParseException.Reason.TRUNCATED, e.getReason());
+    }
+
+    @Test
+    void truncatedListIsNotRetriedFromInnerBracket() {
+        // 输出达到长度上限被截断，内部的 [ 不应被当作新的候选
+        String output = QUESTIONS.substring(0, QUESTIONS.lastIndexOf("{\"key\""));
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseList(output, QuestionContentDto.class));
+        assertEquals(AiOutputParseException.Reason.TRUNCATED, e.getReason());
+    }
+
+    @Test
+    void malformedReportsOffsetAndSnippet() {
+        // 缺少逗号
+        String output = "结果：{\"resultName\": \"INTJ\" \"resultDesc\": \"理性\"}";
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseObject(output, UserAnswer.class));
+        assertEquals(AiOutputParseException.Reason.MALFORMED, e.getReason());
+        int missingComma = output.indexOf("\"resultDesc\"");
+        assertTrue(e.getOffset() >= output.indexOf("\"INTJ\"") && e.getOffset() <= missingComma + 1,
+                   String.valueOf(e.getOffset()));
+        assertTrue(e.getSnippet()
+                    .contains("resultDesc"), e.getSnippet());
+    }
+
+    @Test
+    void malformedWithSingleQuotes() {
+        String output = "{'resultName': 'INTJ'}";
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseObject(output, UserAnswer.class));
+        assertEquals(AiOutputParseException.Reason.MALFORMED, e.getReason());
+    }
+
+    @Test
+    void mismatchWhenFieldTypeIsWrong() {
+        String output = "{\"resultName\": \"INTJ\", \"resultScore\": \"很高\"}";
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseObject(output, UserAnswer.class));
+        assertEquals(AiOutputParseException.Reason.MISMATCH, e.getReason());
+    }
+
+    @Test
+    void mismatchIsNotRetriedFromLaterCandidate() {
+        // 类型不匹配说明该位置就是模型给出的 JSON，不再尝试后续位置
+        String output = "{\"resultScore\": \"很高\"}\n修正：" + RESULT;
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseObject(output, UserAnswer.class));
+        assertEquals(AiOutputParseException.Reason.MISMATCH, e.getReason());
+    }
+
+    @Test
+    void mismatchWhenListElementsAreNotObjects() {
+        String output = "[\"你更喜欢？\", \"遇到问题时？\"]";
+        AiOutputParseException e = assertThrows(AiOutputParseException.class,
+                                                () -> parser.parseList(output, QuestionContentDto.class));
+        assertEquals(AiOutputParseException.Reason.MISMATCH, e.getReason());
+    }
+}
@@ -0,0 +1,102 @@
+package com.wolfhouse.answerme.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.IllegalFormatException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 预编译 Prompt 模板测试：渲染结果与 String.format 一致
+ *
+ * @author Rylin Wolf
+ */
+class PromptTemplateTest {
+
+    @Test
+    void rendersStringAndIntegerPlaceholdersLikeFormat() {
+        String template = "应用名称：%s，\n【【【应用描述：%s】】】\n题目数：%d，选项数：%d";
+        Object[] args = {"MBTI 性格测试", "测试你的性格", 10, 4};
+        assertEquals(String.format(template, args),
+                     PromptTemplate.compile(template)
+                                   .render(args));
+    }
+
+    @Test
+    void templateWithoutPlaceholdersRendersAsIs() {
+        PromptTemplate template = PromptTemplate.compile("你是一位严谨的判题专家");
+        assertEquals("你是一位严谨的判题专家", template.render());
+        assertEquals("你是一位严谨的判题专家", template.getTemplate());
+    }
+
+    @Test
+    void doublePercentIsLiteralPercent() {
+        String template = "正确率 100%%，得分 %d%%，%s";
+        assertEquals("正确率 100%，得分 95%，完成", PromptTemplate.compile(template)
+                                                        .render(95, "完成"));
+        assertEquals(String.format(template, 95, "完成"),
+                     PromptTemplate.compile(template)
+                                   .render(95, "完成"));
+    }
+
+    @Test
+    void adjacentAndBoundaryPlaceholders() {
+        assertEquals("ab", PromptTemplate.compile("%s%s")
+                                         .render("a", "b"));
+        assertEquals("[x]", PromptTemplate.compile("[%s]")
+                                          .render("x"));
+        assertEquals("", PromptTemplate.compile("")
+                                       .render());
+    }
+
+    @Test
+    void nullArgumentRendersAsNullLikeFormat() {
+        assertEquals(String.format("值：%s", (Object) null),
+                     PromptTemplate.compile("值：%s")
+                                   .render((Object) null));
+    }
+
+    @Test
+    void argumentContainingPercentIsNotReinterpreted() {
+        assertEquals("描述：50% 的人 %s", PromptTemplate.compile("描述：%s")
+                                                       .render("50% 的人 %s"));
+    }
+
+    @Test
+    void extraArgumentsAreIgnoredLikeFormat() {
+        assertEquals(String.format("%s", "a", "b"),
+                     PromptTemplate.compile("%s")
+                                   .render("a", "b"));
+    }
+
+    @Test
+    void tooFewArgumentsFail() {
+        PromptTemplate template = PromptTemplate.compile("%s，%s，%d");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> template.render("a"));
+        assertEquals("Prompt 参数不足，需要 3 个，实际 1 个", e.getMessage());
+    }
+
+    @Test
+    void otherSpecifiersFallBackToFormat() {
+        String template = "平均分：%.2f，名称：%-6s|，%s";
+        Object[] args = {3.14159, "ab", "结束"};
+        assertEquals(String.format(template, args),
+                     PromptTemplate.compile(template)
+                                   .render(args));
+    }
+
+    @Test
+    void fallbackWithTooFewArgumentsFailsLikeFormat() {
+        PromptTemplate template = PromptTemplate.compile("%.1f，%s");
+        assertThrows(IllegalFormatException.class, () -> template.render(1.0));
+    }
+
+    @Test
+    void trailingPercentFailsLikeFormat() {
+        // 末尾单独的 % 不是合法格式串，与 String.format 一样在渲染时报错
+        PromptTemplate template = PromptTemplate.compile("完成度 100%");
+        assertThrows(IllegalFormatException.class, () -> template.render());
+    }
+}
@@ -0,0 +1,163 @@
+package com.wolfhouse.answerme.ai;
+
+import cn.hutool.core.io.file.FileReader;
+import cn.hutool.json.JSONUtil;
+import com.wolfhouse.answerme.model.dto.question.QuestionAnswerDto;
+import com.wolfhouse.answerme.model.enums.AppTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt 渲染基准测试：预编译模板与原每次读取模板文件 + String.format 对比
+ * <p>
+ * 模板写入临时文件，原实现每次调用都按行读取文件再格式化；另测只做 String.format 的耗时，区分文件读取与格式化的开销。
+ * 运行：在 IDE 中执行 main 方法，或 mvn test-compile 后以测试类路径运行本类
+ *
+ * @author Rylin Wolf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptsBenchmark {
+    private static final String USER_SCORING_INPUT = "user-scoring-input.txt";
+    private static final String USER_QUESTION_INPUT = "user-question-input.txt";
+
+    private static final String SCORING_TEMPLATE = "应用名称：%s，\n" +
+                                                   "【【【应用描述：%s】】】，\n" +
+                                                   "题目和用户回答的列表：格式为 [{\"title\": \"题目\",\"answer\": \"用户回答\"}]\n" +
+                                                   "%s";
+
+    private static final String QUESTION_TEMPLATE = "%s\n" +
+                                                    "【【【%s】】】\n" +
+                                                    "应用类别：%s\n" +
+                                                    "要生成的题目数：%d\n" +
+                                                    "每个题目的选项数：%d";
+
+    /** 每份答案的题目数 */
+    @Param({"10", "50"})
+    private int questionNumber;
+
+    private Path dir;
+
+    private Prompts prompts;
+
+    private List<QuestionAnswerDto> answers;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("prompt");
+        Files.writeString(dir.resolve(USER_SCORING_INPUT), SCORING_TEMPLATE, StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve(USER_QUESTION_INPUT), QUESTION_TEMPLATE, StandardCharsets.UTF_8);
+        prompts = new Prompts();
+        ReflectionTestUtils.setField(prompts,
+                                     "templates",
+                                     Map.of(USER_SCORING_INPUT, PromptTemplate.compile(SCORING_TEMPLATE),
+                                            USER_QUESTION_INPUT, PromptTemplate.compile(QUESTION_TEMPLATE)));
+        answers = new ArrayList<>(questionNumber);
+        for (int i = 0; i < questionNumber; i++) {
+            QuestionAnswerDto answer = new QuestionAnswerDto();
+            answer.setTitle("第 " + (i + 1) + " 题：你更喜欢哪种周末安排？");
+            answer.setUserAnswer("和朋友一起出去玩");
+            answers.add(answer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dir.resolve(USER_SCORING_INPUT));
+        Files.deleteIfExists(dir.resolve(USER_QUESTION_INPUT));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public String scoringInputPrecompiled() {
+        return prompts.userScoringInput("MBTI 性格测试", "测试你的 MBTI 性格", answers);
+    }
+
+    /**
+     * 原实现：每次调用读取模板文件再 String.format
+     */
+    @Benchmark
+    public String scoringInputOriginal() {
+        return String.format(readFile(USER_SCORING_INPUT), "MBTI 性格测试", "测试你的 MBTI 性格", JSONUtil.toJsonStr(answers));
+    }
+
+    /**
+     * 模板已缓存，只做 String.format
+     */
+    @Benchmark
+    public String scoringInputFormatOnly() {
+        return String.format(SCORING_TEMPLATE, "MBTI 性格测试", "测试你的 MBTI 性格", JSONUtil.toJsonStr(answers));
+    }
+
+    @Benchmark
+    public String questionInputPrecompiled() {
+        return prompts.userQuestionInput("MBTI 性格测试", "测试你的 MBTI 性格", AppTypeEnum.TEST, questionNumber, 4);
+    }
+
+    /**
+     * 原实现：每次调用读取模板文件再 String.format
+     */
+    @Benchmark
+    public String questionInputOriginal() {
+        return String.format(readFile(USER_QUESTION_INPUT),
+                             "MBTI 性格测试",
+                             "测试你的 MBTI 性格",
+                             AppTypeEnum.TEST.getText(),
+                             questionNumber,
+                             4);
+    }
+
+    @Benchmark
+    public String questionInputFormatOnly() {
+        return String.format(QUESTION_TEMPLATE,
+                             "MBTI 性格测试",
+                             "测试你的 MBTI 性格",
+                             AppTypeEnum.TEST.getText(),
+                             questionNumber,
+                             4);
+    }
+
+    /**
+     * 原 Prompts.readFile：按行读取后拼接
+     */
+    private String readFile(String name) {
+        FileReader reader = new FileReader(dir.resolve(name)
+                                              .toFile());
+        return reader.readLines()
+                     .stream()
+                     .reduce("", (s1, s2) -> s1 + s2 + "\n")
+                     .strip();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PromptsBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+}
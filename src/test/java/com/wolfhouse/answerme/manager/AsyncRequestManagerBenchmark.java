@@ -0,0 +1,107 @@
+package com.wolfhouse.answerme.manager;
+
+import com.wolfhouse.answerme.config.WebAsyncConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步接口执行吞吐基准测试：同步执行与异步执行对比
+ * <p>
+ * 以 8 个基准线程模拟 Tomcat 请求线程，每个请求调用一次耗时固定的模拟模型接口，测量每秒能接受的请求数。
+ * 同步模式下请求线程一直等到模型返回，吞吐约为 请求线程数 / 耗时；
+ * 异步模式下请求线程只负责提交，进行中的请求数由连接数上限（异步线程池线程数 + 队列容量）限制，
+ * 连接数已满时请求线程等待，吞吐约为 连接数上限 / 耗时。
+ * 运行：在 IDE 中执行 main 方法，或 mvn test-compile 后以测试类路径运行本类
+ *
+ * @author Rylin Wolf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AsyncRequestManagerBenchmark {
+    /** 是否开启异步 */
+    @Param({"false", "true"})
+    private boolean async;
+
+    /** 模拟模型接口耗时（毫秒） */
+    @Param({"100"})
+    private long latencyMillis;
+
+    /** 异步线程池线程数，队列容量与之相同 */
+    @Param({"64"})
+    private int asyncPoolSize;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private AsyncRequestManager manager;
+
+    /** 进行中的请求数上限，模拟 Tomcat 的最大连接数 */
+    private Semaphore connections;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncPoolSize);
+        executor.setMaxPoolSize(asyncPoolSize);
+        executor.setQueueCapacity(asyncPoolSize);
+        executor.setThreadNamePrefix("web-async-bench-");
+        executor.initialize();
+        WebAsyncConfig config = new WebAsyncConfig();
+        config.setEnabled(async);
+        manager = new AsyncRequestManager();
+        ReflectionTestUtils.setField(manager, "webAsyncConfig", config);
+        ReflectionTestUtils.setField(manager, "webAsyncExecutor", executor);
+        // 不超过线程池与队列的总容量，提交不会被拒绝
+        connections = new Semaphore(asyncPoolSize * 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 一次请求：占用连接后提交，模型返回时释放连接
+     */
+    @Benchmark
+    public void request() throws InterruptedException {
+        connections.acquire();
+        manager.supply(this::callModel)
+               .whenComplete((value, error) -> connections.release());
+    }
+
+    private int callModel() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        return 1;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AsyncRequestManagerBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+}
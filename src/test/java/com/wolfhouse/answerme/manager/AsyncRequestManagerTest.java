@@ -0,0 +1,87 @@
+package com.wolfhouse.answerme.manager;
+
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.config.WebAsyncConfig;
+import com.wolfhouse.answerme.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 异步接口执行测试：异步队列已满时拒绝，关闭异步时在请求线程中执行
+ * <p>
+ * 同步与异步模式的吞吐对比见 {@link AsyncRequestManagerBenchmark}
+ *
+ * @author Rylin Wolf
+ */
+class AsyncRequestManagerTest {
+
+    @Test
+    void rejectsWhenAsyncQueueIsFull() throws Exception {
+        ThreadPoolTaskExecutor executor = executor(1, 1);
+        AsyncRequestManager manager = manager(true, executor);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 一个任务执行中、一个任务排队，第三个任务被拒绝
+            CompletableFuture<Integer> running = manager.supply(() -> await(release));
+            CompletableFuture<Integer> queued = manager.supply(() -> await(release));
+            BusinessException e = assertThrows(BusinessException.class, () -> manager.supply(() -> 0));
+            assertEquals(ErrorCode.OPERATION_ERROR.getCode(), e.getCode());
+            release.countDown();
+            assertEquals(1, running.get(5, TimeUnit.SECONDS));
+            assertEquals(1, queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void syncModeRunsTaskOnCallerThread() throws Exception {
+        ThreadPoolTaskExecutor executor = executor(1, 1);
+        try {
+            AsyncRequestManager manager = manager(false, executor);
+            Thread caller = Thread.currentThread();
+            assertEquals(caller, manager.supply(Thread::currentThread)
+                                        .get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static AsyncRequestManager manager(boolean async, ThreadPoolTaskExecutor executor) {
+        WebAsyncConfig config = new WebAsyncConfig();
+        config.setEnabled(async);
+        AsyncRequestManager manager = new AsyncRequestManager();
+        ReflectionTestUtils.setField(manager, "webAsyncConfig", config);
+        ReflectionTestUtils.setField(manager, "webAsyncExecutor", executor);
+        return manager;
+    }
+
+    private static ThreadPoolTaskExecutor executor(int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("web-async-test-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static int await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,68 @@
+package com.wolfhouse.answerme.manager;
+
+import com.wolfhouse.answerme.common.CursorPage;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.common.PageRequest;
+import com.wolfhouse.answerme.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 游标分页测试
+ *
+ * @author Rylin Wolf
+ */
+class CursorPageManagerTest {
+    private final CursorPageManager cursorPageManager = new CursorPageManager();
+
+    @Test
+    void rejectsNonPositivePageSize() {
+        for (int size : new int[]{0, -1}) {
+            PageRequest request = new PageRequest();
+            request.setPageSize(size);
+            // 校验在查询之前，不会访问实体服务
+            BusinessException e = assertThrows(BusinessException.class,
+                                               () -> cursorPageManager.page(null, request, r -> null, id -> 0L));
+            assertEquals(ErrorCode.PARAMS_ERROR.getCode(), e.getCode());
+        }
+    }
+
+    @Test
+    void fillUsesExtraRecordToDetectNextPage() {
+        List<Long> records = new ArrayList<>(List.of(9L, 8L, 7L));
+        CursorPage<Long> page = new CursorPage<>();
+        cursorPageManager.fill(page, records, 2, id -> id);
+        assertEquals(List.of(9L, 8L), page.getRecords());
+        assertTrue(page.isHasMore());
+        assertEquals(8L, cursorPageManager.decodeCursor(page.getNextCursor()));
+
+        CursorPage<Long> last = new CursorPage<>();
+        cursorPageManager.fill(last, List.of(6L), 2, id -> id);
+        assertFalse(last.isHasMore());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void fillWithExplicitNextIdAllowsShortPage() {
+        // 索引行已满一页而部分记录已删除
+        CursorPage<Long> page = new CursorPage<>();
+        cursorPageManager.fill(page, List.of(9L), 7L);
+        assertEquals(List.of(9L), page.getRecords());
+        assertTrue(page.isHasMore());
+        assertEquals(7L, cursorPageManager.decodeCursor(page.getNextCursor()));
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        BusinessException e = assertThrows(BusinessException.class, () -> cursorPageManager.decodeCursor("!!"));
+        assertEquals(ErrorCode.PARAMS_ERROR.getCode(), e.getCode());
+    }
+}
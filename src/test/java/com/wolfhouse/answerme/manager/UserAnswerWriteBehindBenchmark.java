@@ -0,0 +1,124 @@
+package com.wolfhouse.answerme.manager;
+
+import com.wolfhouse.answerme.config.WriteBehindConfig;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.service.UserAnswerIndexService;
+import com.wolfhouse.answerme.service.UserAnswerService;
+import com.wolfhouse.answerme.sharding.UserAnswerResharder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 答题记录写入吞吐基准测试：延迟写入（内存缓冲区）与逐条同步写入对比
+ * <p>
+ * 以固定耗时模拟一次数据库往返，批量写入每批只有一次往返。
+ * 多个线程同时提交，测量每秒能接受的答题记录数；缓冲区已满被拒绝的提交计为失败（返回 false）。
+ * 运行：在 IDE 中执行 main 方法，或 mvn test-compile 后以测试类路径运行本类
+ *
+ * @author Rylin Wolf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class UserAnswerWriteBehindBenchmark {
+    /** 模拟一次数据库往返的耗时（微秒） */
+    @Param({"500", "2000"})
+    private long roundTripMicros;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private UserAnswerService userAnswerService;
+
+    private UserAnswerWriteBehindManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Answer<Boolean> roundTrip = invocation -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+            return true;
+        };
+        userAnswerService = mock(UserAnswerService.class);
+        when(userAnswerService.save(any())).thenAnswer(roundTrip);
+        when(userAnswerService.saveBatch(anyCollection(), anyInt())).thenAnswer(roundTrip);
+
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setEnabled(true);
+        manager = new UserAnswerWriteBehindManager();
+        ReflectionTestUtils.setField(manager, "writeBehindConfig", config);
+        ReflectionTestUtils.setField(manager, "userAnswerService", userAnswerService);
+        ReflectionTestUtils.setField(manager, "userAnswerIndexService", mock(UserAnswerIndexService.class));
+        ReflectionTestUtils.setField(manager, "userAnswerResharder", mock(UserAnswerResharder.class));
+        ReflectionTestUtils.setField(manager, "meterRegistry", new SimpleMeterRegistry());
+        manager.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        manager.destroy();
+    }
+
+    @Benchmark
+    public boolean writeBehind() {
+        try {
+            manager.submit(userAnswer());
+            return true;
+        } catch (BusinessException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 原实现：每次提交同步写入一行
+     */
+    @Benchmark
+    public boolean direct() {
+        return userAnswerService.save(userAnswer());
+    }
+
+    private UserAnswer userAnswer() {
+        long id = ids.incrementAndGet();
+        UserAnswer userAnswer = new UserAnswer();
+        userAnswer.setId(id);
+        userAnswer.setAppId(id % 8);
+        userAnswer.setUserId(id % 1024);
+        return userAnswer;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UserAnswerWriteBehindBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+}
@@ -0,0 +1,352 @@
+package com.wolfhouse.answerme.manager;
+
+import cn.hutool.json.JSONUtil;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wolfhouse.answerme.common.ErrorCode;
+import com.wolfhouse.answerme.config.WriteBehindConfig;
+import com.wolfhouse.answerme.exception.BusinessException;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.service.UserAnswerIndexService;
+import com.wolfhouse.answerme.service.UserAnswerService;
+import com.wolfhouse.answerme.sharding.ReshardConfig;
+import com.wolfhouse.answerme.sharding.ReshardPhase;
+import com.wolfhouse.answerme.sharding.UserAnswerHotApps;
+import com.wolfhouse.answerme.sharding.UserAnswerResharder;
+import com.wolfhouse.answerme.sharding.UserAnswerShardLayout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Invocation;
+import org.redisson.api.AutoClaimResult;
+import org.redisson.api.RScript;
+import org.redisson.api.RStream;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 答题记录延迟写入测试：缓冲区满时拒绝、内存缓冲区写入失败后重试、重复写入（崩溃后重新读取）与刷出记录的双写
+ *
+ * @author Rylin Wolf
+ */
+class UserAnswerWriteBehindManagerTest {
+    private static final long APP_ID = 3L;
+    private static final long USER_ID = 7L;
+
+    /** 原分表 2 张、新分表 4 张时应用 3 所在的新分表 */
+    private static final String TARGET_TABLE = "user_answer_v2_3";
+
+    private WriteBehindConfig config;
+
+    private UserAnswerService userAnswerService;
+
+    private UserAnswerIndexService userAnswerIndexService;
+
+    private UserAnswerResharder userAnswerResharder;
+
+    private UserAnswerWriteBehindManager manager;
+
+    @BeforeEach
+    void setUp() {
+        UserAnswerHotApps.update(Collections.emptyList());
+        config = new WriteBehindConfig();
+        config.setEnabled(true);
+        config.setCapacity(1);
+        config.setOfferTimeout(50L);
+        userAnswerService = mock(UserAnswerService.class);
+        userAnswerIndexService = mock(UserAnswerIndexService.class);
+        userAnswerResharder = mock(UserAnswerResharder.class);
+        manager = new UserAnswerWriteBehindManager();
+        ReflectionTestUtils.setField(manager, "writeBehindConfig", config);
+        ReflectionTestUtils.setField(manager, "userAnswerService", userAnswerService);
+        ReflectionTestUtils.setField(manager, "userAnswerIndexService", userAnswerIndexService);
+        ReflectionTestUtils.setField(manager, "userAnswerResharder", userAnswerResharder);
+        // 不调用 init，避免启动后台线程与连接 Redis
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(manager, "buffered", Caffeine.newBuilder()
+                                                                  .build());
+        ReflectionTestUtils.setField(manager, "rejectedCounter", registry.counter("rejected"));
+        ReflectionTestUtils.setField(manager, "droppedCounter", registry.counter("dropped"));
+        ReflectionTestUtils.setField(manager, "batchSizeSummary", registry.summary("batch"));
+        ReflectionTestUtils.setField(manager, "queue", new ArrayBlockingQueue<UserAnswer>(config.getCapacity()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void memoryBufferRejectsAfterOfferTimeoutWhenFull() {
+        manager.submit(userAnswer(1L));
+
+        long start = System.nanoTime();
+        BusinessException e = assertThrows(BusinessException.class, () -> manager.submit(userAnswer(2L)));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ErrorCode.OPERATION_ERROR.getCode(), e.getCode());
+        assertTrue(waited >= config.getOfferTimeout() - 5, "waited " + waited + "ms");
+        // 被拒绝的记录不能被读到，已接受的记录仍可读
+        assertNull(manager.getBuffered(2L));
+        assertNotNull(manager.getBuffered(1L));
+    }
+
+    @Test
+    void durableBufferRetriesUntilOfferTimeoutWhenFull() {
+        config.setDurable(true);
+        // 脚本检查长度已达容量，返回空
+        RScript script = mock(RScript.class);
+        ReflectionTestUtils.setField(manager, "script", script);
+
+        long start = System.nanoTime();
+        BusinessException e = assertThrows(BusinessException.class, () -> manager.submit(userAnswer(1L)));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ErrorCode.OPERATION_ERROR.getCode(), e.getCode());
+        assertTrue(waited >= config.getOfferTimeout() - 5, "waited " + waited + "ms");
+        // 等待期间多次重新检查，而不是只检查一次
+        assertTrue(evals(script).size() > 1);
+        assertNull(manager.getBuffered(1L));
+    }
+
+    @Test
+    void durableBufferAppendsWithAtomicCapacityCheck() {
+        config.setDurable(true);
+        RScript script = mock(RScript.class, invocation -> "1-0");
+        ReflectionTestUtils.setField(manager, "script", script);
+
+        manager.submit(userAnswer(1L));
+
+        List<Invocation> evals = evals(script);
+        assertEquals(1, evals.size());
+        Object[] arguments = evals.get(0)
+                                  .getArguments();
+        assertTrue(((String) arguments[2]).contains("XLEN"));
+        // 参数依次为容量、字段名与记录
+        assertEquals(String.valueOf(config.getCapacity()), arguments[5]);
+        assertEquals(1L, JSONUtil.toBean((String) arguments[7], UserAnswer.class)
+                                 .getId());
+        assertNotNull(manager.getBuffered(1L));
+    }
+
+    @Test
+    void replayedDuplicateRowsCountAsWrittenAndAreSyncedAgain() {
+        UserAnswer written = userAnswer(1L);
+        UserAnswer fresh = userAnswer(2L);
+        manager.submit(written);
+        when(userAnswerService.saveBatch(anyCollection(), anyInt())).thenThrow(new DuplicateKeyException("dup"));
+        doThrow(new DuplicateKeyException("dup")).when(userAnswerIndexService)
+                                                 .addIndex(anyList());
+        when(userAnswerService.save(written)).thenThrow(new DuplicateKeyException("dup"));
+        when(userAnswerService.save(fresh)).thenReturn(true);
+
+        List<UserAnswer> failed = write(List.of(written, fresh));
+
+        assertTrue(failed.isEmpty());
+        verify(userAnswerService).save(fresh);
+        // 已写入的记录上次可能在双写前崩溃，重新双写
+        verify(userAnswerResharder).sync(written.getId(), written.getAppId());
+        assertNull(manager.getBuffered(written.getId()));
+    }
+
+    @Test
+    void failedRowsAreReturnedForRetry() {
+        UserAnswer userAnswer = userAnswer(1L);
+        when(userAnswerService.saveBatch(anyCollection(), anyInt())).thenThrow(new IllegalStateException("down"));
+        when(userAnswerService.save(userAnswer)).thenThrow(new IllegalStateException("down"));
+
+        List<UserAnswer> failed = write(List.of(userAnswer));
+
+        assertEquals(List.of(userAnswer), failed);
+        verify(userAnswerResharder, never()).sync(anyLong(), anyLong());
+    }
+
+    @Test
+    void memoryBufferRetriesFailedRowsInsteadOfDropping() {
+        UserAnswer userAnswer = userAnswer(1L);
+        manager.submit(userAnswer);
+        ReflectionTestUtils.setField(manager, "running", true);
+        // 第一次批量与逐条写入都失败，重试时写入成功并结束循环
+        when(userAnswerService.saveBatch(anyCollection(), anyInt()))
+            .thenThrow(new IllegalStateException("down"))
+            .thenAnswer(invocation -> {
+                ReflectionTestUtils.setField(manager, "running", false);
+                return true;
+            });
+        when(userAnswerService.save(userAnswer)).thenThrow(new IllegalStateException("down"));
+
+        ReflectionTestUtils.invokeMethod(manager, "consumeQueue");
+
+        verify(userAnswerService, times(2)).saveBatch(anyCollection(), anyInt());
+        assertEquals(0.0, dropped());
+        assertNull(manager.getBuffered(userAnswer.getId()));
+    }
+
+    @Test
+    void memoryBufferDropsFailedRowsOnlyAfterShutdownTimeout() {
+        UserAnswer userAnswer = userAnswer(1L);
+        manager.submit(userAnswer);
+        // 已关闭且超过关闭等待时间
+        ReflectionTestUtils.setField(manager, "running", false);
+        ReflectionTestUtils.setField(manager, "shutdownDeadline", 0L);
+        when(userAnswerService.saveBatch(anyCollection(), anyInt())).thenThrow(new IllegalStateException("down"));
+        when(userAnswerService.save(userAnswer)).thenThrow(new IllegalStateException("down"));
+
+        ReflectionTestUtils.invokeMethod(manager, "consumeQueue");
+
+        verify(userAnswerService).saveBatch(anyCollection(), anyInt());
+        assertEquals(1.0, dropped());
+        assertNull(manager.getBuffered(userAnswer.getId()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaysUnacknowledgedStreamRowsAndAcknowledgesThem() {
+        config.setDurable(true);
+        RStream<String, String> stream = mock(RStream.class);
+        ReflectionTestUtils.setField(manager, "stream", stream);
+        ReflectionTestUtils.setField(manager, "consumer", "node-1");
+        ReflectionTestUtils.setField(manager, "running", true);
+        // 重启前已写入但未确认的记录与尚未写入的记录
+        UserAnswer written = userAnswer(1L);
+        UserAnswer fresh = userAnswer(2L);
+        StreamMessageId writtenId = new StreamMessageId(1, 0);
+        StreamMessageId freshId = new StreamMessageId(2, 0);
+        Map<StreamMessageId, Map<String, String>> pending = new LinkedHashMap<>();
+        pending.put(writtenId, Map.of("row", JSONUtil.toJsonStr(written)));
+        pending.put(freshId, Map.of("row", JSONUtil.toJsonStr(fresh)));
+        // 第一次读取未确认的记录，第二次读取新记录时结束循环
+        when(stream.readGroup(eq("writer"), eq("node-1"), any(StreamReadGroupArgs.class)))
+            .thenReturn(pending)
+            .thenAnswer(invocation -> {
+                ReflectionTestUtils.setField(manager, "running", false);
+                return Collections.emptyMap();
+            });
+        AutoClaimResult<String, String> claimed = mock(AutoClaimResult.class);
+        when(claimed.getMessages()).thenReturn(Collections.emptyMap());
+        when(stream.autoClaim(eq("writer"), eq("node-1"), anyLong(), any(TimeUnit.class), any(StreamMessageId.class), anyInt()))
+            .thenReturn(claimed);
+        when(userAnswerService.saveBatch(anyCollection(), anyInt())).thenThrow(new DuplicateKeyException("dup"));
+        when(userAnswerService.save(written)).thenThrow(new DuplicateKeyException("dup"));
+        when(userAnswerService.save(fresh)).thenReturn(true);
+
+        ReflectionTestUtils.invokeMethod(manager, "consumeStream");
+
+        StreamMessageId[] expected = {writtenId, freshId};
+        assertArrayEquals(expected, rawArgument(stream, "ack", 1));
+        assertArrayEquals(expected, rawArgument(stream, "remove", 0));
+        verify(userAnswerResharder).sync(written.getId(), written.getAppId());
+    }
+
+    @Test
+    void flushedRowsReachStandbyLayoutAfterCommit() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1L))).thenReturn(List.of(USER_ID));
+        UserAnswerResharder resharder = new UserAnswerResharder();
+        ReflectionTestUtils.setField(resharder, "reshardConfig", new ReshardConfig());
+        ReflectionTestUtils.setField(resharder, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(resharder, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(resharder, "source", new UserAnswerShardLayout("user_answer_", 2));
+        ReflectionTestUtils.setField(resharder, "target", new UserAnswerShardLayout("user_answer_v2_", 4));
+        ReflectionTestUtils.setField(resharder, "phase", ReshardPhase.MIGRATING);
+        // 按 UserAnswerServiceImpl.saveBatch 模拟：事务中写入后登记双写，提交后执行
+        when(userAnswerService.saveBatch(anyCollection(), anyInt())).thenAnswer(invocation -> {
+            Collection<UserAnswer> rows = invocation.getArgument(0);
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                resharder.sync(rows);
+                verifyNoInteractions(jdbcTemplate);
+                for (TransactionSynchronization synchronization :
+                    TransactionSynchronizationManager.getSynchronizations()) {
+                    synchronization.afterCommit();
+                }
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            return true;
+        });
+
+        List<UserAnswer> failed = write(List.of(userAnswer(1L)));
+
+        assertTrue(failed.isEmpty());
+        verify(jdbcTemplate).update(startsWith("REPLACE INTO " + TARGET_TABLE + " "), eq(1L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserAnswer> write(List<UserAnswer> rows) {
+        return (List<UserAnswer>) ReflectionTestUtils.invokeMethod(manager, "write", new ArrayList<>(rows));
+    }
+
+    private double dropped() {
+        return ((Counter) ReflectionTestUtils.getField(manager, "droppedCounter")).count();
+    }
+
+    private static List<Invocation> evals(Object mock) {
+        List<Invocation> evals = new ArrayList<>();
+        for (Invocation invocation : mockingDetails(mock).getInvocations()) {
+            if ("eval".equals(invocation.getMethod()
+                                        .getName())) {
+                evals.add(invocation);
+            }
+        }
+        return evals;
+    }
+
+    private static Object rawArgument(Object mock, String method, int index) {
+        for (Invocation invocation : mockingDetails(mock).getInvocations()) {
+            if (method.equals(invocation.getMethod()
+                                        .getName())) {
+                return invocation.getRawArguments()[index];
+            }
+        }
+        throw new AssertionError(method + " not invoked");
+    }
+
+    private static UserAnswer userAnswer(long id) {
+        UserAnswer userAnswer = new UserAnswer();
+        userAnswer.setId(id);
+        userAnswer.setAppId(APP_ID);
+        userAnswer.setUserId(USER_ID);
+        return userAnswer;
+    }
+}
@@ -0,0 +1,259 @@
+package com.wolfhouse.answerme.scoring;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.wolfhouse.answerme.config.ScoringConfig;
+import com.wolfhouse.answerme.config.ThreadPoolConfig;
+import com.wolfhouse.answerme.mapper.UserAnswerMapper;
+import com.wolfhouse.answerme.model.entity.App;
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import com.wolfhouse.answerme.model.enums.ScoringStatusEnum;
+import com.wolfhouse.answerme.model.enums.ScoringStrategyEnum;
+import com.wolfhouse.answerme.service.AppService;
+import com.wolfhouse.answerme.sharding.UserAnswerResharder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异步评分调度测试：评分任务丢失的评分中记录被扫描恢复，关闭时等待队列中的评分完成
+ *
+ * @author Rylin Wolf
+ */
+class AsyncScoringDispatcherTest {
+    private static final long ID = 1001L;
+    private static final long APP_ID = 3L;
+
+    private ScoringConfig scoringConfig;
+
+    private UserAnswerMapper userAnswerMapper;
+
+    private AppService appService;
+
+    private ScoringStrategyExecutor scoringStrategyExecutor;
+
+    private ScoringResultNotifier scoringResultNotifier;
+
+    private ThreadPoolTaskExecutor asyncExecutor;
+
+    private ThreadPoolTaskExecutor aiExecutor;
+
+    private SimpleMeterRegistry registry;
+
+    private AsyncScoringDispatcher dispatcher;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda 条件构造器按实体的表信息解析列名
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UserAnswer.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        scoringConfig = new ScoringConfig();
+        scoringConfig.setAsync(true);
+        userAnswerMapper = mock(UserAnswerMapper.class);
+        appService = mock(AppService.class);
+        scoringStrategyExecutor = mock(ScoringStrategyExecutor.class);
+        scoringResultNotifier = mock(ScoringResultNotifier.class);
+        asyncExecutor = executor(1, 16);
+        aiExecutor = executor(1, 1);
+        registry = new SimpleMeterRegistry();
+        dispatcher = new AsyncScoringDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "scoringStrategyExecutor", scoringStrategyExecutor);
+        ReflectionTestUtils.setField(dispatcher, "userAnswerMapper", userAnswerMapper);
+        ReflectionTestUtils.setField(dispatcher, "scoringResultNotifier", scoringResultNotifier);
+        ReflectionTestUtils.setField(dispatcher, "userAnswerResharder", mock(UserAnswerResharder.class));
+        ReflectionTestUtils.setField(dispatcher, "appService", appService);
+        ReflectionTestUtils.setField(dispatcher, "scoringConfig", scoringConfig);
+        ReflectionTestUtils.setField(dispatcher, "threadPoolConfig", new ThreadPoolConfig());
+        ReflectionTestUtils.setField(dispatcher, "asyncScoringTaskExecutor", asyncExecutor);
+        ReflectionTestUtils.setField(dispatcher, "aiScoringTaskExecutor", aiExecutor);
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", registry);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncExecutor.shutdown();
+        aiExecutor.shutdown();
+    }
+
+    @Test
+    void stalePendingAnswerIsRedispatchedAndScored() throws Exception {
+        App app = app(ScoringStrategyEnum.CUSTOM);
+        when(appService.getById(APP_ID)).thenReturn(app);
+        when(userAnswerMapper.selectList(any())).thenReturn(List.of(pending(minutesAgo(10), minutesAgo(6))));
+        // 认领成功
+        when(userAnswerMapper.update(isNull(), any())).thenReturn(1);
+        when(scoringStrategyExecutor.doScore(List.of("A", "B"), app)).thenReturn(new UserAnswer());
+
+        dispatcher.recover();
+
+        verify(scoringResultNotifier, timeout(5_000)).notifyScored(ID);
+        verify(userAnswerMapper).update(argThat(u -> hasStatus(u, ScoringStatusEnum.SUCCEED)), any());
+        assertEquals(1.0, recovered("redispatched"));
+        assertEquals(0.0, recovered("failed"));
+    }
+
+    @Test
+    void answerClaimedByAnotherNodeIsSkipped() throws Exception {
+        when(appService.getById(APP_ID)).thenReturn(app(ScoringStrategyEnum.CUSTOM));
+        when(userAnswerMapper.selectList(any())).thenReturn(List.of(pending(minutesAgo(10), minutesAgo(6))));
+        // 已完成或已被其他节点认领，更新时间已变化
+        when(userAnswerMapper.update(isNull(), any())).thenReturn(0);
+
+        dispatcher.recover();
+        drain();
+
+        verify(scoringStrategyExecutor, never()).doScore(anyList(), any());
+        verify(scoringResultNotifier, never()).notifyScored(ID);
+        assertEquals(0.0, recovered("redispatched"));
+    }
+
+    @Test
+    void answerPendingTooLongIsFailedAndSubscribersNotified() throws Exception {
+        when(appService.getById(APP_ID)).thenReturn(app(ScoringStrategyEnum.CUSTOM));
+        when(userAnswerMapper.selectList(any())).thenReturn(List.of(pending(minutesAgo(60), minutesAgo(30))));
+        when(userAnswerMapper.update(argThat(u -> hasStatus(u, ScoringStatusEnum.FAILED)), any())).thenReturn(1);
+
+        dispatcher.recover();
+
+        verify(scoringResultNotifier).notifyScored(ID);
+        verify(userAnswerMapper, never()).update(isNull(), any());
+        verify(scoringStrategyExecutor, never()).doScore(anyList(), any());
+        assertEquals(1.0, recovered("failed"));
+    }
+
+    @Test
+    void answerOfDeletedAppIsFailed() {
+        when(userAnswerMapper.selectList(any())).thenReturn(List.of(pending(minutesAgo(10), minutesAgo(6))));
+        when(userAnswerMapper.update(any(), any())).thenReturn(1);
+
+        dispatcher.recover();
+
+        verify(scoringResultNotifier).notifyScored(ID);
+        assertEquals(1.0, recovered("failed"));
+    }
+
+    @Test
+    void fullAiQueueStopsRedispatchUntilNextSweep() throws Exception {
+        App app = app(ScoringStrategyEnum.AI);
+        when(appService.getById(APP_ID)).thenReturn(app);
+        when(userAnswerMapper.selectList(any())).thenReturn(List.of(pending(minutesAgo(10), minutesAgo(6))));
+        CountDownLatch release = new CountDownLatch(1);
+        // 一个任务执行中、一个任务排队，队列已满
+        aiExecutor.execute(() -> await(release));
+        aiExecutor.execute(() -> await(release));
+        try {
+            dispatcher.recover();
+            verify(userAnswerMapper, never()).update(any(), any());
+            assertEquals(0.0, recovered("redispatched"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void shutdownWaitsForQueuedScoring() throws Exception {
+        App app = app(ScoringStrategyEnum.CUSTOM);
+        when(scoringStrategyExecutor.doScore(anyList(), eq(app))).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return new UserAnswer();
+        });
+        for (long id = 1; id <= 5; id++) {
+            dispatcher.dispatch(id, app, List.of("A"));
+        }
+
+        dispatcher.destroy();
+
+        // 返回时队列中的评分都已回写并通知
+        verify(scoringResultNotifier, times(5)).notifyScored(any());
+        assertTrue(asyncExecutor.getThreadPoolExecutor()
+                                .isTerminated());
+    }
+
+    private static boolean hasStatus(UserAnswer userAnswer, ScoringStatusEnum status) {
+        return userAnswer != null && Integer.valueOf(status.getValue())
+                                            .equals(userAnswer.getScoringStatus());
+    }
+
+    private double recovered(String action) {
+        return registry.get("answerme.scoring.async.recovered")
+                       .tag("action", action)
+                       .counter()
+                       .count();
+    }
+
+    private void drain() throws InterruptedException {
+        asyncExecutor.getThreadPoolExecutor()
+                     .shutdown();
+        asyncExecutor.getThreadPoolExecutor()
+                     .awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static UserAnswer pending(Date createTime, Date updateTime) {
+        UserAnswer userAnswer = new UserAnswer();
+        userAnswer.setId(ID);
+        userAnswer.setAppId(APP_ID);
+        userAnswer.setChoices("[\"A\",\"B\"]");
+        userAnswer.setScoringStatus(ScoringStatusEnum.PENDING.getValue());
+        userAnswer.setCreateTime(createTime);
+        userAnswer.setUpdateTime(updateTime);
+        return userAnswer;
+    }
+
+    private static App app(ScoringStrategyEnum strategy) {
+        App app = new App();
+        app.setId(APP_ID);
+        app.setScoringStrategy(strategy.getValue());
+        return app;
+    }
+
+    private static Date minutesAgo(long minutes) {
+        return new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutes));
+    }
+
+    private static ThreadPoolTaskExecutor executor(int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("scoring-test-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+}
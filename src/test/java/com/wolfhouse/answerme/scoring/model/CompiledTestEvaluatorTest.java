@@ -0,0 +1,181 @@
+package com.wolfhouse.answerme.scoring.model;
+
+import cn.hutool.json.JSONUtil;
+import com.wolfhouse.answerme.model.dto.question.QuestionContentDto;
+import com.wolfhouse.answerme.model.entity.ScoringResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 预编译测评类计算器与原算法的差分测试
+ *
+ * @author Rylin Wolf
+ */
+class CompiledTestEvaluatorTest {
+    private static final String[] KEYS = {"A", "B", "C", "D", "E"};
+
+    /** 包含题目中不存在的选项 */
+    private static final String[] CHOICE_KEYS = {"A", "B", "C", "D", "E", "F", "X"};
+
+    private static final String[] PROPS = {"I", "E", "S", "N", "T", "F", "J", "P"};
+
+    @Test
+    void randomizedAppsMatchOriginalAlgorithm() {
+        Random random = new Random(20241018L);
+        for (int app = 0; app < 2000; app++) {
+            List<QuestionContentDto> questions = randomQuestions(random);
+            List<ScoringResult> results = randomResults(random);
+            CompiledTestEvaluator evaluator = CompiledTestEvaluator.compile(questions, results);
+            for (int round = 0; round < 20; round++) {
+                List<String> choices = randomChoices(random, questions.size());
+                assertSame(original(questions, results, choices),
+                           evaluator.evaluate(choices),
+                           () -> "questions: " + JSONUtil.toJsonStr(questions) + ", results: " +
+                                 JSONUtil.toJsonStr(results) + ", choices: " + choices);
+            }
+        }
+    }
+
+    @Test
+    void tieKeepsEarlierResult() {
+        List<QuestionContentDto> questions = List.of(question(option("A", "I"), option("B", "E")),
+                                                     question(option("A", "I"), option("B", "E")));
+        List<ScoringResult> results = List.of(result("[\"E\"]"), result("[\"I\"]"));
+        assertBothSame(questions, results, List.of("A", "B"), results.get(0));
+        assertBothSame(questions, results, List.of("B", "A"), results.get(0));
+        assertBothSame(questions, results, List.of("A", "A"), results.get(1));
+    }
+
+    @Test
+    void unknownOptionsAndEmptyChoicesFallBackToFirstResult() {
+        List<QuestionContentDto> questions = List.of(question(option("A", "I")), question(option("A", "E")));
+        List<ScoringResult> results = List.of(result("[\"E\"]"), result("[\"I\"]"));
+        assertBothSame(questions, results, List.of("X", "Y"), results.get(0));
+        assertBothSame(questions, results, Collections.emptyList(), results.get(0));
+        assertBothSame(questions, results, List.of("X", "X", "A", "A"), results.get(0));
+        assertBothSame(questions, results, List.of("A"), results.get(1));
+    }
+
+    @Test
+    void duplicateKeyInQuestionUsesFirstOption() {
+        List<QuestionContentDto> questions = List.of(question(option("A", "E"), option("A", "I")));
+        List<ScoringResult> results = List.of(result("[\"I\"]"), result("[\"E\"]"));
+        assertBothSame(questions, results, List.of("A"), results.get(1));
+    }
+
+    private static void assertBothSame(List<QuestionContentDto> questions,
+                                       List<ScoringResult> results,
+                                       List<String> choices,
+                                       ScoringResult expected) {
+        assertSame(expected, original(questions, results, choices));
+        assertSame(expected, CompiledTestEvaluator.compile(questions, results)
+                                                  .evaluate(choices));
+    }
+
+    /**
+     * 原测评类算法（CustomTestScoringStrategy 预编译前的实现）
+     */
+    private static ScoringResult original(List<QuestionContentDto> questions,
+                                          List<ScoringResult> scoringResults,
+                                          List<String> choices) {
+        Map<String, Integer> optionCount = new HashMap<>();
+        int size = Math.min(choices.size(), questions.size());
+        for (int i = 0; i < size; i++) {
+            String answer = choices.get(i);
+            for (QuestionContentDto.Option option : questions.get(i)
+                                                             .getOptions()) {
+                if (option.getKey()
+                          .equals(answer)) {
+                    String result = option.getResult();
+                    optionCount.put(result, optionCount.getOrDefault(result, 0) + 1);
+                    break;
+                }
+            }
+        }
+        int maxScore = 0;
+        ScoringResult maxScoringResult = scoringResults.get(0);
+        for (ScoringResult result : scoringResults) {
+            List<String> resultPropList = JSONUtil.toList(result.getResultProp(), String.class);
+            int score = resultPropList.stream()
+                                      .mapToInt(prop -> optionCount.getOrDefault(prop, 0))
+                                      .sum();
+            if (score > maxScore) {
+                maxScore = score;
+                maxScoringResult = result;
+            }
+        }
+        return maxScoringResult;
+    }
+
+    private static List<QuestionContentDto> randomQuestions(Random random) {
+        int questionCount = random.nextInt(16);
+        List<QuestionContentDto> questions = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            int optionCount = 1 + random.nextInt(5);
+            List<QuestionContentDto.Option> options = new ArrayList<>(optionCount);
+            for (int j = 0; j < optionCount; j++) {
+                // 少量重复 key
+                String key = random.nextInt(10) == 0 ? KEYS[random.nextInt(KEYS.length)] : KEYS[j];
+                options.add(option(key, PROPS[random.nextInt(PROPS.length)]));
+            }
+            questions.add(new QuestionContentDto("q" + i, options));
+        }
+        return questions;
+    }
+
+    private static List<ScoringResult> randomResults(Random random) {
+        int resultCount = 1 + random.nextInt(6);
+        List<ScoringResult> results = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            // 属性可能为空、重复，或与已有结果完全相同（同分）
+            if (i > 0 && random.nextInt(5) == 0) {
+                results.add(result(results.get(random.nextInt(i))
+                                          .getResultProp()));
+                continue;
+            }
+            int propCount = random.nextInt(5);
+            List<String> props = new ArrayList<>(propCount);
+            for (int j = 0; j < propCount; j++) {
+                props.add(random.nextInt(8) == 0 ? "Z" : PROPS[random.nextInt(PROPS.length)]);
+            }
+            results.add(result(JSONUtil.toJsonStr(props)));
+        }
+        return results;
+    }
+
+    private static List<String> randomChoices(Random random, int questionCount) {
+        int mode = random.nextInt(10);
+        if (mode == 0) {
+            return Collections.emptyList();
+        }
+        // 答案数可能少于或多于题目数
+        int size = mode == 1 ? random.nextInt(questionCount + 3) : questionCount;
+        List<String> choices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            choices.add(CHOICE_KEYS[random.nextInt(CHOICE_KEYS.length)]);
+        }
+        return choices;
+    }
+
+    private static QuestionContentDto question(QuestionContentDto.Option... options) {
+        return new QuestionContentDto("q", List.of(options));
+    }
+
+    private static QuestionContentDto.Option option(String key, String result) {
+        return new QuestionContentDto.Option(key, key, result, null);
+    }
+
+    private static ScoringResult result(String resultProp) {
+        ScoringResult result = new ScoringResult();
+        result.setResultProp(resultProp);
+        return result;
+    }
+}
@@ -0,0 +1,337 @@
+package com.wolfhouse.answerme.service;
+
+import com.wolfhouse.answerme.sharding.UserAnswerShardLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按用户分页查询答题记录基准测试：广播到全部分表与经 userId 索引表路由对比（本地 MySQL）
+ * <p>
+ * 用户答题记录按 appId 分表，只按 userId 查询时 ShardingSphere 广播到全部分表，
+ * 每张分表按 limit 0, offset + size 查询后归并；经索引表查询时先在 user_answer_index 中按 (userId, id) 联合索引
+ * 取出本页的 id 与 appId，再只查询这些记录所在的分表。本类以 JDBC 直接执行两种方式下实际发出的 SQL：
+ * <ul>
+ *     <li>broadcast：每张分表执行 count 与 where userId = ? order by id desc limit offset + size，在内存中归并后跳过 offset</li>
+ *     <li>routed：索引表执行 count 与 where userId = ? order by id desc limit offset, size，
+ *     再按 {@link UserAnswerShardLayout} 只查询本页记录所在的分表（appId in (...) and id in (...)）</li>
+ * </ul>
+ * 游标分页（cursor*）不统计总数，按 id < 游标 查询 size + 1 条。
+ * <p>
+ * 数据以固定种子生成：共 rows 条记录，分布在 200 个应用与 10000 个用户中，被查询的用户有 500 条记录，分散在各个应用。
+ * 基准数据写入 bench_ 前缀的独立表中，不影响业务数据；表结构按业务表复制，须先执行 sql/create_table.sql。
+ * 连接参数默认与 application.yml 相同，可通过 -Dbench.jdbc.url、-Dbench.jdbc.username、-Dbench.jdbc.password 指定。
+ * 运行：启动本地 MySQL 后在 IDE 中执行 main 方法，或 mvn test-compile 后以测试类路径运行本类
+ *
+ * @author Rylin Wolf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserAnswerPagingBenchmark {
+    private static final String TABLE_PREFIX = "bench_user_answer_";
+    private static final String INDEX_TABLE = "bench_user_answer_index";
+    private static final long SEED = 42L;
+    private static final int APP_COUNT = 200;
+    private static final int USER_COUNT = 10_000;
+    /** 被查询的用户 */
+    private static final long TARGET_USER = 1L;
+    private static final int TARGET_USER_ROWS = 500;
+    private static final int PAGE_SIZE = 10;
+    private static final int INSERT_BATCH_SIZE = 1_000;
+
+    /** 答题记录总数 */
+    @Param({"200000"})
+    private int rows;
+
+    /** 分表数 */
+    @Param({"2", "4"})
+    private int shardCount;
+
+    /** 页码（从 1 开始），游标分页从该页的第一条开始 */
+    @Param({"1", "20"})
+    private int current;
+
+    private Connection connection;
+
+    private UserAnswerShardLayout layout;
+
+    /** 游标分页的起始游标：上一页最后一条记录的 id */
+    private Long cursor;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+            System.getProperty("bench.jdbc.url", "jdbc:mysql://localhost:3306/my_db?rewriteBatchedStatements=true"),
+            System.getProperty("bench.jdbc.username", "root"),
+            System.getProperty("bench.jdbc.password", "123456"));
+        layout = new UserAnswerShardLayout(TABLE_PREFIX, shardCount);
+        createTables();
+        seed();
+        cursor = null;
+        if (current > 1) {
+            List<long[]> previous = routedIndexes((long) (current - 2) * PAGE_SIZE, PAGE_SIZE);
+            cursor = previous.get(previous.size() - 1)[0];
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : layout.tables()) {
+                statement.execute("drop table if exists " + table);
+            }
+            statement.execute("drop table if exists " + INDEX_TABLE);
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void pageBroadcast(Blackhole blackhole) throws SQLException {
+        long offset = (long) (current - 1) * PAGE_SIZE;
+        long total = 0;
+        List<Map<String, Object>> merged = new ArrayList<>();
+        for (String table : layout.tables()) {
+            total += count("select count(*) from " + table + " where userId = ? and isDelete = 0");
+            merged.addAll(query("select * from " + table +
+                                " where userId = ? and isDelete = 0 order by id desc limit " + (offset + PAGE_SIZE),
+                                TARGET_USER));
+        }
+        blackhole.consume(total);
+        blackhole.consume(page(merged, offset));
+    }
+
+    @Benchmark
+    public void pageRouted(Blackhole blackhole) throws SQLException {
+        blackhole.consume(count("select count(*) from " + INDEX_TABLE + " where userId = ?"));
+        blackhole.consume(listByIndexes(routedIndexes((long) (current - 1) * PAGE_SIZE, PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> cursorBroadcast() throws SQLException {
+        List<Map<String, Object>> merged = new ArrayList<>();
+        for (String table : layout.tables()) {
+            merged.addAll(query("select * from " + table + " where userId = ? and isDelete = 0" +
+                                (cursor != null ? " and id < " + cursor : "") +
+                                " order by id desc limit " + (PAGE_SIZE + 1), TARGET_USER));
+        }
+        return page(merged, 0);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> cursorRouted() throws SQLException {
+        List<long[]> indexes = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+            "select id, appId from " + INDEX_TABLE + " where userId = ?" +
+            (cursor != null ? " and id < " + cursor : "") +
+            " order by id desc limit " + (PAGE_SIZE + 1))) {
+            statement.setLong(1, TARGET_USER);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    indexes.add(new long[]{resultSet.getLong(1), resultSet.getLong(2)});
+                }
+            }
+        }
+        return listByIndexes(indexes);
+    }
+
+    /**
+     * 归并各分表结果：按 id 倒序，跳过 offset 后取一页
+     */
+    private List<Map<String, Object>> page(List<Map<String, Object>> merged, long offset) {
+        merged.sort((a, b) -> Long.compare((Long) b.get("id"), (Long) a.get("id")));
+        int from = (int) Math.min(offset, merged.size());
+        int to = Math.min(from + PAGE_SIZE, merged.size());
+        return new ArrayList<>(merged.subList(from, to));
+    }
+
+    /**
+     * 索引表中本页的 id 与 appId
+     */
+    private List<long[]> routedIndexes(long offset, long size) throws SQLException {
+        List<long[]> indexes = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+            "select id, appId from " + INDEX_TABLE + " where userId = ? order by id desc limit " + offset + ", " + size)) {
+            statement.setLong(1, TARGET_USER);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    indexes.add(new long[]{resultSet.getLong(1), resultSet.getLong(2)});
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * 只查询索引中记录可能所在的分表，结果保持索引顺序
+     */
+    private List<Map<String, Object>> listByIndexes(List<long[]> indexes) throws SQLException {
+        if (indexes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> tables = new LinkedHashSet<>();
+        StringJoiner appIds = new StringJoiner(",");
+        StringJoiner ids = new StringJoiner(",");
+        for (long[] index : indexes) {
+            tables.addAll(layout.tablesOfId(index[1], index[0]));
+            appIds.add(Long.toString(index[1]));
+            ids.add(Long.toString(index[0]));
+        }
+        Map<Long, Map<String, Object>> byId = new HashMap<>(indexes.size() * 2);
+        for (String table : tables) {
+            for (Map<String, Object> row : query("select * from " + table + " where appId in (" + appIds +
+                                                 ") and id in (" + ids + ") and isDelete = 0")) {
+                byId.put((Long) row.get("id"), row);
+            }
+        }
+        List<Map<String, Object>> records = new ArrayList<>(indexes.size());
+        for (long[] index : indexes) {
+            Map<String, Object> row = byId.get(index[0]);
+            if (row != null) {
+                records.add(row);
+            }
+        }
+        return records;
+    }
+
+    private long count(String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, TARGET_USER);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private List<Map<String, Object>> query(String sql, long... params) throws SQLException {
+        List<Map<String, Object>> records = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setLong(i + 1, params[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int columns = resultSet.getMetaData()
+                                       .getColumnCount();
+                while (resultSet.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>(columns * 2);
+                    for (int i = 1; i <= columns; i++) {
+                        row.put(resultSet.getMetaData()
+                                         .getColumnLabel(i), resultSet.getObject(i));
+                    }
+                    records.add(row);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 按业务表结构创建基准表
+     */
+    private void createTables() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : layout.tables()) {
+                statement.execute("drop table if exists " + table);
+                statement.execute("create table " + table + " like user_answer_0");
+            }
+            statement.execute("drop table if exists " + INDEX_TABLE);
+            statement.execute("create table " + INDEX_TABLE + " like user_answer_index");
+        }
+    }
+
+    /**
+     * 以固定种子生成数据，被查询用户的记录均匀穿插在其他记录中
+     */
+    private void seed() throws SQLException {
+        Random random = new Random(SEED);
+        Map<String, PreparedStatement> inserts = new HashMap<>();
+        connection.setAutoCommit(false);
+        try (PreparedStatement indexInsert = connection.prepareStatement(
+            "insert into " + INDEX_TABLE + " (id, userId, appId) values (?, ?, ?)")) {
+            for (String table : layout.tables()) {
+                inserts.put(table, connection.prepareStatement(
+                    "insert into " + table + " (id, appId, choices, resultName, userId) values (?, ?, ?, ?, ?)"));
+            }
+            int targetEvery = Math.max(1, rows / TARGET_USER_ROWS);
+            for (long id = 1; id <= rows; id++) {
+                long appId = 1 + random.nextInt(APP_COUNT);
+                long userId = id % targetEvery == 0 ? TARGET_USER : 2 + random.nextInt(USER_COUNT - 1);
+                PreparedStatement insert = inserts.get(layout.tableOf(appId, userId, id));
+                insert.setLong(1, id);
+                insert.setLong(2, appId);
+                insert.setString(3, "[\"A\",\"B\",\"C\",\"D\",\"A\",\"B\",\"C\",\"D\",\"A\",\"B\"]");
+                insert.setString(4, "结果 " + random.nextInt(16));
+                insert.setLong(5, userId);
+                insert.addBatch();
+                indexInsert.setLong(1, id);
+                indexInsert.setLong(2, userId);
+                indexInsert.setLong(3, appId);
+                indexInsert.addBatch();
+                if (id % INSERT_BATCH_SIZE == 0) {
+                    for (PreparedStatement statement : inserts.values()) {
+                        statement.executeBatch();
+                    }
+                    indexInsert.executeBatch();
+                    connection.commit();
+                }
+            }
+            for (PreparedStatement statement : inserts.values()) {
+                statement.executeBatch();
+            }
+            indexInsert.executeBatch();
+            connection.commit();
+        } finally {
+            for (PreparedStatement statement : inserts.values()) {
+                statement.close();
+            }
+            connection.setAutoCommit(true);
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String table : layout.tables()) {
+                statement.execute("analyze table " + table);
+            }
+            statement.execute("analyze table " + INDEX_TABLE);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UserAnswerPagingBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+}
@@ -0,0 +1,220 @@
+package com.wolfhouse.answerme.sharding;
+
+import com.wolfhouse.answerme.model.entity.UserAnswerHotApp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热点应用分表路由测试：Java 路由与重新分表使用的 SQL 表达式必须把每一行路由到同一张分表；
+ * 答题记录集中在少数应用时，热点应用分散后各分表的记录数应接近
+ *
+ * @author Rylin Wolf
+ */
+class UserAnswerHotAppsTest {
+    private static final int SHARD_COUNT = 4;
+
+    private static final long HOT_APP = 5L;
+    private static final long HOT_SINCE_ID = 1_000L;
+    /** 分散数大于分表数，按分表数计算 */
+    private static final long WIDE_HOT_APP = 10L;
+    private static final long WIDE_SINCE_ID = 2_000L;
+    /** 分散数为 1，等同普通应用 */
+    private static final long SINGLE_HOT_APP = 11L;
+    private static final long COLD_APP = 6L;
+
+    private static final Pattern WHEN = Pattern.compile(
+        "WHEN (\\d+) THEN IF\\(id >= (\\d+), MOD\\(CRC32\\(userId\\), (\\d+)\\), 0\\)");
+    private static final Pattern MOD_APP_ID = Pattern.compile("MOD\\(appId, (\\d+)\\)");
+    private static final Pattern MOD_CASE = Pattern.compile("MOD\\(appId \\+ CASE appId( WHEN .*) ELSE 0 END, (\\d+)\\)");
+
+    @BeforeEach
+    void setUp() {
+        UserAnswerHotApps.update(List.of(hotApp(HOT_APP, 3, HOT_SINCE_ID),
+                                         hotApp(WIDE_HOT_APP, 16, WIDE_SINCE_ID),
+                                         hotApp(SINGLE_HOT_APP, 1, 0L)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserAnswerHotApps.update(List.of());
+    }
+
+    @Test
+    void sqlExpressionMatchesJavaRouting() {
+        String expression = UserAnswerHotApps.shardExpression(SHARD_COUNT);
+        long[] appIds = {HOT_APP, WIDE_HOT_APP, SINGLE_HOT_APP, COLD_APP, 0L, 1L, 12_345_678_901L};
+        long[] ids = {1L, HOT_SINCE_ID - 1, HOT_SINCE_ID, WIDE_SINCE_ID - 1, WIDE_SINCE_ID, 1_800_000_000_000_000_000L};
+        for (long appId : appIds) {
+            for (long id : ids) {
+                for (long userId = 1; userId <= 300; userId++) {
+                    int expected = UserAnswerHotApps.shard(appId, userId, id, SHARD_COUNT);
+                    assertEquals(expected,
+                                 evaluate(expression, appId, userId, id),
+                                 "appId=" + appId + ", userId=" + userId + ", id=" + id);
+                }
+            }
+        }
+    }
+
+    @Test
+    void hotAppSpreadsOnlyRecordsSinceSinceId() {
+        int home = (int) (HOT_APP % SHARD_COUNT);
+        for (long userId = 1; userId <= 300; userId++) {
+            assertEquals(home, UserAnswerHotApps.shard(HOT_APP, userId, HOT_SINCE_ID - 1, SHARD_COUNT));
+        }
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (long userId = 1; userId <= 300; userId++) {
+            int shard = UserAnswerHotApps.shard(HOT_APP, userId, HOT_SINCE_ID, SHARD_COUNT);
+            assertTrue(UserAnswerHotApps.shards(HOT_APP, SHARD_COUNT)
+                                        .contains(shard));
+            counts.merge(shard, 1, Integer::sum);
+        }
+        // 3 张连续分表都有记录
+        assertEquals(3, counts.size(), counts.toString());
+    }
+
+    @Test
+    void coldAppsStayOnHomeShard() {
+        for (long userId = 1; userId <= 50; userId++) {
+            assertEquals((int) (COLD_APP % SHARD_COUNT), UserAnswerHotApps.shard(COLD_APP, userId, 5_000L, SHARD_COUNT));
+            assertEquals((int) (SINGLE_HOT_APP % SHARD_COUNT),
+                         UserAnswerHotApps.shard(SINGLE_HOT_APP, userId, 5_000L, SHARD_COUNT));
+        }
+    }
+
+    @Test
+    void candidateShardsContainActualShard() {
+        for (long appId : new long[]{HOT_APP, WIDE_HOT_APP, COLD_APP}) {
+            for (long id : new long[]{HOT_SINCE_ID - 1, HOT_SINCE_ID, WIDE_SINCE_ID}) {
+                for (long userId = 1; userId <= 100; userId++) {
+                    int shard = UserAnswerHotApps.shard(appId, userId, id, SHARD_COUNT);
+                    assertTrue(UserAnswerHotApps.shardsOfId(appId, id, SHARD_COUNT)
+                                                .contains(shard));
+                    assertTrue(UserAnswerHotApps.shardsOfUser(appId, userId, SHARD_COUNT)
+                                                .contains(shard));
+                }
+            }
+        }
+    }
+
+    @Test
+    void skewedAppsAreBalancedOnceHotAppsSpread() {
+        // 按 Zipf 分布（s = 1.1）生成 1000 个应用的答题记录，排名前 20 的应用占一半以上的记录
+        int apps = 1_000;
+        int rows = 200_000;
+        Random random = new Random(42L);
+        List<Long> appIds = new ArrayList<>(apps);
+        for (long appId = 1; appId <= apps; appId++) {
+            appIds.add(appId);
+        }
+        // 应用 id 与热度无关
+        Collections.shuffle(appIds, random);
+        double[] cdf = new double[apps];
+        double sum = 0;
+        for (int rank = 0; rank < apps; rank++) {
+            sum += 1 / Math.pow(rank + 1, 1.1);
+            cdf[rank] = sum;
+        }
+        long[] rowAppIds = new long[rows];
+        long[] rowUserIds = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            rowAppIds[i] = appIds.get(Math.min(rank < 0 ? -rank - 1 : rank, apps - 1));
+            rowUserIds[i] = 1 + random.nextInt(20_000);
+        }
+
+        UserAnswerHotApps.update(List.of());
+        int[] cold = shardCounts(rowAppIds, rowUserIds);
+        List<UserAnswerHotApp> hotApps = new ArrayList<>();
+        for (int rank = 0; rank < 20; rank++) {
+            hotApps.add(hotApp(appIds.get(rank), SHARD_COUNT, 0L));
+        }
+        UserAnswerHotApps.update(hotApps);
+        int[] spread = shardCounts(rowAppIds, rowUserIds);
+
+        // 只按 appId 取模时最大分表的记录数是最小分表的 2 倍以上
+        assertTrue(imbalance(cold) > 2.0, Arrays.toString(cold));
+        assertTrue(imbalance(spread) <= 1.25, Arrays.toString(spread));
+        assertEquals(rows, Arrays.stream(spread)
+                                 .sum());
+    }
+
+    @Test
+    void expressionWithoutHotAppsIsPlainModulo() {
+        UserAnswerHotApps.update(List.of());
+        assertEquals("MOD(appId, 4)", UserAnswerHotApps.shardExpression(SHARD_COUNT));
+    }
+
+    /**
+     * 按 MySQL 语义计算 shardExpression 生成的表达式：CRC32 对数字按十进制字符串计算，MOD 对非负数取余
+     */
+    private static int evaluate(String expression, long appId, long userId, long id) {
+        Matcher plain = MOD_APP_ID.matcher(expression);
+        if (plain.matches()) {
+            return (int) (appId % Long.parseLong(plain.group(1)));
+        }
+        Matcher matcher = MOD_CASE.matcher(expression);
+        assertTrue(matcher.matches(), expression);
+        long offset = 0;
+        Matcher when = WHEN.matcher(matcher.group(1));
+        while (when.find()) {
+            if (Long.parseLong(when.group(1)) == appId) {
+                offset = id >= Long.parseLong(when.group(2)) ? mysqlCrc32(userId) % Long.parseLong(when.group(3)) : 0;
+                break;
+            }
+        }
+        return (int) ((appId + offset) % Long.parseLong(matcher.group(2)));
+    }
+
+    private static int[] shardCounts(long[] appIds, long[] userIds) {
+        int[] counts = new int[SHARD_COUNT];
+        for (int i = 0; i < appIds.length; i++) {
+            counts[UserAnswerHotApps.shard(appIds[i], userIds[i], i + 1, SHARD_COUNT)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * 最大分表与最小分表的记录数之比
+     */
+    private static double imbalance(int[] counts) {
+        int max = Arrays.stream(counts)
+                        .max()
+                        .orElse(0);
+        int min = Arrays.stream(counts)
+                        .min()
+                        .orElse(0);
+        return min == 0 ? Double.MAX_VALUE : (double) max / min;
+    }
+
+    private static long mysqlCrc32(long value) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(String.valueOf(value)
+                           .getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+
+    private static UserAnswerHotApp hotApp(long appId, int subShards, long sinceId) {
+        UserAnswerHotApp hotApp = new UserAnswerHotApp();
+        hotApp.setAppId(appId);
+        hotApp.setSubShards(subShards);
+        hotApp.setSinceId(sinceId);
+        return hotApp;
+    }
+}
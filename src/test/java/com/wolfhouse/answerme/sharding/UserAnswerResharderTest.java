@@ -0,0 +1,105 @@
+package com.wolfhouse.answerme.sharding;
+
+import com.wolfhouse.answerme.model.entity.UserAnswer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 重新分表双写测试：事务中写入的记录在提交后才同步到另一侧布局
+ *
+ * @author Rylin Wolf
+ */
+class UserAnswerResharderTest {
+    private static final long ID = 1001L;
+    private static final long APP_ID = 3L;
+    private static final long USER_ID = 7L;
+
+    /** 原分表 2 张、新分表 4 张时应用 3 所在的新分表 */
+    private static final String TARGET_TABLE = "user_answer_v2_3";
+
+    private JdbcTemplate jdbcTemplate;
+
+    private UserAnswerResharder resharder;
+
+    @BeforeEach
+    void setUp() {
+        UserAnswerHotApps.update(Collections.emptyList());
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(ID))).thenReturn(List.of(USER_ID));
+        resharder = new UserAnswerResharder();
+        ReflectionTestUtils.setField(resharder, "reshardConfig", new ReshardConfig());
+        ReflectionTestUtils.setField(resharder, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(resharder, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(resharder, "source", new UserAnswerShardLayout("user_answer_", 2));
+        ReflectionTestUtils.setField(resharder, "target", new UserAnswerShardLayout("user_answer_v2_", 4));
+        ReflectionTestUtils.setField(resharder, "phase", ReshardPhase.MIGRATING);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void syncsImmediatelyOutsideTransaction() {
+        resharder.sync(ID, APP_ID);
+        verify(jdbcTemplate).update(startsWith("REPLACE INTO " + TARGET_TABLE + " "), eq(ID));
+    }
+
+    @Test
+    void batchSyncInTransactionWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        resharder.sync(List.of(userAnswer()));
+        // 提交前读不到本事务写入的行，不能同步（否则会删除目标行）
+        verifyNoInteractions(jdbcTemplate);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        verify(jdbcTemplate).update(startsWith("REPLACE INTO " + TARGET_TABLE + " "), eq(ID));
+    }
+
+    @Test
+    void rolledBackWriteIsNotSynced() {
+        TransactionSynchronizationManager.initSynchronization();
+        resharder.sync(ID, APP_ID);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void doesNothingWhenNotMigrating() {
+        ReflectionTestUtils.setField(resharder, "phase", ReshardPhase.NONE);
+        resharder.sync(List.of(userAnswer()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private UserAnswer userAnswer() {
+        UserAnswer userAnswer = new UserAnswer();
+        userAnswer.setId(ID);
+        userAnswer.setAppId(APP_ID);
+        userAnswer.setUserId(USER_ID);
+        return userAnswer;
+    }
+}
@@ -0,0 +1,70 @@
+package com.wolfhouse.answerme.utils;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 答案缓存键基准测试：长度前缀摘要与原 JSON + MD5 十进制数组键对比
+ * <p>
+ * 运行：在 IDE 中执行 main 方法，或 mvn test-compile 后以测试类路径运行本类
+ *
+ * @author Rylin Wolf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnswerKeyUtilsBenchmark {
+    private static final String[] KEYS = {"A", "B", "C", "D"};
+
+    @Param({"10", "50", "200"})
+    private int questionCount;
+
+    private List<String> choices;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(questionCount);
+        choices = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            choices.add(KEYS[random.nextInt(KEYS.length)]);
+        }
+    }
+
+    @Benchmark
+    public String lengthPrefixedDigest() {
+        return AnswerKeyUtils.digest(choices);
+    }
+
+    @Benchmark
+    public String originalJsonDigest() {
+        return Arrays.toString(DigestUtil.md5(JSONUtil.toJsonStr(choices)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AnswerKeyUtilsBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+}
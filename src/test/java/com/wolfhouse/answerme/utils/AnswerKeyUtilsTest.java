@@ -0,0 +1,54 @@
+package com.wolfhouse.answerme.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 答案缓存键工具测试
+ *
+ * @author Rylin Wolf
+ */
+class AnswerKeyUtilsTest {
+
+    @Test
+    void sameChoicesProduceSameKey() {
+        assertEquals(AnswerKeyUtils.digest(List.of("A", "B", "C")),
+                     AnswerKeyUtils.digest(Arrays.asList("A", "B", "C")));
+    }
+
+    @Test
+    void keyIs32LowercaseHexChars() {
+        String key = AnswerKeyUtils.digest(List.of("A", "中文", "C"));
+        assertEquals(32, key.length());
+        assertTrue(key.matches("[0-9a-f]{32}"), key);
+    }
+
+    @Test
+    void lengthPrefixSeparatesConcatenationAmbiguity() {
+        assertNotEquals(AnswerKeyUtils.digest(List.of("a", "bc")), AnswerKeyUtils.digest(List.of("ab", "c")));
+        assertNotEquals(AnswerKeyUtils.digest(List.of("abc")), AnswerKeyUtils.digest(List.of("a", "b", "c")));
+        assertNotEquals(AnswerKeyUtils.digest(List.of("", "a")), AnswerKeyUtils.digest(List.of("a", "")));
+    }
+
+    @Test
+    void emptyNullAndEmptyStringAreDistinct() {
+        String empty = AnswerKeyUtils.digest(Collections.emptyList());
+        String emptyString = AnswerKeyUtils.digest(List.of(""));
+        String nullChoice = AnswerKeyUtils.digest(Collections.singletonList(null));
+        assertNotEquals(empty, emptyString);
+        assertNotEquals(emptyString, nullChoice);
+        assertNotEquals(empty, nullChoice);
+    }
+
+    @Test
+    void orderMatters() {
+        assertNotEquals(AnswerKeyUtils.digest(List.of("A", "B")), AnswerKeyUtils.digest(List.of("B", "A")));
+    }
+}
@@ -0,0 +1,133 @@
+package com.wolfhouse.answerme.utils;
+
+import cn.hutool.core.util.StrUtil;
+import io.reactivex.Flowable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 流式题目切分基准测试：增量切分器与原逐字符装箱 + 括号计数切分对比
+ * <p>
+ * 模拟模型按小分片输出的题目数组，测量切分整段输出的耗时。
+ * 运行：在 IDE 中执行 main 方法，或 mvn test-compile 后以测试类路径运行本类
+ *
+ * @author Rylin Wolf
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonObjectSplitterBenchmark {
+    /** 模型输出分片的平均长度 */
+    private static final int CHUNK_LENGTH = 8;
+
+    @Param({"10", "50"})
+    private int questionNumber;
+
+    private List<String> chunks;
+
+    @Setup
+    public void setUp() {
+        StringBuilder output = new StringBuilder("[");
+        for (int i = 0; i < questionNumber; i++) {
+            if (i > 0) {
+                output.append(",\n");
+            }
+            output.append("{\"title\": \"第 ")
+                  .append(i + 1)
+                  .append(" 题：你更喜欢哪种周末安排？\", \"options\": [");
+            for (int j = 0; j < 4; j++) {
+                if (j > 0) {
+                    output.append(", ");
+                }
+                output.append("{\"key\": \"")
+                      .append((char) ('A' + j))
+                      .append("\", \"value\": \"选项 ")
+                      .append(j + 1)
+                      .append("\", \"result\": \"I\"}");
+            }
+            output.append("]}");
+        }
+        output.append("]");
+        Random random = new Random(questionNumber);
+        chunks = new ArrayList<>();
+        int start = 0;
+        while (start < output.length()) {
+            int end = Math.min(output.length(), start + 1 + random.nextInt(CHUNK_LENGTH * 2));
+            chunks.add(output.substring(start, end));
+            start = end;
+        }
+    }
+
+    @Benchmark
+    public void incrementalSplitter(Blackhole blackhole) {
+        JsonObjectSplitter splitter = new JsonObjectSplitter();
+        for (String chunk : chunks) {
+            for (String object : splitter.feed(chunk)) {
+                blackhole.consume(object);
+            }
+        }
+    }
+
+    /**
+     * 原实现：去除空白后逐字符装箱为 Flowable，按 { } 计数拼接题目
+     */
+    @Benchmark
+    public void originalCharFlowable(Blackhole blackhole) {
+        AtomicInteger counter = new AtomicInteger(0);
+        StringBuilder stringBuilder = new StringBuilder();
+        Flowable.fromIterable(chunks)
+                .map(msg -> msg.replaceAll("\\s", ""))
+                .filter(StrUtil::isNotBlank)
+                .flatMap(msg -> {
+                    List<Character> charList = msg.chars()
+                                                  .mapToObj(c -> (char) c)
+                                                  .collect(Collectors.toList());
+                    return Flowable.fromIterable(charList);
+                })
+                .blockingForEach(c -> {
+                    if (c.equals('{')) {
+                        counter.incrementAndGet();
+                        stringBuilder.append(c);
+                        return;
+                    }
+                    if (counter.get() > 0) {
+                        stringBuilder.append(c);
+                    }
+                    if (c.equals('}')) {
+                        counter.decrementAndGet();
+                        if (counter.get() == 0) {
+                            blackhole.consume(stringBuilder.toString());
+                            stringBuilder.setLength(0);
+                        }
+                    }
+                });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonObjectSplitterBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+}
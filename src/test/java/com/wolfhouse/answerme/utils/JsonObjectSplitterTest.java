@@ -0,0 +1,172 @@
+package com.wolfhouse.answerme.utils;
+
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式 JSON 对象切分器测试
+ *
+ * @author Rylin Wolf
+ */
+class JsonObjectSplitterTest {
+    private static final String BRACES_IN_STRING = "{\"title\":\"a } b { c ] [\",\"options\":[]}";
+
+    private static final String ESCAPED_QUOTES = "{\"title\":\"say \\\"}\\\" now\",\"options\":[{\"key\":\"A\"}]}";
+
+    /** 字符串以转义的反斜杠结尾，其后的引号结束字符串 */
+    private static final String ESCAPED_BACKSLASH = "{\"title\":\"C:\\\\\",\"options\":[]}";
+
+    @Test
+    void splitsTopLevelObjectsAndIgnoresSurroundingText() {
+        String text = "以下是题目：\n[" + BRACES_IN_STRING + ",\n " + ESCAPED_QUOTES + "] 共 2 题";
+        assertEquals(List.of(BRACES_IN_STRING, ESCAPED_QUOTES), JsonObjectSplitter.split(text));
+    }
+
+    @Test
+    void bracesAndBracketsInsideStringsDoNotChangeDepth() {
+        assertEquals(List.of(BRACES_IN_STRING), JsonObjectSplitter.split(BRACES_IN_STRING));
+    }
+
+    @Test
+    void escapedQuotesDoNotEndString() {
+        assertEquals(List.of(ESCAPED_QUOTES), JsonObjectSplitter.split(ESCAPED_QUOTES));
+    }
+
+    @Test
+    void escapedBackslashBeforeQuoteEndsString() {
+        String text = ESCAPED_BACKSLASH + "{\"x\":1}";
+        assertEquals(List.of(ESCAPED_BACKSLASH, "{\"x\":1}"), JsonObjectSplitter.split(text));
+    }
+
+    @Test
+    void nestedObjectsAreEmittedOnceAtTopLevel() {
+        String object = "{\"a\":{\"b\":[{\"c\":{}}]},\"d\":[[],{}]}";
+        assertEquals(List.of(object), JsonObjectSplitter.split("[" + object + "]"));
+    }
+
+    @Test
+    void unterminatedObjectIsNotEmitted() {
+        JsonObjectSplitter splitter = new JsonObjectSplitter();
+        assertEquals(List.of("{\"a\":1}"), splitter.feed("{\"a\":1},{\"b\":\"}"));
+        assertTrue(splitter.feed("\"").isEmpty());
+    }
+
+    @Test
+    void objectSplitAtEveryBoundaryMatchesWholeText() {
+        String text = "[" + BRACES_IN_STRING + "," + ESCAPED_QUOTES + "," + ESCAPED_BACKSLASH + "]";
+        List<String> expected = JsonObjectSplitter.split(text);
+        assertEquals(3, expected.size());
+        for (int i = 0; i <= text.length(); i++) {
+            for (int j = i; j <= text.length(); j++) {
+                JsonObjectSplitter splitter = new JsonObjectSplitter();
+                List<String> objects = new ArrayList<>(splitter.feed(text.substring(0, i)));
+                objects.addAll(splitter.feed(text.substring(i, j)));
+                objects.addAll(splitter.feed(text.substring(j)));
+                assertEquals(expected, objects, "split at " + i + ", " + j);
+            }
+        }
+    }
+
+    @Test
+    void escapeAtChunkBoundary() {
+        JsonObjectSplitter splitter = new JsonObjectSplitter();
+        assertTrue(splitter.feed("{\"t\":\"a\\")
+                           .isEmpty());
+        // 上一分片末尾的反斜杠转义了本分片开头的引号，字符串未结束
+        assertTrue(splitter.feed("\"}")
+                           .isEmpty());
+        assertEquals(List.of("{\"t\":\"a\\\"}\"}"), splitter.feed("\"}"));
+    }
+
+    @Test
+    void randomizedChunkingMatchesGeneratedObjects() {
+        Random random = new Random(16L);
+        for (int round = 0; round < 500; round++) {
+            List<String> objects = new ArrayList<>();
+            StringBuilder text = new StringBuilder("好的，以下是生成的题目：[");
+            int count = 1 + random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                String object = randomObject(random, 0);
+                objects.add(object);
+                text.append(object)
+                    .append(i + 1 < count ? ",\n" : "]");
+            }
+            text.append(" 希望对你有帮助 {");
+
+            JsonObjectSplitter splitter = new JsonObjectSplitter();
+            List<String> emitted = new ArrayList<>();
+            int position = 0;
+            while (position < text.length()) {
+                int end = Math.min(text.length(), position + 1 + random.nextInt(8));
+                emitted.addAll(splitter.feed(text.subSequence(position, end)));
+                position = end;
+            }
+            assertEquals(objects, emitted);
+            for (String object : emitted) {
+                assertDoesNotThrow(() -> JSONUtil.parseObj(object), object);
+            }
+        }
+    }
+
+    private static String randomObject(Random random, int level) {
+        StringBuilder object = new StringBuilder("{");
+        int fields = random.nextInt(4);
+        for (int i = 0; i < fields; i++) {
+            if (i > 0) {
+                object.append(',');
+            }
+            object.append('"')
+                  .append("k")
+                  .append(i)
+                  .append("\":")
+                  .append(randomValue(random, level));
+        }
+        return object.append('}')
+                     .toString();
+    }
+
+    private static String randomValue(Random random, int level) {
+        int type = random.nextInt(level < 3 ? 4 : 2);
+        switch (type) {
+            case 0:
+                return randomString(random);
+            case 1:
+                return String.valueOf(random.nextInt(100));
+            case 2:
+                return randomObject(random, level + 1);
+            default:
+                StringBuilder array = new StringBuilder("[");
+                int size = random.nextInt(3);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) {
+                        array.append(',');
+                    }
+                    array.append(randomValue(random, level + 1));
+                }
+                return array.append(']')
+                            .toString();
+        }
+    }
+
+    /**
+     * 包含括号、转义引号与转义反斜杠的 JSON 字符串
+     */
+    private static String randomString(Random random) {
+        String[] parts = {"a", "题目", "{", "}", "[", "]", ",", ":", "\\\"", "\\\\", "\\n", " "};
+        StringBuilder value = new StringBuilder("\"");
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            value.append(parts[random.nextInt(parts.length)]);
+        }
+        return value.append('"')
+                    .toString();
+    }
+}